@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating requests and reading their headers and parameters.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class MockHttpServletRequestBenchmark {
+  @Param({"5", "50"})
+  public int count;
+
+  private MockContainer container;
+
+  private MockHttpServletRequest request;
+
+  private MockHttpServletRequestTemplate template;
+
+  @Benchmark
+  public MockHttpServletRequest construct() {
+    return container.newServletRequest("/api/user");
+  }
+
+  @Benchmark
+  public MockHttpServletRequest constructFromTemplate() {
+    return container.newServletRequest(template);
+  }
+
+  @Benchmark
+  public String getHeaderFirst() {
+    return request.getHeader("X-Header-0");
+  }
+
+  @Benchmark
+  public String getHeaderLast() {
+    return request.getHeader("x-header-" + (count - 1));
+  }
+
+  @Benchmark
+  public String getHeaderMissing() {
+    return request.getHeader("X-Missing");
+  }
+
+  @Benchmark
+  public Map<String, String[]> getParameterMap() {
+    return request.getParameterMap();
+  }
+
+  @Benchmark
+  public String getQueryString() {
+    return request.getQueryString();
+  }
+
+  @Setup
+  public void setup() {
+    container = new MockContainer();
+    template = container.newServletRequestTemplate("/api/user", this::configure);
+    request = container.newServletRequest("/api/user");
+    configure(request);
+  }
+
+  private void configure(MockHttpServletRequest request) {
+    for (int i = 0; i < count; i++) {
+      request.addHeader("X-Header-" + i, "value " + i);
+      request.setParameter("param" + i, "value " + i + " & more");
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks writing response bodies through the output stream and the writer.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class MockHttpServletResponseBenchmark {
+  @Param({"128", "16384"})
+  public int size;
+
+  private byte[] bytes;
+
+  private MockContainer container;
+
+  private String text;
+
+  @Setup
+  public void setup() {
+    container = new MockContainer();
+
+    char[] chars = new char[size];
+    Arrays.fill(chars, 'a');
+    text = new String(chars);
+    bytes = text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public int writeOutputStream() throws IOException {
+    MockHttpServletResponse response = container.newServletResponse();
+    response.getOutputStream().write(bytes);
+    return response.getStream().baos.size();
+  }
+
+  @Benchmark
+  public int writeWriter() {
+    MockHttpServletResponse response = container.newServletResponse();
+    PrintWriter writer = response.getWriter();
+    writer.write(text);
+    writer.flush();
+    return response.getStream().baos.size();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks looking up the cookies for a request in cookie jars of different sizes.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class MockUserAgentBenchmark {
+  @Param({"10", "1000"})
+  public int cookies;
+
+  private MockHttpServletRequest request;
+
+  private MockUserAgent userAgent;
+
+  @Benchmark
+  public List<Cookie> getCookies() {
+    return userAgent.getCookies(request);
+  }
+
+  @Setup
+  public void setup() {
+    MockContainer container = new MockContainer();
+    userAgent = container.getUserAgent();
+
+    // Spread the cookies over several paths, only some of which match the request
+    for (int i = 0; i < cookies; i++) {
+      MockHttpServletRequest other = container.newServletRequest("/app" + (i % 10) + "/page");
+      Cookie cookie = new Cookie("cookie" + i, "value" + i);
+      cookie.setPath("/app" + (i % 10));
+      userAgent.addCookie(other, cookie);
+    }
+
+    request = container.newServletRequest("/app3/page");
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks generating and reading multipart request bodies at several file sizes.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class MultipartBenchmark {
+  @Param({"1024", "65536", "1048576"})
+  public int size;
+
+  private final byte[] buffer = new byte[8192];
+
+  private MockContainer container;
+
+  private File file;
+
+  @Benchmark
+  public long generate() throws IOException {
+    MockHttpServletRequest request = container.newServletRequest("/upload");
+    request.setParameter("name", "value");
+    request.addFile("file", file, "application/octet-stream");
+
+    long total = 0;
+    try (InputStream is = request.getInputStream()) {
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        total += read;
+      }
+    }
+
+    return total;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    container = new MockContainer();
+    file = File.createTempFile("prime-mock-benchmark", ".bin");
+
+    byte[] bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    Files.write(file.toPath(), bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+}
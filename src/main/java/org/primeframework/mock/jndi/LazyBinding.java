@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.jndi;
+
+import javax.naming.Context;
+import javax.naming.Name;
+import javax.naming.NamingException;
+import javax.naming.Reference;
+import javax.naming.spi.NamingManager;
+import javax.naming.spi.ObjectFactory;
+import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A binding in the {@link MockJNDI} tree whose object is created when it is looked up rather than when it is bound.
+ * The object is either created once and shared, created once per thread, or taken round-robin from a fixed size pool
+ * whose members are each created the first time they are handed out.
+ *
+ * @author Brian Pontarelli
+ */
+abstract class LazyBinding {
+  private final String className;
+
+  private final Creator creator;
+
+  private LazyBinding(Creator creator, String className) {
+    this.creator = creator;
+    this.className = className;
+  }
+
+  static Creator creator(ObjectFactory factory) {
+    return (name, context, environment) -> factory.getObjectInstance(null, name, context, environment);
+  }
+
+  static Creator creator(Reference reference) {
+    return (name, context, environment) -> NamingManager.getObjectInstance(reference, name, context, environment);
+  }
+
+  static Creator creator(Supplier<?> supplier) {
+    return (name, context, environment) -> supplier.get();
+  }
+
+  static LazyBinding perThread(Creator creator, String className) {
+    return new PerThread(creator, className);
+  }
+
+  static LazyBinding pooled(Creator creator, String className, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("The pool size must be at least 1");
+    }
+
+    return new Pooled(creator, className, size);
+  }
+
+  static LazyBinding shared(Creator creator, String className) {
+    return new Shared(creator, className);
+  }
+
+  /**
+   * @return The class name to list for the binding, which is the class of the object if one has been created.
+   */
+  String getClassName() {
+    Object created = created();
+    return created != null ? created.getClass().getName() : className;
+  }
+
+  /**
+   * Gets or creates the object.
+   *
+   * @param name        The name being looked up, relative to the context.
+   * @param context     The context the lookup was made on.
+   * @param environment The context's environment.
+   * @return The object.
+   * @throws NamingException If the object couldn't be created.
+   */
+  abstract Object get(Name name, Context context, Hashtable<?, ?> environment) throws NamingException;
+
+  /**
+   * @return The object if one has been created and is visible to the calling thread, or null.
+   */
+  abstract Object created();
+
+  Object create(Name name, Context context, Hashtable<?, ?> environment) throws NamingException {
+    Object object;
+    try {
+      object = creator.create(name, context, environment);
+    } catch (NamingException e) {
+      throw e;
+    } catch (Exception e) {
+      NamingException ne = new NamingException("Unable to create the object for [" + name + "]");
+      ne.setRootCause(e);
+      throw ne;
+    }
+
+    if (object == null) {
+      throw new NamingException("The object created for [" + name + "] was null");
+    }
+
+    return object;
+  }
+
+  interface Creator {
+    Object create(Name name, Context context, Hashtable<?, ?> environment) throws Exception;
+  }
+
+  private static class PerThread extends LazyBinding {
+    private final ThreadLocal<Object> objects = new ThreadLocal<>();
+
+    private PerThread(Creator creator, String className) {
+      super(creator, className);
+    }
+
+    @Override
+    Object created() {
+      return objects.get();
+    }
+
+    @Override
+    Object get(Name name, Context context, Hashtable<?, ?> environment) throws NamingException {
+      Object object = objects.get();
+      if (object == null) {
+        object = create(name, context, environment);
+        objects.set(object);
+      }
+
+      return object;
+    }
+  }
+
+  private static class Pooled extends LazyBinding {
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Shared[] members;
+
+    private Pooled(Creator creator, String className, int size) {
+      super(creator, className);
+      this.members = new Shared[size];
+      for (int i = 0; i < size; i++) {
+        members[i] = new Shared(creator, className);
+      }
+    }
+
+    @Override
+    Object created() {
+      return members[0].created();
+    }
+
+    @Override
+    Object get(Name name, Context context, Hashtable<?, ?> environment) throws NamingException {
+      int index = Math.floorMod(next.getAndIncrement(), members.length);
+      return members[index].get(name, context, environment);
+    }
+  }
+
+  private static class Shared extends LazyBinding {
+    private volatile Object object;
+
+    private Shared(Creator creator, String className) {
+      super(creator, className);
+    }
+
+    @Override
+    Object created() {
+      return object;
+    }
+
+    @Override
+    Object get(Name name, Context context, Hashtable<?, ?> environment) throws NamingException {
+      Object current = object;
+      if (current == null) {
+        synchronized (this) {
+          current = object;
+          if (current == null) {
+            current = create(name, context, environment);
+            object = current;
+          }
+        }
+      }
+
+      return current;
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2007, Inversoft, All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft, All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,39 +18,138 @@ package org.primeframework.mock.jndi;
 import javax.naming.Binding;
 import javax.naming.CompositeName;
 import javax.naming.Context;
+import javax.naming.ContextNotEmptyException;
+import javax.naming.InvalidNameException;
 import javax.naming.Name;
+import javax.naming.NameAlreadyBoundException;
 import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
 import javax.naming.NameParser;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
+import javax.naming.NotContextException;
+import javax.naming.OperationNotSupportedException;
+import javax.naming.Reference;
 import javax.naming.spi.InitialContextFactory;
 import javax.naming.spi.InitialContextFactoryBuilder;
 import javax.naming.spi.NamingManager;
-import java.util.HashMap;
+import javax.naming.spi.ObjectFactory;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * This class is a mock JNDI tree that is used to store data sources and other such items for testing. I decided not to
  * use the Spring one because I didn't want to tie TM to Spring.
+ * <p>
+ * The tree is hierarchical. Names are parsed as {@link CompositeName}s and each component is a level in the tree, so
+ * <code>java:comp/env/jdbc/Foo</code> is the binding <code>Foo</code> in the subcontext <code>java:comp/env/jdbc</code>.
+ * Each level is a ConcurrentHashMap, so lookups never lock and binds from different threads only contend when they
+ * write to the same level. This makes it safe for tests to look things up and bind things from many threads at once.
+ * <p>
+ * Unlike a real naming service, binding a name creates any subcontexts that don't exist yet, and unbinding a name that
+ * doesn't exist does nothing.
+ * <p>
+ * Expensive objects (DataSources, pools, JMS factories) can be bound lazily so that they are only created if a test
+ * looks them up. The <code>bindLazy</code>, <code>bindFactory</code>, <code>bindPerThread</code> and
+ * <code>bindPooled</code> methods bind a Supplier or ObjectFactory that is called on the first lookup. A
+ * {@link Reference} bound to any name is also resolved on its first lookup (using its ObjectFactory) and the result is
+ * kept for later lookups.
+ * <p>
+ * Because {@link #activate()} installs this class JVM-wide and can only be called once, tests that run in parallel
+ * isolate their bindings with scopes. {@link #openScope()} puts a new, empty layer on top of the current thread's view
+ * of the tree. Everything the thread binds (through this class or through an InitialContext) goes into that layer, and
+ * lookups see the layer's bindings first and then the shared bindings underneath. Threads started inside a scope
+ * inherit it, and scopes can be nested. Closing the scope throws away its layer.
+ * <p>
+ * Inheriting is by thread, not by task. A pool thread that is started while a scope is open keeps that scope for every
+ * task it runs until the scope is closed, even tasks submitted from other scopes. Use {@link Scope#wrap(Runnable)} (or
+ * {@link Scope#getContext()}) to hand a scope to pool tasks explicitly.
  *
  * @author Brian Pontarelli
  */
 public class MockJNDI implements InitialContextFactoryBuilder {
-  private Map<String, Object> context = new HashMap<String, Object>();
+  private static final NameParser PARSER = CompositeName::new;
+
+  private final Node[] base = new Node().single;
+
+  private final InheritableThreadLocal<Scope> scopes = new InheritableThreadLocal<>();
 
   public InitialContextFactory createInitialContextFactory(Hashtable<?, ?> environment) throws NamingException {
-    return new MockInitialContextFactory(context);
+    return new MockInitialContextFactory(this::layers);
   }
 
   /**
-   * Binds an object to the name.
+   * Binds an object to the name, replacing anything already bound to it.
    *
    * @param name  The name to bind to.
-   * @param value The value to bind.
+   * @param value The value to bind, which can't be null.
+   * @throws IllegalArgumentException If the name is invalid, the value is null or one of its parents is bound to
+   *                                  something other than a subcontext.
    */
   public void bind(String name, Object value) {
-    context.put(name, value);
+    try {
+      new MockContext(layers(), new CompositeName(), null).rebind(name, value);
+    } catch (NamingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Binds an ObjectFactory that creates the object the first time the name is looked up. The object is kept and returned
+   * for every later lookup.
+   *
+   * @param name    The name to bind to.
+   * @param factory The factory, which is passed a null object and the name, context and environment of the lookup.
+   * @throws IllegalArgumentException If the name is invalid.
+   */
+  public void bindFactory(String name, ObjectFactory factory) {
+    bind(name, LazyBinding.shared(LazyBinding.creator(factory), Object.class.getName()));
+  }
+
+  /**
+   * Binds a Supplier that creates the object the first time the name is looked up. The object is kept and returned for
+   * every later lookup.
+   *
+   * @param name     The name to bind to.
+   * @param supplier The supplier.
+   * @throws IllegalArgumentException If the name is invalid.
+   */
+  public void bindLazy(String name, Supplier<?> supplier) {
+    bind(name, LazyBinding.shared(LazyBinding.creator(supplier), Object.class.getName()));
+  }
+
+  /**
+   * Binds a Supplier that creates a separate object for each thread the first time that thread looks up the name. This
+   * is handy for objects that aren't thread-safe, like a JDBC Connection.
+   *
+   * @param name     The name to bind to.
+   * @param supplier The supplier.
+   * @throws IllegalArgumentException If the name is invalid.
+   */
+  public void bindPerThread(String name, Supplier<?> supplier) {
+    bind(name, LazyBinding.perThread(LazyBinding.creator(supplier), Object.class.getName()));
+  }
+
+  /**
+   * Binds a pool of objects that lookups are handed round-robin. Each member of the pool is created by the Supplier the
+   * first time it is handed out, so a test that only looks the name up once only creates one object.
+   *
+   * @param name     The name to bind to.
+   * @param size     The size of the pool.
+   * @param supplier The supplier.
+   * @throws IllegalArgumentException If the name is invalid or the size is less than 1.
+   */
+  public void bindPooled(String name, int size, Supplier<?> supplier) {
+    bind(name, LazyBinding.pooled(LazyBinding.creator(supplier), Object.class.getName(), size));
   }
 
   /**
@@ -64,173 +163,721 @@ public class MockJNDI implements InitialContextFactoryBuilder {
     }
   }
 
+  /**
+   * Opens a scope for the current thread (and the threads it starts from now on) on top of its current view of the
+   * tree. The scope must be closed by the same thread.
+   * <p>
+   * The threads started while the scope is open keep it until it is closed, and this includes the threads that an
+   * ExecutorService starts lazily when tasks are submitted. Those threads go on to run tasks for other scopes, which
+   * would then see this scope's bindings. Tasks that need a particular scope should be wrapped with
+   * {@link Scope#wrap(Runnable)} or {@link Scope#wrap(Callable)} instead of relying on inheritance, and pools that
+   * outlive a scope should be created outside of it.
+   *
+   * @return The scope.
+   */
+  public Scope openScope() {
+    Scope current = current();
+    Node[] below = current != null ? current.layers : base;
+    Node[] layers = new Node[below.length + 1];
+    layers[0] = new Node();
+    System.arraycopy(below, 0, layers, 1, below.length);
+
+    Scope scope = new Scope(current, layers);
+    scopes.set(scope);
+    return scope;
+  }
+
+  /**
+   * @return The innermost open scope of the current thread, skipping the scopes that were closed after the thread
+   * inherited them.
+   */
+  private Scope current() {
+    Scope scope = scopes.get();
+    while (scope != null && scope.closed) {
+      scope = scope.previous;
+    }
+
+    return scope;
+  }
+
+  private Node[] layers() {
+    Scope scope = current();
+    return scope != null ? scope.layers : base;
+  }
+
   /**
    * This mock initial context factory.
    */
   public static class MockInitialContextFactory implements InitialContextFactory {
-    private Map<String, Object> context = new HashMap<String, Object>();
-
+    private final Supplier<Node[]> layers;
+
+    /**
+     * Creates a factory for a new tree that has the bindings in the Map.
+     *
+     * @param context The bindings, whose names are parsed as composite names.
+     * @throws IllegalArgumentException If a name is invalid or a value is null.
+     * @deprecated The bindings are copied into the new tree, so unlike older versions the Map is no longer shared with
+     *     the contexts. Changes to the Map after this call aren't seen by lookups, and binds aren't written to the Map.
+     *     Use {@link MockJNDI#bind(String, Object)} and {@link MockJNDI#createInitialContextFactory(Hashtable)}
+     *     instead.
+     */
+    @Deprecated
     public MockInitialContextFactory(Map<String, Object> context) {
-      this.context = context;
+      Node[] roots = Node.of(context).single;
+      this.layers = () -> roots;
+    }
+
+    MockInitialContextFactory(Supplier<Node[]> layers) {
+      this.layers = layers;
     }
 
+    /**
+     * Creates a context for the calling thread's current scope. The context stays in that scope even if it is passed
+     * to another thread.
+     */
     public Context getInitialContext(Hashtable<?, ?> environment) throws NamingException {
-      return new MockContext(context);
+      return new MockContext(layers.get(), new CompositeName(), environment);
     }
   }
 
   /**
-   * The mock context.
+   * A scope opened by {@link #openScope()}.
    */
-  public static class MockContext implements Context {
-    private Map<String, Object> context = new HashMap<String, Object>();
+  public class Scope implements AutoCloseable {
+    private final Node[] layers;
+
+    private final Scope previous;
 
+    private volatile boolean closed;
+
+    private Scope(Scope previous, Node[] layers) {
+      this.previous = previous;
+      this.layers = layers;
+    }
+
+    /**
+     * Ends the scope and throws away its bindings. The thread goes back to the view it had when the scope was opened,
+     * and so do the threads that inherited the scope.
+     */
+    @Override
+    public void close() {
+      closed = true;
+      if (previous == null) {
+        scopes.remove();
+      } else {
+        scopes.set(previous);
+      }
+    }
+
+    /**
+     * Returns a root context for the scope that can be used from any thread, such as the threads of a pool that were
+     * started before the scope was opened.
+     *
+     * @return The context.
+     */
+    public Context getContext() {
+      return new MockContext(layers, new CompositeName(), null);
+    }
+
+    /**
+     * Wraps a task so that it runs in this scope on whichever thread runs it, and the thread's own scope is put back
+     * afterwards.
+     *
+     * @param task The task.
+     * @param <T>  The result type.
+     * @return The wrapped task.
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+      return () -> {
+        Scope saved = enter();
+        try {
+          return task.call();
+        } finally {
+          exit(saved);
+        }
+      };
+    }
+
+    /**
+     * Wraps a task so that it runs in this scope on whichever thread runs it, and the thread's own scope is put back
+     * afterwards.
+     *
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public Runnable wrap(Runnable task) {
+      return () -> {
+        Scope saved = enter();
+        try {
+          task.run();
+        } finally {
+          exit(saved);
+        }
+      };
+    }
+
+    private Scope enter() {
+      Scope saved = scopes.get();
+      scopes.set(this);
+      return saved;
+    }
+
+    private void exit(Scope saved) {
+      if (saved == null) {
+        scopes.remove();
+      } else {
+        scopes.set(saved);
+      }
+    }
+  }
+
+  /**
+   * The mock context, which is a view of one level of the tree. Contexts are cheap and many contexts can share the same
+   * level.
+   * <p>
+   * A context sees a stack of layers, each of which is a tree. Lookups search the layers from the top down and a binding
+   * in a higher layer hides the same name in the layers below it, while subcontexts with the same name are merged.
+   * Changes are only made to the top layer, and unbinding a name that a lower layer has leaves a marker in the top layer
+   * that hides it. Without any scopes, there is only one layer.
+   */
+  public static class MockContext implements Context {
+    private final Hashtable<Object, Object> environment;
+
+    private final Name prefix;
+
+    private final Node[] roots;
+
+    /**
+     * Creates the root context of a new tree that has the bindings in the Map.
+     *
+     * @param context The bindings, whose names are parsed as composite names.
+     * @throws IllegalArgumentException If a name is invalid or a value is null.
+     * @deprecated The bindings are copied into the new tree, so unlike older versions the Map is no longer shared with
+     *     the context. Changes to the Map after this call aren't seen by lookups, and binds aren't written to the Map.
+     *     Use {@link MockJNDI#bind(String, Object)} and {@link MockJNDI#createInitialContextFactory(Hashtable)}
+     *     instead.
+     */
+    @Deprecated
     public MockContext(Map<String, Object> context) {
-      this.context = context;
+      this(Node.of(context).single, new CompositeName(), null);
+    }
+
+    MockContext(Node[] roots, Name prefix, Hashtable<?, ?> environment) {
+      this.roots = roots;
+      this.prefix = prefix;
+      this.environment = environment != null ? new Hashtable<>(environment) : new Hashtable<>();
     }
 
     public Object lookup(Name name) throws NamingException {
-      String fullName = name.toString();
-      Object value = context.get(fullName);
-      if (value == null) {
-        throw new NamingException("Nothing at name [" + fullName + "]");
+      Name components = components(name);
+      if (components.isEmpty()) {
+        return new MockContext(roots, prefix, environment);
       }
-      return value;
+
+      Node[] current = here();
+      for (int i = 0; i < components.size(); i++) {
+        Object value = find(current, components.get(i));
+        if (value == null) {
+          throw new NameNotFoundException("Nothing at name [" + name + "]");
+        }
+
+        if (value instanceof LazyBinding) {
+          value = ((LazyBinding) value).get(components.getPrefix(i + 1), this, environment);
+        }
+
+        if (i == components.size() - 1) {
+          return value instanceof Node[] ? context(components) : value;
+        }
+
+        if (value instanceof Node[]) {
+          current = (Node[]) value;
+        } else if (value instanceof Context) {
+          // Federate to a context that someone bound
+          return ((Context) value).lookup(components.getSuffix(i + 1));
+        } else {
+          throw new NotContextException("The name [" + components.getPrefix(i + 1) + "] is not a context");
+        }
+      }
+
+      throw new IllegalStateException("Unreachable");
     }
 
     public Object lookup(String name) throws NamingException {
-      Object value = context.get(name);
-      if (value == null) {
-        throw new NamingException("Nothing at name [" + name + "]");
-      }
-      return value;
+      return lookup(new CompositeName(name));
     }
 
     public void bind(Name name, Object obj) throws NamingException {
-      String fullName = name.toString();
-      if (context.containsKey(fullName)) {
-        throw new NamingException("Name already bound [" + name + "]");
+      Name components = nonEmpty(name);
+      Object value = wrap(name, obj);
+      Node[] parent = walk(components, components.size() - 1);
+      if (parent != null && find(parent, last(components)) != null) {
+        throw new NameAlreadyBoundException("Name already bound [" + name + "]");
+      }
+
+      if (!putIfAbsent(top(components), last(components), value)) {
+        throw new NameAlreadyBoundException("Name already bound [" + name + "]");
       }
-      context.put(fullName, obj);
     }
 
     public void bind(String name, Object obj) throws NamingException {
-      if (context.containsKey(name)) {
-        throw new NamingException("Name already bound [" + name + "]");
-      }
-      context.put(name, obj);
+      bind(new CompositeName(name), obj);
     }
 
     public void rebind(Name name, Object obj) throws NamingException {
-      String fullName = name.toString();
-      context.put(fullName, obj);
+      Name components = nonEmpty(name);
+      Object value = wrap(name, obj);
+      walk(components, components.size() - 1);
+      top(components).bindings.put(last(components), value);
     }
 
     public void rebind(String name, Object obj) throws NamingException {
-      context.put(name, obj);
+      rebind(new CompositeName(name), obj);
     }
 
     public void unbind(Name name) throws NamingException {
-      String fullName = name.toString();
-      context.remove(fullName);
+      Name components = nonEmpty(name);
+      Node[] parent = walk(components, components.size() - 1);
+      if (parent != null && find(parent, last(components)) != null) {
+        remove(components);
+      }
     }
 
     public void unbind(String name) throws NamingException {
-      context.remove(name);
+      unbind(new CompositeName(name));
     }
 
     public void rename(Name oldName, Name newName) throws NamingException {
-      throw new NamingException("not implemented yet");
+      Name oldComponents = nonEmpty(oldName);
+      Node[] oldParent = walk(oldComponents, oldComponents.size() - 1);
+      Object value = oldParent != null ? find(oldParent, last(oldComponents)) : null;
+      if (value == null) {
+        throw new NameNotFoundException("Nothing at name [" + oldName + "]");
+      }
+
+      if (value instanceof Node[]) {
+        if (roots.length > 1) {
+          throw new OperationNotSupportedException("Subcontexts can't be renamed inside a scope");
+        }
+
+        value = ((Node[]) value)[0];
+      }
+
+      bind(newName, value);
+      remove(oldComponents);
     }
 
     public void rename(String oldName, String newName) throws NamingException {
-      throw new NamingException("not implemented yet");
+      rename(new CompositeName(oldName), new CompositeName(newName));
     }
 
     public NamingEnumeration<NameClassPair> list(Name name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return enumerate(name, (child, value) -> new NameClassPair(child, className(value)));
     }
 
     public NamingEnumeration<NameClassPair> list(String name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return list(new CompositeName(name));
     }
 
     public NamingEnumeration<Binding> listBindings(Name name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      Name components = components(name);
+      return enumerate(name, (child, value) -> {
+        Object object = value;
+        if (value instanceof Node) {
+          object = context(((Name) components.clone()).add(child));
+        } else if (value instanceof LazyBinding) {
+          object = ((LazyBinding) value).get(new CompositeName().add(child), this, environment);
+        }
+
+        return new Binding(child, className(value), object);
+      });
     }
 
     public NamingEnumeration<Binding> listBindings(String name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return listBindings(new CompositeName(name));
     }
 
     public void destroySubcontext(Name name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      Name components = nonEmpty(name);
+      Node[] parent = walk(components, components.size() - 1);
+      Object value = parent != null ? find(parent, last(components)) : null;
+      if (value == null) {
+        return;
+      }
+
+      if (!(value instanceof Node[])) {
+        throw new NotContextException("The name [" + name + "] is not a context");
+      }
+
+      if (!merge((Node[]) value).isEmpty()) {
+        throw new ContextNotEmptyException("The context [" + name + "] is not empty");
+      }
+
+      remove(components);
     }
 
     public void destroySubcontext(String name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      destroySubcontext(new CompositeName(name));
     }
 
     public Context createSubcontext(Name name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      Name components = nonEmpty(name);
+      Node[] parent = walk(components, components.size() - 1);
+      if ((parent != null && find(parent, last(components)) != null) ||
+          !putIfAbsent(top(components), last(components), new Node(roots.length > 1))) {
+        throw new NameAlreadyBoundException("Name already bound [" + name + "]");
+      }
+
+      return context(components);
     }
 
     public Context createSubcontext(String name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return createSubcontext(new CompositeName(name));
     }
 
+    /**
+     * This tree doesn't have links, so this is the same as {@link #lookup(Name)}.
+     */
     public Object lookupLink(Name name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return lookup(name);
     }
 
     public Object lookupLink(String name) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return lookup(name);
     }
 
     public NameParser getNameParser(Name name) throws NamingException {
-      return new NameParser() {
-        @Override
-        public Name parse(String name) throws NamingException {
-          return new CompositeName(name);
-        }
-      };
+      return PARSER;
     }
 
     public NameParser getNameParser(String name) throws NamingException {
-      return new NameParser() {
-        @Override
-        public Name parse(String name) throws NamingException {
-          return new CompositeName(name);
-        }
-      };
+      return PARSER;
     }
 
     public Name composeName(Name name, Name prefix) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return ((Name) prefix.clone()).addAll(name);
     }
 
     public String composeName(String name, String prefix) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return composeName(new CompositeName(name), new CompositeName(prefix)).toString();
     }
 
     public Object addToEnvironment(String propName, Object propVal) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return environment.put(propName, propVal);
     }
 
     public Object removeFromEnvironment(String propName) throws NamingException {
-      throw new NamingException("not implemented yet");
+      return environment.remove(propName);
     }
 
     public Hashtable<?, ?> getEnvironment() throws NamingException {
-      throw new NamingException("not implemented yet");
+      return new Hashtable<>(environment);
     }
 
+    /**
+     * Does nothing because the context doesn't hold any resources.
+     */
     public void close() throws NamingException {
-      throw new NamingException("not implemented yet");
     }
 
     public String getNameInNamespace() throws NamingException {
-      throw new NamingException("not implemented yet");
+      return prefix.toString();
+    }
+
+    private static String className(Object value) {
+      if (value instanceof Node) {
+        return MockContext.class.getName();
+      }
+
+      return value instanceof LazyBinding ? ((LazyBinding) value).getClassName() : value.getClass().getName();
+    }
+
+    /**
+     * Copies the name without its empty components, so <code>a//b/</code> is the same as <code>a/b</code>.
+     */
+    private static Name components(Name name) throws InvalidNameException {
+      Name result = new CompositeName();
+      for (int i = 0; i < name.size(); i++) {
+        String component = name.get(i);
+        if (!component.isEmpty()) {
+          result.add(component);
+        }
+      }
+
+      return result;
+    }
+
+    /**
+     * Finds the visible binding for the component in one level of each layer.
+     *
+     * @param nodes     The nodes, top layer first. A layer whose tree doesn't have the level has a null node.
+     * @param component The component.
+     * @return The bound object, a Node array for a subcontext or null if the component isn't bound.
+     */
+    private static Object find(Node[] nodes, String component) {
+      if (nodes.length == 1) {
+        Object value = nodes[0].bindings.get(component);
+        return value instanceof Node ? ((Node) value).single : (value == Node.REMOVED ? null : value);
+      }
+
+      Node[] children = null;
+      for (int i = 0; i < nodes.length; i++) {
+        Object value = nodes[i] != null ? nodes[i].bindings.get(component) : null;
+        if (value == null) {
+          continue;
+        }
+
+        if (!(value instanceof Node)) {
+          // A binding or a removal hides everything below it, but a subcontext above it hides it instead
+          return children != null || value == Node.REMOVED ? children : value;
+        }
+
+        if (children == null) {
+          children = new Node[nodes.length];
+        }
+
+        children[i] = (Node) value;
+        if (children[i].opaque) {
+          break;
+        }
+      }
+
+      return children;
+    }
+
+    private static String last(Name components) {
+      return components.get(components.size() - 1);
+    }
+
+    /**
+     * Merges one level of each layer into the sorted visible bindings. Each subcontext is represented by one of its
+     * Nodes.
+     */
+    private static Map<String, Object> merge(Node[] nodes) {
+      Map<String, Object> result = new TreeMap<>();
+      for (int i = nodes.length - 1; i >= 0; i--) {
+        if (nodes[i] == null) {
+          continue;
+        }
+
+        for (Map.Entry<String, Object> entry : nodes[i].bindings.entrySet()) {
+          if (entry.getValue() == Node.REMOVED) {
+            result.remove(entry.getKey());
+          } else {
+            result.put(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+
+      return result;
+    }
+
+    private static Name nonEmpty(Name name) throws NamingException {
+      Name components = components(name);
+      if (components.isEmpty()) {
+        throw new InvalidNameException("The name can't be empty");
+      }
+
+      return components;
+    }
+
+    private static boolean putIfAbsent(Node node, String component, Object value) {
+      Object existing = node.bindings.putIfAbsent(component, value);
+      return existing == null || (existing == Node.REMOVED && node.bindings.replace(component, Node.REMOVED, value));
+    }
+
+    /**
+     * References are resolved on their first lookup, so they are bound as lazy bindings. Everything else is bound as is.
+     */
+    private static Object wrap(Name name, Object obj) throws NamingException {
+      if (obj == null) {
+        throw new NamingException("Unable to bind null to [" + name + "] because the mock tree can't hold null values. " +
+            "Use unbind to remove a name.");
+      }
+
+      if (obj instanceof Reference) {
+        Reference reference = (Reference) obj;
+        return LazyBinding.shared(LazyBinding.creator(reference), reference.getClassName());
+      }
+
+      return obj;
+    }
+
+    private MockContext context(Name components) throws InvalidNameException {
+      return new MockContext(roots, ((Name) prefix.clone()).addAll(components), environment);
+    }
+
+    private <T> NamingEnumeration<T> enumerate(Name name, EntryFunction<T> function) throws NamingException {
+      Name components = components(name);
+      Node[] nodes = walk(components, components.size());
+      if (nodes == null) {
+        throw new NameNotFoundException("Nothing at name [" + name + "]");
+      }
+
+      // Enumerate a snapshot so that concurrent changes don't affect the enumeration
+      List<T> result = new ArrayList<>();
+      for (Map.Entry<String, Object> entry : merge(nodes).entrySet()) {
+        result.add(function.apply(entry.getKey(), entry.getValue()));
+      }
+
+      return new ListEnumeration<>(result);
+    }
+
+    /**
+     * @return The nodes for this context's level in each layer.
+     * @throws NameNotFoundException If the context has been destroyed.
+     */
+    private Node[] here() throws NamingException {
+      Node[] current = roots;
+      for (int i = 0; i < prefix.size(); i++) {
+        Object value = find(current, prefix.get(i));
+        if (!(value instanceof Node[])) {
+          throw new NameNotFoundException("The context [" + prefix + "] no longer exists");
+        }
+
+        current = (Node[]) value;
+      }
+
+      return current;
+    }
+
+    /**
+     * Removes the binding from the top layer, leaving a marker that hides it if there are layers below.
+     */
+    private void remove(Name components) throws NamingException {
+      if (roots.length == 1) {
+        walk(components, components.size() - 1)[0].bindings.remove(last(components));
+      } else {
+        top(components).bindings.put(last(components), Node.REMOVED);
+      }
+    }
+
+    /**
+     * Finds the top layer node that contains the last component of the name, creating the subcontexts that don't exist
+     * in the top layer.
+     *
+     * @param components The name, which isn't empty.
+     * @return The node.
+     * @throws NotContextException If a component is bound to something other than a subcontext in the top layer.
+     */
+    private Node top(Name components) throws NotContextException {
+      Node current = roots[0];
+      int size = prefix.size() + components.size() - 1;
+      for (int i = 0; i < size; i++) {
+        String component = i < prefix.size() ? prefix.get(i) : components.get(i - prefix.size());
+        Object value = current.bindings.compute(component, (key, existing) ->
+            existing == null || existing == Node.REMOVED ? new Node(existing != null) : existing);
+        if (!(value instanceof Node)) {
+          throw new NotContextException("The name [" + component + "] is not a context");
+        }
+
+        current = (Node) value;
+      }
+
+      return current;
+    }
+
+    /**
+     * Walks the first count components of the name through the visible subcontexts.
+     *
+     * @param components The name.
+     * @param count      The number of components to walk.
+     * @return The nodes for the level in each layer or null if a component isn't bound.
+     * @throws NotContextException If a component is bound to something other than a subcontext.
+     */
+    private Node[] walk(Name components, int count) throws NamingException {
+      Node[] current = here();
+      for (int i = 0; i < count; i++) {
+        Object value = find(current, components.get(i));
+        if (value == null) {
+          return null;
+        }
+
+        if (!(value instanceof Node[])) {
+          throw new NotContextException("The name [" + components.getPrefix(i + 1) + "] is not a context");
+        }
+
+        current = (Node[]) value;
+      }
+
+      return current;
+    }
+  }
+
+  /**
+   * One level of the tree in one layer. The values are either bound objects, Nodes for subcontexts or the
+   * {@link #REMOVED} marker.
+   */
+  static class Node {
+    static final Object REMOVED = new Object();
+
+    final ConcurrentHashMap<String, Object> bindings = new ConcurrentHashMap<>();
+
+    // True if the subcontext replaced a removed one, so it hides the subcontexts with the same name in lower layers
+    final boolean opaque;
+
+    // The view of this node when it is the only layer, which keeps lookups without scopes from allocating
+    final Node[] single = {this};
+
+    Node() {
+      this(false);
+    }
+
+    Node(boolean opaque) {
+      this.opaque = opaque;
+    }
+
+    static Node of(Map<String, Object> context) {
+      Node root = new Node();
+      MockContext rootContext = new MockContext(root.single, new CompositeName(), null);
+      for (Map.Entry<String, Object> entry : context.entrySet()) {
+        try {
+          rootContext.rebind(entry.getKey(), entry.getValue());
+        } catch (NamingException e) {
+          throw new IllegalArgumentException(e);
+        }
+      }
+
+      return root;
+    }
+  }
+
+  private interface EntryFunction<T> {
+    T apply(String name, Object value) throws NamingException;
+  }
+
+  private static class ListEnumeration<T> implements NamingEnumeration<T> {
+    private final Iterator<T> iterator;
+
+    private ListEnumeration(List<T> list) {
+      this.iterator = Collections.unmodifiableList(list).iterator();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean hasMore() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return iterator.next();
+    }
+
+    @Override
+    public T nextElement() {
+      if (!iterator.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return iterator.next();
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the name, superclass, interfaces and class level annotations from the bytes of a class file without defining
+ * the class. Only the constant pool and the class attributes are read; fields, methods and annotation values are
+ * skipped over.
+ *
+ * @author Brian Pontarelli
+ */
+class ClassFileReader {
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private final byte[] bytes;
+
+  private int position;
+
+  private ClassFileReader(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Reads a class file.
+   *
+   * @param bytes The bytes of the class file.
+   * @return The class or null if the bytes aren't a class file (such as a module-info or a truncated file).
+   */
+  static ClassInfo read(byte[] bytes) {
+    try {
+      return new ClassFileReader(bytes).read();
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static String className(String internalName) {
+    return internalName.replace('/', '.');
+  }
+
+  private ClassInfo read() {
+    if (u4() != MAGIC) {
+      return null;
+    }
+
+    position += 4; // Minor and major versions
+
+    // The constant pool. Only the positions of the UTF8 entries and the name indexes of the classes are kept
+    int count = u2();
+    int[] utf8 = new int[count];
+    int[] classes = new int[count];
+    for (int i = 1; i < count; i++) {
+      int tag = u1();
+      switch (tag) {
+        case 1: // Utf8
+          int length = u2();
+          utf8[i] = position;
+          position += length;
+          break;
+        case 7: // Class
+          classes[i] = u2();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          position += 2;
+          break;
+        case 15: // MethodHandle
+          position += 3;
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          position += 4;
+          break;
+        case 5: // Long
+        case 6: // Double
+          position += 8;
+          i++;
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid constant pool tag [" + tag + "]");
+      }
+    }
+
+    int access = u2();
+    if ((access & 0x8000) != 0) {
+      return null; // module-info
+    }
+
+    String name = className(utf8(utf8, classes[u2()]));
+    int superIndex = u2();
+    String superclass = superIndex == 0 ? null : className(utf8(utf8, classes[superIndex]));
+
+    int interfaceCount = u2();
+    List<String> interfaces = interfaceCount == 0 ? Collections.emptyList() : new ArrayList<>(interfaceCount);
+    for (int i = 0; i < interfaceCount; i++) {
+      interfaces.add(className(utf8(utf8, classes[u2()])));
+    }
+
+    skipMembers(); // Fields
+    skipMembers(); // Methods
+
+    List<String> annotations = Collections.emptyList();
+    int attributeCount = u2();
+    for (int i = 0; i < attributeCount; i++) {
+      String attribute = utf8(utf8, u2());
+      int length = u4();
+      int end = position + length;
+      if (attribute.equals("RuntimeVisibleAnnotations") || attribute.equals("RuntimeInvisibleAnnotations")) {
+        int annotationCount = u2();
+        if (annotations.isEmpty()) {
+          annotations = new ArrayList<>(annotationCount);
+        }
+
+        for (int j = 0; j < annotationCount; j++) {
+          String descriptor = utf8(utf8, u2());
+          annotations.add(className(descriptor.substring(1, descriptor.length() - 1)));
+          skipElementValuePairs();
+        }
+      }
+
+      position = end;
+    }
+
+    return new ClassInfo(name, superclass, interfaces, annotations, (access & 0x0200) != 0);
+  }
+
+  private void skipAnnotation() {
+    position += 2; // Type
+    skipElementValuePairs();
+  }
+
+  private void skipElementValue() {
+    int tag = u1();
+    switch (tag) {
+      case 'e': // Enum
+        position += 4;
+        break;
+      case '@':
+        skipAnnotation();
+        break;
+      case '[':
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+          skipElementValue();
+        }
+        break;
+      default: // Constants and classes
+        position += 2;
+    }
+  }
+
+  private void skipElementValuePairs() {
+    int count = u2();
+    for (int i = 0; i < count; i++) {
+      position += 2; // Name
+      skipElementValue();
+    }
+  }
+
+  private void skipMembers() {
+    int count = u2();
+    for (int i = 0; i < count; i++) {
+      position += 6; // Access, name and descriptor
+      int attributeCount = u2();
+      for (int j = 0; j < attributeCount; j++) {
+        position += 2; // Name
+        int length = u4();
+        position += length;
+      }
+    }
+  }
+
+  private int u1() {
+    return bytes[position++] & 0xFF;
+  }
+
+  private int u2() {
+    return (u1() << 8) | u1();
+  }
+
+  private int u4() {
+    return (u2() << 16) | u2();
+  }
+
+  /**
+   * Decodes a UTF8 constant. Class files use modified UTF-8, which only differs from UTF-8 for null characters and
+   * supplementary characters, neither of which show up in class names.
+   */
+  private String utf8(int[] utf8, int index) {
+    int start = utf8[index];
+    int length = ((bytes[start - 2] & 0xFF) << 8) | (bytes[start - 1] & 0xFF);
+    return new String(bytes, start, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The parts of a class file that the {@link ClassIndex} needs.
+   */
+  static class ClassInfo {
+    final List<String> annotations;
+
+    final boolean anInterface;
+
+    final List<String> interfaces;
+
+    final String name;
+
+    final String superclass;
+
+    ClassInfo(String name, String superclass, List<String> interfaces, List<String> annotations,
+              boolean anInterface) {
+      this.name = name;
+      this.superclass = superclass;
+      this.interfaces = interfaces;
+      this.annotations = annotations;
+      this.anInterface = anInterface;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.primeframework.mock.lang.ClassFileReader.ClassInfo;
+
+/**
+ * An index of the classes in a {@link ClassPath} that is built by reading the class files directly, without loading
+ * (or even defining) any classes. This makes finding the few dozen annotated classes in a large test classpath cheap,
+ * because the thousands of classes that aren't needed are never loaded.
+ * <p>
+ * The class files of each entry are read in parallel on the common fork-join pool. Only the class name, superclass,
+ * interfaces and class level annotations (both runtime and class retention) are read. When more than one entry has the
+ * same class, the first entry wins, just like a class loader. Class names use the binary name format of
+ * {@link Class#getName()}. Class files that are corrupt or can't be read are skipped, so one bad file doesn't hide the
+ * rest of its entry.
+ *
+ * @author Brian Pontarelli
+ */
+public class ClassIndex {
+  private final Map<String, List<String>> annotated = new HashMap<>();
+
+  private final Map<String, ClassInfo> classes = new HashMap<>();
+
+  private final Map<String, List<String>> implementations = new HashMap<>();
+
+  private final Map<String, List<String>> subclasses = new HashMap<>();
+
+  /**
+   * Scans the classpath.
+   *
+   * @param classPath The classpath.
+   * @throws UncheckedIOException If a directory entry can't be walked.
+   */
+  public ClassIndex(ClassPath classPath) {
+    List<List<ClassInfo>> scanned = classPath.getNames()
+                                             .parallelStream()
+                                             .map(ClassIndex::scan)
+                                             .collect(Collectors.toList());
+    for (List<ClassInfo> list : scanned) {
+      for (ClassInfo info : list) {
+        classes.putIfAbsent(info.name, info);
+      }
+    }
+
+    for (ClassInfo info : classes.values()) {
+      for (String annotation : info.annotations) {
+        annotated.computeIfAbsent(annotation, key -> new ArrayList<>()).add(info.name);
+      }
+
+      if (info.superclass != null) {
+        subclasses.computeIfAbsent(info.superclass, key -> new ArrayList<>()).add(info.name);
+      }
+
+      for (String anInterface : info.interfaces) {
+        implementations.computeIfAbsent(anInterface, key -> new ArrayList<>()).add(info.name);
+      }
+    }
+
+    annotated.values().forEach(Collections::sort);
+    implementations.values().forEach(Collections::sort);
+    subclasses.values().forEach(Collections::sort);
+  }
+
+  /**
+   * Finds the classes that extend the class, directly or indirectly, or for an interface the classes that implement it
+   * directly or indirectly (including through a superclass or a sub-interface). Only classes in the index can be
+   * followed, so a chain that goes through a class that isn't on the classpath stops there.
+   *
+   * @param type The name of the class or interface.
+   * @return The sorted class names.
+   */
+  public List<String> getAllSubtypes(String type) {
+    Set<String> result = new TreeSet<>();
+    Deque<String> pending = new ArrayDeque<>();
+    pending.add(type);
+    while (!pending.isEmpty()) {
+      String current = pending.poll();
+      for (String subtype : subtypes(current)) {
+        if (result.add(subtype)) {
+          pending.add(subtype);
+        }
+      }
+    }
+
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Finds the classes that are directly annotated with the annotation.
+   *
+   * @param annotation The name of the annotation type.
+   * @return The sorted class names.
+   */
+  public List<String> getAnnotatedWith(String annotation) {
+    return Collections.unmodifiableList(annotated.getOrDefault(annotation, Collections.emptyList()));
+  }
+
+  /**
+   * @return The names of all of the classes in the index.
+   */
+  public Set<String> getClassNames() {
+    return Collections.unmodifiableSet(classes.keySet());
+  }
+
+  /**
+   * Finds the classes that directly implement the interface, or interfaces that directly extend it.
+   *
+   * @param anInterface The name of the interface.
+   * @return The sorted class names.
+   */
+  public List<String> getImplementations(String anInterface) {
+    return Collections.unmodifiableList(implementations.getOrDefault(anInterface, Collections.emptyList()));
+  }
+
+  /**
+   * Finds the classes that directly extend the class.
+   *
+   * @param superclass The name of the superclass.
+   * @return The sorted class names.
+   */
+  public List<String> getSubclasses(String superclass) {
+    return Collections.unmodifiableList(subclasses.getOrDefault(superclass, Collections.emptyList()));
+  }
+
+  /**
+   * @param className The class name.
+   * @return The superclass of the class or null if the class isn't in the index or is <code>java.lang.Object</code>.
+   */
+  public String getSuperclass(String className) {
+    ClassInfo info = classes.get(className);
+    return info != null ? info.superclass : null;
+  }
+
+  /**
+   * @param className The class name.
+   * @return True if the index has the class and it is an interface (or an annotation type).
+   */
+  public boolean isInterface(String className) {
+    ClassInfo info = classes.get(className);
+    return info != null && info.anInterface;
+  }
+
+  private static List<ClassInfo> scan(String entry) {
+    File file = new File(entry);
+    List<ClassInfo> result = new ArrayList<>();
+    if (file.isDirectory()) {
+      try (Stream<Path> paths = Files.walk(file.toPath())) {
+        for (Path path : (Iterable<Path>) paths::iterator) {
+          if (isClassFile(path.toString()) && Files.isRegularFile(path)) {
+            try {
+              add(result, Files.readAllBytes(path));
+            } catch (IOException e) {
+              // Skip the class file, but keep the rest of the directory
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else if (file.isFile()) {
+      try (ZipFile zip = new ZipFile(file)) {
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry zipEntry = entries.nextElement();
+          // Skip the versioned classes of multi-release JARs
+          String name = zipEntry.getName();
+          if (!zipEntry.isDirectory() && isClassFile(name) && !name.startsWith("META-INF/")) {
+            try (InputStream is = zip.getInputStream(zipEntry)) {
+              add(result, readAll(is, (int) zipEntry.getSize()));
+            } catch (IOException e) {
+              // A corrupt entry (a bad CRC or compressed data) is skipped, but the rest of the JAR is still read
+            }
+          }
+        }
+      } catch (IOException e) {
+        // Not a JAR or ZIP file, so there aren't any classes
+      }
+    }
+
+    return result;
+  }
+
+  private static void add(List<ClassInfo> result, byte[] bytes) {
+    ClassInfo info = ClassFileReader.read(bytes);
+    if (info != null) {
+      result.add(info);
+    }
+  }
+
+  private static boolean isClassFile(String name) {
+    return name.endsWith(".class") && !name.endsWith("module-info.class");
+  }
+
+  private static byte[] readAll(InputStream is, int size) throws IOException {
+    byte[] bytes = new byte[size > 0 ? size : 8192];
+    int length = 0;
+    int read;
+    while ((read = is.read(bytes, length, bytes.length - length)) != -1) {
+      length += read;
+      if (length == bytes.length) {
+        int next = is.read();
+        if (next == -1) {
+          return bytes;
+        }
+
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        bytes[length++] = (byte) next;
+      }
+    }
+
+    return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+  }
+
+  private List<String> subtypes(String type) {
+    List<String> direct = new ArrayList<>(getSubclasses(type));
+    direct.addAll(getImplementations(type));
+    return direct;
+  }
+}
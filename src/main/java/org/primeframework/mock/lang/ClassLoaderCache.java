@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reference counted cache of the URLClassLoaders made from {@link ClassPath}s, so that tests that each need an
+ * isolated class loader for the same classpath share one loader (and the classes it has already loaded and the JIT has
+ * already compiled) instead of building a new one every time.
+ * <p>
+ * Loaders are keyed by the ordered classpath entries and the identity of the parent class loader. Each call to
+ * {@link #acquire(ClassPath, ClassLoader)} returns a {@link Lease} that must be closed when the caller is done with the
+ * loader. A loader that no one holds a lease for stays in the cache so the next caller can reuse it, but only the
+ * <code>maxIdle</code> most recently released idle loaders are kept. Older idle loaders are evicted and closed so that
+ * a long test run doesn't fill up metaspace. {@link #evictIdle()} closes all of the idle loaders right away and
+ * {@link #close()} closes every loader, including ones that are still leased.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Brian Pontarelli
+ */
+public class ClassLoaderCache implements AutoCloseable {
+  private static final ClassLoaderCache SHARED = new ClassLoaderCache(8);
+
+  // Access ordered, and release touches the entry, so the idle entries at the front are the least recently released
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final int maxIdle;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxIdle The maximum number of loaders to keep when no one holds a lease for them.
+   */
+  public ClassLoaderCache(int maxIdle) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("The maxIdle must be zero or more");
+    }
+
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * @return The cache shared by everything in the JVM, which keeps up to 8 idle loaders.
+   */
+  public static ClassLoaderCache getShared() {
+    return SHARED;
+  }
+
+  /**
+   * Leases a class loader for the classpath and parent, reusing the cached loader if there is one.
+   *
+   * @param classPath The classpath.
+   * @param parent    The parent class loader, which may be null.
+   * @return The lease, which must be closed when the loader is no longer needed.
+   * @throws IllegalStateException If an entry in the classpath can't be converted to a URL.
+   */
+  public synchronized Lease acquire(ClassPath classPath, ClassLoader parent) throws IllegalStateException {
+    Key key = new Key(classPath.getNames(), parent);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      entry = new Entry(key, classPath.toURLClassLoader(parent));
+      entries.put(key, entry);
+    }
+
+    entry.references++;
+    return new Lease(entry);
+  }
+
+  /**
+   * Closes every loader in the cache, including the ones that are still leased, and empties the cache. Closing the
+   * leases afterwards is harmless.
+   */
+  @Override
+  public synchronized void close() {
+    for (Entry entry : entries.values()) {
+      closeQuietly(entry.loader);
+    }
+
+    entries.clear();
+  }
+
+  /**
+   * Evicts and closes all of the loaders that no one holds a lease for.
+   *
+   * @return The number of loaders that were evicted.
+   */
+  public synchronized int evictIdle() {
+    return trim(0);
+  }
+
+  /**
+   * @return The number of loaders in the cache, leased or idle.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static void closeQuietly(URLClassLoader loader) {
+    try {
+      loader.close();
+    } catch (IOException e) {
+      // Closing only releases the open JAR files, so there is nothing else to do
+    }
+  }
+
+  private synchronized void release(Entry entry) {
+    entry.references--;
+    if (entry.references == 0 && entries.get(entry.key) == entry) {
+      trim(maxIdle);
+    }
+  }
+
+  private int trim(int keep) {
+    List<Entry> idle = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      if (entry.references == 0) {
+        idle.add(entry);
+      }
+    }
+
+    int evict = idle.size() - keep;
+    Iterator<Entry> iterator = idle.iterator();
+    for (int i = 0; i < evict; i++) {
+      Entry entry = iterator.next();
+      entries.remove(entry.key);
+      closeQuietly(entry.loader);
+    }
+
+    return Math.max(evict, 0);
+  }
+
+  /**
+   * A lease on a cached class loader. Closing the lease more than once only releases it once.
+   */
+  public class Lease implements AutoCloseable {
+    private final Entry entry;
+
+    private boolean closed;
+
+    private Lease(Entry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * Releases the lease. The loader stays cached for reuse until it is evicted.
+     */
+    @Override
+    public void close() {
+      synchronized (ClassLoaderCache.this) {
+        if (!closed) {
+          closed = true;
+          release(entry);
+        }
+      }
+    }
+
+    /**
+     * @return The class loader, which must not be closed directly.
+     */
+    public URLClassLoader getClassLoader() {
+      return entry.loader;
+    }
+  }
+
+  private static class Entry {
+    private final Key key;
+
+    private final URLClassLoader loader;
+
+    private int references;
+
+    private Entry(Key key, URLClassLoader loader) {
+      this.key = key;
+      this.loader = loader;
+    }
+  }
+
+  private static class Key {
+    private final List<String> names;
+
+    private final ClassLoader parent;
+
+    private Key(List<String> names, ClassLoader parent) {
+      this.names = new ArrayList<>(names);
+      this.parent = parent;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key key = (Key) o;
+      return parent == key.parent && names.equals(key.names);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * names.hashCode() + System.identityHashCode(parent);
+    }
+  }
+}
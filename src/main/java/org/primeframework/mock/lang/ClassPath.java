@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2011, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,19 +15,38 @@
  */
 package org.primeframework.mock.lang;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.util.Collections.list;
 
@@ -39,6 +58,10 @@ import static java.util.Collections.list;
 public class ClassPath {
   private List<String> names = new ArrayList<String>();
 
+  private volatile ClassPathIndex index;
+
+  private volatile URL[] urls;
+
   public ClassPath() {
   }
 
@@ -96,6 +119,8 @@ public class ClassPath {
    */
   public void addFile(File file) {
     names.add(file.getAbsolutePath());
+    index = null;
+    urls = null;
   }
 
   /**
@@ -105,6 +130,8 @@ public class ClassPath {
    */
   public void removeFile(File file) {
     names.remove(file.getAbsolutePath());
+    index = null;
+    urls = null;
   }
 
   /**
@@ -126,6 +153,8 @@ public class ClassPath {
    */
   public void addEntry(String entry) {
     names.add(entry);
+    index = null;
+    urls = null;
   }
 
   /**
@@ -135,6 +164,25 @@ public class ClassPath {
    */
   public void removeEntry(String entry) {
     names.remove(entry);
+    index = null;
+    urls = null;
+  }
+
+  /**
+   * Returns an index of the resources in the classpath. The index is built the first time this is called and is kept
+   * until the classpath changes.
+   *
+   * @return The index.
+   * @see ClassPathIndex
+   */
+  public ClassPathIndex getIndex() {
+    ClassPathIndex current = index;
+    if (current == null) {
+      current = new ClassPathIndex(this);
+      index = current;
+    }
+
+    return current;
   }
 
   /**
@@ -148,6 +196,8 @@ public class ClassPath {
    * Builds a URLClassLoader from the classpath. Each entry is first made into a URL. If this is successful, that URL is
    * added to the URLClassLoader's URL list. If not, a File is created and if that File exists, it is converted to a URL
    * and then added to the URLClassLoader.
+   * <p>
+   * This builds a new loader every time. Use a {@link ClassLoaderCache} to share loaders for the same classpath.
    *
    * @param parent The parent classloader of the URLClassLoader being created.
    * @return The URLClassLoader and never null.
@@ -155,39 +205,35 @@ public class ClassPath {
    *                               each entry in the classpath.
    */
   public URLClassLoader toURLClassLoader(ClassLoader parent) throws IllegalStateException {
-    List<URL> urls = new ArrayList<URL>();
-    for (String s : names) {
-      URL url;
-      try {
-        url = new URL(s);
-      } catch (MalformedURLException e) {
-        File f = new File(s);
-        if (f.exists()) {
-          try {
-            url = f.toURI().toURL();
-          } catch (MalformedURLException e1) {
-            throw new IllegalStateException("Cannot create URLClassLoader because classpath entry [" +
-              s + "] could not be converted to a URL from a File.");
-          }
-        } else {
-          throw new IllegalStateException("Cannot create URLClassLoader because classpath entry [" +
-            s + "] is not a URL or a File.");
-        }
-      }
-
-      urls.add(url);
-    }
-
+    URL[] urls = toURLs();
     URLClassLoader cl;
     if (parent == null) {
-      cl = new URLClassLoader(urls.toArray(new URL[urls.size()]));
+      cl = new URLClassLoader(urls);
     } else {
-      cl = new URLClassLoader(urls.toArray(new URL[urls.size()]), parent);
+      cl = new URLClassLoader(urls, parent);
     }
 
     return cl;
   }
 
+  /**
+   * Converts the entries to URLs. Entries that look like URLs (they have a scheme) are parsed as URLs and everything
+   * else is treated as a file, without relying on a MalformedURLException for the common case of a file path. The URLs
+   * are computed once and kept until the classpath changes.
+   *
+   * @return The URLs in classpath order.
+   * @throws IllegalStateException If an entry is not a URL or an existing file.
+   */
+  public URL[] toURLs() throws IllegalStateException {
+    URL[] current = urls;
+    if (current == null) {
+      current = convert();
+      urls = current;
+    }
+
+    return current.clone();
+  }
+
   /**
    * Converts the classpath to a platform compatible classpath String using the path separator character from the File
    * class.
@@ -208,13 +254,74 @@ public class ClassPath {
     return buf.toString();
   }
 
+  private URL[] convert() {
+    URL[] urls = new URL[names.size()];
+    for (int i = 0; i < urls.length; i++) {
+      String s = names.get(i);
+      URL url = null;
+      if (hasScheme(s)) {
+        try {
+          url = new URL(s);
+        } catch (MalformedURLException e) {
+          // Fall back to a file
+        }
+      }
+
+      if (url == null) {
+        File f = new File(s);
+        if (f.exists()) {
+          try {
+            url = f.toURI().toURL();
+          } catch (MalformedURLException e1) {
+            throw new IllegalStateException("Cannot create URLClassLoader because classpath entry [" +
+              s + "] could not be converted to a URL from a File.");
+          }
+        } else {
+          throw new IllegalStateException("Cannot create URLClassLoader because classpath entry [" +
+            s + "] is not a URL or a File.");
+        }
+      }
+
+      urls[i] = url;
+    }
+
+    return urls;
+  }
+
+  /**
+   * @return True if the entry starts with a URL scheme. Single letter schemes are Windows drive letters.
+   */
+  private static boolean hasScheme(String entry) {
+    int colon = entry.indexOf(':');
+    if (colon < 2) {
+      return false;
+    }
+
+    for (int i = 0; i < colon; i++) {
+      char c = entry.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+        return false;
+      }
+    }
+
+    return Character.isLetter(entry.charAt(0));
+  }
+
   /**
    * Simple class to assist in build ClassPath objects using the classpath of a ClassLoader.
    */
   public static class ClassPathBuilder {
+    private static final String CACHE_HEADER = "# prime-mock classpath ";
+
+    private final static Logger logger = LoggerFactory.getLogger(ClassPathBuilder.class);
+
+    private static final Map<String, CachedClassPath> memoryCache = new ConcurrentHashMap<>();
+
     private final ClassLoader classLoader;
     private final Set<String> excludes = new HashSet<String>();
     private final Set<Pattern> excludePatterns = new HashSet<Pattern>();
+    private File cacheFile;
+    private boolean parallel;
 
     public ClassPathBuilder(ClassLoader classLoader) {
       this.classLoader = classLoader;
@@ -243,6 +350,28 @@ public class ClassPath {
       excludePatterns.add(pattern);
     }
 
+    /**
+     * Sets a file that parallel builds (see {@link #setParallel(boolean)}) save their result to and load it from on
+     * the next run, as long as none of the entries have changed.
+     *
+     * @param cacheFile The cache file.
+     */
+    public void setCacheFile(File cacheFile) {
+      this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Turns on parallel builds. A parallel build cleans the entries on the common fork-join pool, follows the
+     * <code>Class-Path</code> attribute in the manifests of JAR entries (recursively), and removes duplicates. The
+     * result is cached in memory and in the cache file (if one is set), keyed on a fingerprint of the entries and their
+     * modification times, so building the same classpath again in the same JVM or on a re-run skips all of that work.
+     *
+     * @param parallel True for a parallel build.
+     */
+    public void setParallel(boolean parallel) {
+      this.parallel = parallel;
+    }
+
     /**
      * Builds the ClassPath.
      *
@@ -250,6 +379,13 @@ public class ClassPath {
      * @throws IOException If the classloader throws an exception.
      */
     public ClassPath build() throws IOException {
+      Object event = FlightRecorder.beginClassPathScan();
+      if (parallel) {
+        List<String> list = buildParallel();
+        FlightRecorder.endClassPathScan(event, list.size());
+        return new ClassPath(list);
+      }
+
       List<String> list = new ArrayList<String>();
       List<URL> urls = list(classLoader.getResources("META-INF"));
 
@@ -269,16 +405,76 @@ public class ClassPath {
         }
       }
 
+      FlightRecorder.endClassPathScan(event, list.size());
       return new ClassPath(list);
     }
 
+    private List<String> buildParallel() throws IOException {
+      List<String> urls = new ArrayList<>();
+      for (URL url : list(classLoader.getResources("META-INF"))) {
+        urls.add(url.toExternalForm());
+      }
+      for (URL url : list(classLoader.getResources(""))) {
+        urls.add(url.toExternalForm());
+      }
+
+      List<String> roots = urls.parallelStream()
+                               .map(this::cleanUnchecked)
+                               .filter(entry -> entry != null && !exclude(entry))
+                               .distinct()
+                               .collect(Collectors.toList());
+
+      String fingerprint = fingerprint(roots);
+      CachedClassPath cached = memoryCache.get(fingerprint);
+      if ((cached == null || !cached.isCurrent()) && cacheFile != null) {
+        cached = readCache(fingerprint);
+      }
+
+      if (cached != null && cached.isCurrent()) {
+        memoryCache.put(fingerprint, cached);
+        return cached.entries;
+      }
+
+      // Follow the manifest Class-Path attributes one level at a time, reading the manifests of each level in parallel
+      Set<String> entries = new LinkedHashSet<>(roots);
+      List<String> level = roots;
+      while (!level.isEmpty()) {
+        List<String> next = new ArrayList<>();
+        for (List<String> references : level.parallelStream().map(this::manifestClassPath).collect(Collectors.toList())) {
+          for (String reference : references) {
+            if (!exclude(reference) && entries.add(reference)) {
+              next.add(reference);
+            }
+          }
+        }
+
+        level = next;
+      }
+
+      CachedClassPath result = new CachedClassPath(new ArrayList<>(entries));
+      memoryCache.put(fingerprint, result);
+      if (cacheFile != null) {
+        try {
+          writeCache(fingerprint, result);
+        } catch (IOException e) {
+          // The cache only saves the next build some work, so the classpath is still good without it
+          logger.warn("Unable to write the classpath cache file [" + cacheFile.getAbsolutePath() + "]", e);
+        }
+      }
+
+      return result.entries;
+    }
+
     private String clean(String externalForm) throws UnsupportedEncodingException {
       // JBoss scheme that is not supported
       if (externalForm.contains("vfsmemory:")) {
         return null;
       }
 
-      externalForm = URLDecoder.decode(externalForm, "UTF-8");
+      // Most entries don't have anything to decode
+      if (externalForm.indexOf('%') >= 0 || externalForm.indexOf('+') >= 0) {
+        externalForm = URLDecoder.decode(externalForm, "UTF-8");
+      }
       if (externalForm.endsWith("META-INF")) {
         externalForm = externalForm.substring(0, externalForm.length() - 8);
       } else if (externalForm.endsWith("META-INF/")) { /* JBoss work-around */
@@ -311,6 +507,14 @@ public class ClassPath {
       return externalForm;
     }
 
+    private String cleanUnchecked(String externalForm) {
+      try {
+        return clean(externalForm);
+      } catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
     private boolean exclude(String externalForm) {
       for (String exclude : excludes) {
         if (externalForm.equals(exclude)) {
@@ -326,5 +530,178 @@ public class ClassPath {
 
       return false;
     }
+
+    private String fingerprint(List<String> entries) {
+      try {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+        // The excludes also apply to the manifest entries, so they are part of the fingerprint
+        List<String> excluded = new ArrayList<>(excludes);
+        excludePatterns.forEach(pattern -> excluded.add(pattern.pattern()));
+        Collections.sort(excluded);
+        for (String exclude : excluded) {
+          digest.update(exclude.getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+        }
+
+        for (String entry : entries) {
+          digest.update(entry.getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+          digest.update(Long.toString(new File(entry).lastModified()).getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) '\n');
+        }
+
+        StringBuilder build = new StringBuilder();
+        for (byte b : digest.digest()) {
+          build.append(String.format("%02x", b));
+        }
+
+        return build.toString();
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * Reads the Class-Path attribute of a JAR entry's manifest. The references are relative URLs resolved against the
+     * directory of the JAR.
+     *
+     * @param entry The entry.
+     * @return The entries the manifest references that exist, which is empty for directories and JARs without a
+     * Class-Path.
+     */
+    private List<String> manifestClassPath(String entry) {
+      File file = new File(entry);
+      if (!file.isFile()) {
+        return Collections.emptyList();
+      }
+
+      try (JarFile jar = new JarFile(file, false)) {
+        Manifest manifest = jar.getManifest();
+        String classPath = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) : null;
+        if (classPath == null || classPath.trim().isEmpty()) {
+          return Collections.emptyList();
+        }
+
+        URI base = file.getParentFile().toURI();
+        List<String> references = new ArrayList<>();
+        for (String reference : classPath.trim().split("\\s+")) {
+          try {
+            URI uri = base.resolve(reference);
+            if ("file".equals(uri.getScheme())) {
+              File referenced = new File(uri);
+              if (referenced.exists()) {
+                references.add(referenced.getPath());
+              }
+            }
+          } catch (IllegalArgumentException e) {
+            // Skip references that aren't valid URIs, just like the JDK does
+          }
+        }
+
+        return references;
+      } catch (IOException e) {
+        // Not a JAR, so there isn't a manifest
+        return Collections.emptyList();
+      }
+    }
+
+    /**
+     * Reads the cache file if it was written for the same fingerprint.
+     */
+    private CachedClassPath readCache(String fingerprint) {
+      if (!cacheFile.isFile()) {
+        return null;
+      }
+
+      try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+        if (!(CACHE_HEADER + fingerprint).equals(reader.readLine())) {
+          return null;
+        }
+
+        List<String> entries = new ArrayList<>();
+        List<Long> modified = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int tab = line.indexOf('\t');
+          modified.add(Long.parseLong(line.substring(0, tab)));
+          entries.add(line.substring(tab + 1));
+        }
+
+        long[] times = new long[modified.size()];
+        for (int i = 0; i < times.length; i++) {
+          times[i] = modified.get(i);
+        }
+
+        return new CachedClassPath(entries, times);
+      } catch (IOException | RuntimeException e) {
+        // A bad cache file is the same as a missing one
+        return null;
+      }
+    }
+
+    private void writeCache(String fingerprint, CachedClassPath cached) throws IOException {
+      StringBuilder build = new StringBuilder(CACHE_HEADER).append(fingerprint).append('\n');
+      for (int i = 0; i < cached.entries.size(); i++) {
+        build.append(cached.modified[i]).append('\t').append(cached.entries.get(i)).append('\n');
+      }
+
+      // Write to a temporary file and move it so that concurrent builds never read a partial cache file
+      Path file = cacheFile.toPath().toAbsolutePath();
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(temp, build.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+
+    /**
+     * Clears the in-memory cache of parallel builds.
+     */
+    static void clearMemoryCache() {
+      memoryCache.clear();
+    }
+
+    /**
+     * The entries of a parallel build along with their modification times when it was built.
+     */
+    private static class CachedClassPath {
+      private final List<String> entries;
+
+      private final long[] modified;
+
+      private CachedClassPath(List<String> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.modified = new long[entries.size()];
+        for (int i = 0; i < modified.length; i++) {
+          modified[i] = new File(entries.get(i)).lastModified();
+        }
+      }
+
+      private CachedClassPath(List<String> entries, long[] modified) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.modified = modified;
+      }
+
+      /**
+       * @return True if none of the entries, including the ones from the manifests, have changed.
+       */
+      private boolean isCurrent() {
+        for (int i = 0; i < modified.length; i++) {
+          if (new File(entries.get(i)).lastModified() != modified[i]) {
+            return false;
+          }
+        }
+
+        return true;
+      }
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the resources in a {@link ClassPath}, which answers questions like "which JAR contains
+ * META-INF/foo.tld" with a binary search instead of opening every entry.
+ * <p>
+ * The index is built by walking the directories and reading the central directories of the JARs, one entry per thread
+ * on the common fork-join pool. It is stored as two parallel arrays sorted by resource name (and then by classpath
+ * order), so it takes little more memory than the names themselves. Resource names use <code>/</code> separators and
+ * don't start with a <code>/</code>, just like {@link ClassLoader#getResource(String)}. Only files are indexed, not
+ * directories.
+ * <p>
+ * The index is a snapshot and is immutable. Entries that don't exist or can't be read are skipped.
+ *
+ * @author Brian Pontarelli
+ */
+public class ClassPathIndex {
+  private final List<String> entries;
+
+  private final String[] names;
+
+  private final int[] owners;
+
+  /**
+   * Builds the index.
+   *
+   * @param classPath The classpath to index.
+   * @throws UncheckedIOException If a directory can't be walked.
+   */
+  public ClassPathIndex(ClassPath classPath) {
+    this.entries = new ArrayList<>(classPath.getNames());
+
+    List<String[]> resources = IntStream.range(0, entries.size())
+                                        .parallel()
+                                        .mapToObj(i -> resources(entries.get(i)))
+                                        .collect(Collectors.toList());
+
+    int total = 0;
+    for (String[] list : resources) {
+      total += list.length;
+    }
+
+    // Each resource list is sorted, so stable sorting all of them by name keeps the classpath order for duplicates
+    Resource[] all = new Resource[total];
+    int index = 0;
+    for (int owner = 0; owner < resources.size(); owner++) {
+      for (String name : resources.get(owner)) {
+        all[index++] = new Resource(name, owner);
+      }
+    }
+
+    Arrays.parallelSort(all, (one, two) -> one.name.compareTo(two.name));
+
+    this.names = new String[total];
+    this.owners = new int[total];
+    for (int i = 0; i < total; i++) {
+      names[i] = all[i].name;
+      owners[i] = all[i].owner;
+    }
+  }
+
+  /**
+   * Finds the classpath entry that a class loader would load the resource from, which is the first one that has it.
+   *
+   * @param name The resource name, such as <code>META-INF/foo.tld</code>.
+   * @return The entry or null if no entry has the resource.
+   */
+  public String find(String name) {
+    int index = first(name);
+    return index < names.length && names[index].equals(name) ? entries.get(owners[index]) : null;
+  }
+
+  /**
+   * Finds all of the classpath entries that have the resource, in classpath order.
+   *
+   * @param name The resource name.
+   * @return The entries, which is empty if no entry has the resource.
+   */
+  public List<String> findAll(String name) {
+    List<String> result = new ArrayList<>();
+    for (int i = first(name); i < names.length && names[i].equals(name); i++) {
+      result.add(entries.get(owners[i]));
+    }
+
+    return result;
+  }
+
+  /**
+   * Lists the resources whose names start with the prefix, such as all of the resources in <code>META-INF/</code>.
+   *
+   * @param prefix The prefix.
+   * @return The resource names in sorted order without duplicates.
+   */
+  public List<String> list(String prefix) {
+    List<String> result = new ArrayList<>();
+    for (int i = first(prefix); i < names.length && names[i].startsWith(prefix); i++) {
+      if (result.isEmpty() || !result.get(result.size() - 1).equals(names[i])) {
+        result.add(names[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return The number of resources in the index, counting a resource once for each entry that has it.
+   */
+  public int size() {
+    return names.length;
+  }
+
+  private static String[] resources(String entry) {
+    File file = new File(entry);
+    String[] result;
+    if (file.isDirectory()) {
+      Path root = file.toPath();
+      try (Stream<Path> paths = Files.walk(root)) {
+        result = paths.filter(Files::isRegularFile)
+                      .map(path -> root.relativize(path).toString().replace(File.separatorChar, '/'))
+                      .toArray(String[]::new);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else if (file.isFile()) {
+      try (ZipFile zip = new ZipFile(file)) {
+        List<String> list = new ArrayList<>(zip.size());
+        Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+        while (zipEntries.hasMoreElements()) {
+          ZipEntry zipEntry = zipEntries.nextElement();
+          if (!zipEntry.isDirectory()) {
+            list.add(zipEntry.getName());
+          }
+        }
+
+        result = list.toArray(new String[0]);
+      } catch (IOException e) {
+        // Not a JAR or ZIP file, so it has no resources
+        return new String[0];
+      }
+    } else {
+      return new String[0];
+    }
+
+    Arrays.sort(result);
+    return result;
+  }
+
+  /**
+   * @return The index of the first name that is equal to or after the given name.
+   */
+  private int first(String name) {
+    int low = 0;
+    int high = names.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (names[middle].compareTo(name) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  private static class Resource {
+    private final String name;
+
+    private final int owner;
+
+    private Resource(String name, int owner) {
+      this.name = name;
+      this.owner = owner;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+/**
+ * Emits Java Flight Recorder events for the mocks so that mock activity (requests, bodies, sessions, resource loads
+ * and classpath scans) lines up with the application's own profiles in a recording. The events are in the
+ * <code>Prime Mock</code> category and are named <code>org.primeframework.mock.*</code>.
+ * <p>
+ * JFR is only used if the JVM has it (Java 8u262 and later). Otherwise, or when the events aren't enabled in the
+ * recording settings, every method here is a static flag check and an enabled check, and nothing is allocated.
+ * <p>
+ * Request events are emitted by {@link org.primeframework.mock.servlet.MockServletContext#service} (which is also what
+ * {@link org.primeframework.mock.servlet.MockContainer#service()} calls). A test that calls a servlet or filter
+ * directly with the container's request and response bypasses that, so no request event is emitted for it. Session
+ * events are emitted either way.
+ * <p>
+ * The <code>begin</code> methods return a handle (or null if the event is disabled) that must be passed to the
+ * matching <code>end</code> method.
+ *
+ * @author Brian Pontarelli
+ */
+public final class FlightRecorder {
+  /**
+   * True if the JVM has the JFR event API.
+   */
+  public static final boolean AVAILABLE = available();
+
+  private FlightRecorder() {
+  }
+
+  public static Object beginClassPathScan() {
+    return AVAILABLE ? FlightRecorderEvents.beginClassPathScan() : null;
+  }
+
+  public static Object beginRequest() {
+    return AVAILABLE ? FlightRecorderEvents.beginRequest() : null;
+  }
+
+  public static Object beginResourceLoad() {
+    return AVAILABLE ? FlightRecorderEvents.beginResourceLoad() : null;
+  }
+
+  /**
+   * @param handle  The handle from {@link #beginClassPathScan()}.
+   * @param entries The number of entries found.
+   */
+  public static void endClassPathScan(Object handle, int entries) {
+    if (handle != null) {
+      FlightRecorderEvents.endClassPathScan(handle, entries);
+    }
+  }
+
+  /**
+   * @param handle            The handle from {@link #beginRequest()}.
+   * @param method            The HTTP method.
+   * @param uri               The request URI.
+   * @param status            The response status.
+   * @param requestBodyBytes  The number of request body bytes the application read, or -1 if it isn't known.
+   * @param responseBodyBytes The number of response body bytes the application wrote, or -1 if it isn't known.
+   */
+  public static void endRequest(Object handle, String method, String uri, int status, long requestBodyBytes,
+                                long responseBodyBytes) {
+    if (handle != null) {
+      FlightRecorderEvents.endRequest(handle, method, uri, status, requestBodyBytes, responseBodyBytes);
+    }
+  }
+
+  /**
+   * @param handle The handle from {@link #beginResourceLoad()}.
+   * @param path   The path of the resource.
+   * @param found  True if the resource was found.
+   */
+  public static void endResourceLoad(Object handle, String path, boolean found) {
+    if (handle != null) {
+      FlightRecorderEvents.endResourceLoad(handle, path, found);
+    }
+  }
+
+  /**
+   * Records a session being created.
+   *
+   * @param id The session id.
+   */
+  public static void sessionCreated(String id) {
+    if (AVAILABLE) {
+      FlightRecorderEvents.session(id, "created");
+    }
+  }
+
+  /**
+   * Records a session being invalidated.
+   *
+   * @param id The session id.
+   */
+  public static void sessionInvalidated(String id) {
+    if (AVAILABLE) {
+      FlightRecorderEvents.session(id, "invalidated");
+    }
+  }
+
+  private static boolean available() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorder.class.getClassLoader());
+      FlightRecorderEvents.initialize();
+      return true;
+    } catch (Exception | LinkageError e) {
+      return false;
+    }
+  }
+}
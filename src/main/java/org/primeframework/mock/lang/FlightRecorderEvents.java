@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JFR events. This is the only class that uses the JFR API and it is only loaded by {@link FlightRecorder} after it
+ * checks that the API exists, so the mocks still run on JVMs without JFR.
+ * <p>
+ * Compiling this class does need the API though, so the project must be built with a JDK 8u262 or later toolchain.
+ * Building with a newer JDK and <code>--release 8</code> doesn't work, because the Java 8 signatures that ship with
+ * those JDKs don't include <code>jdk.jfr</code>.
+ *
+ * @author Brian Pontarelli
+ */
+final class FlightRecorderEvents {
+  private static EventType classPathScan;
+
+  private static EventType request;
+
+  private static EventType resourceLoad;
+
+  private static EventType session;
+
+  private FlightRecorderEvents() {
+  }
+
+  static Object beginClassPathScan() {
+    if (!classPathScan.isEnabled()) {
+      return null;
+    }
+
+    ClassPathScanEvent event = new ClassPathScanEvent();
+    event.begin();
+    return event;
+  }
+
+  static Object beginRequest() {
+    if (!request.isEnabled()) {
+      return null;
+    }
+
+    RequestEvent event = new RequestEvent();
+    event.begin();
+    return event;
+  }
+
+  static Object beginResourceLoad() {
+    if (!resourceLoad.isEnabled()) {
+      return null;
+    }
+
+    ResourceLoadEvent event = new ResourceLoadEvent();
+    event.begin();
+    return event;
+  }
+
+  static void endClassPathScan(Object handle, int entries) {
+    ClassPathScanEvent event = (ClassPathScanEvent) handle;
+    event.end();
+    if (event.shouldCommit()) {
+      event.entries = entries;
+      event.commit();
+    }
+  }
+
+  static void endRequest(Object handle, String method, String uri, int status, long requestBodyBytes,
+                         long responseBodyBytes) {
+    RequestEvent event = (RequestEvent) handle;
+    event.end();
+    if (event.shouldCommit()) {
+      event.method = method;
+      event.uri = uri;
+      event.status = status;
+      event.requestBodyBytes = requestBodyBytes;
+      event.responseBodyBytes = responseBodyBytes;
+      event.commit();
+    }
+  }
+
+  static void endResourceLoad(Object handle, String path, boolean found) {
+    ResourceLoadEvent event = (ResourceLoadEvent) handle;
+    event.end();
+    if (event.shouldCommit()) {
+      event.path = path;
+      event.found = found;
+      event.commit();
+    }
+  }
+
+  static void initialize() {
+    classPathScan = EventType.getEventType(ClassPathScanEvent.class);
+    request = EventType.getEventType(RequestEvent.class);
+    resourceLoad = EventType.getEventType(ResourceLoadEvent.class);
+    session = EventType.getEventType(SessionEvent.class);
+  }
+
+  static void session(String id, String action) {
+    if (session.isEnabled()) {
+      SessionEvent event = new SessionEvent();
+      event.id = id;
+      event.action = action;
+      event.commit();
+    }
+  }
+
+  @Name("org.primeframework.mock.ClassPathScan")
+  @Label("Class Path Scan")
+  @Category("Prime Mock")
+  @Description("A ClassPathBuilder building a ClassPath from a ClassLoader")
+  static class ClassPathScanEvent extends Event {
+    @Label("Entries")
+    int entries;
+  }
+
+  @Name("org.primeframework.mock.Request")
+  @Label("Request")
+  @Category("Prime Mock")
+  @Description("A request serviced by the MockServletContext")
+  static class RequestEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Request Body Read")
+    @DataAmount
+    long requestBodyBytes;
+
+    @Label("Response Body Written")
+    @DataAmount
+    long responseBodyBytes;
+
+    @Label("Status")
+    int status;
+
+    @Label("URI")
+    String uri;
+  }
+
+  @Name("org.primeframework.mock.ResourceLoad")
+  @Label("Resource Load")
+  @Category("Prime Mock")
+  @Description("A resource looked up using MockServletContext.getResource")
+  static class ResourceLoadEvent extends Event {
+    @Label("Found")
+    boolean found;
+
+    @Label("Path")
+    String path;
+  }
+
+  @Name("org.primeframework.mock.Session")
+  @Label("Session")
+  @Category("Prime Mock")
+  @Description("A mock session being created or invalidated")
+  @StackTrace(false)
+  static class SessionEvent extends Event {
+    @Label("Action")
+    String action;
+
+    @Label("Session Id")
+    String id;
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * A servlet input stream for a <code>Transfer-Encoding: chunked</code> body. The body is pulled from an iterator one
+ * chunk at a time as it is read, so it never has to be in memory all at once and can be as large (or as slow) as the
+ * producer wants. The length of the body is unknown until the iterator is exhausted.
+ * <p>
+ * A recordable stream keeps a copy of every chunk it pulls so that {@link ExchangeWriter} can record the de-chunked
+ * body after the application has read it. That copy is the whole body, so streams for very large bodies shouldn't be
+ * recordable.
+ *
+ * @author Brian Pontarelli
+ */
+public class ChunkedInputStream extends ServletInputStream {
+  private final Iterator<ByteBuffer> chunks;
+
+  private final Recording recording;
+
+  private long bytesRead;
+
+  private ByteBuffer current;
+
+  public ChunkedInputStream(Iterator<ByteBuffer> chunks) {
+    this(chunks, false);
+  }
+
+  /**
+   * @param chunks     The chunks of the body.
+   * @param recordable Whether to keep a copy of the body so it can be recorded.
+   */
+  public ChunkedInputStream(Iterator<ByteBuffer> chunks, boolean recordable) {
+    this.chunks = chunks;
+    this.recording = recordable ? new Recording() : null;
+  }
+
+  /**
+   * @return The bytes in the current chunk. This never blocks on the producer.
+   */
+  @Override
+  public int available() {
+    return current == null ? 0 : current.remaining();
+  }
+
+  /**
+   * @return The number of bytes read so far.
+   */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * @return True if the stream keeps a copy of the body so it can be recorded.
+   */
+  public boolean isRecordable() {
+    return recording != null;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return !next();
+  }
+
+  @Override
+  public boolean isReady() {
+    return true;
+  }
+
+  @Override
+  public int read() {
+    if (!next()) {
+      return -1;
+    }
+
+    bytesRead++;
+    return current.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!next()) {
+      return -1;
+    }
+
+    int count = Math.min(len, current.remaining());
+    current.get(b, off, count);
+    bytesRead += count;
+    return count;
+  }
+
+  @Override
+  public void setReadListener(ReadListener readListener) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public long skip(long n) {
+    long skipped = 0;
+    while (skipped < n && next()) {
+      int count = (int) Math.min(n - skipped, current.remaining());
+      current.position(current.position() + count);
+      skipped += count;
+    }
+
+    bytesRead += skipped;
+    return skipped;
+  }
+
+  /**
+   * Pulls the rest of the chunks without consuming them and returns the whole de-chunked body, including the part the
+   * application has already read.
+   *
+   * @return The body.
+   * @throws IllegalStateException If the stream isn't recordable.
+   */
+  byte[] bytes() {
+    if (recording == null) {
+      throw new IllegalStateException("The chunked body isn't recordable. Create the ChunkedInputStream with " +
+          "recordable set to true.");
+    }
+
+    int position = current != null ? current.position() : recording.size();
+    while (chunks.hasNext()) {
+      recording.write(chunks.next().duplicate());
+    }
+
+    current = recording.view(position);
+    return recording.toByteArray();
+  }
+
+  /**
+   * Moves to the next non-empty chunk if the current one is used up.
+   *
+   * @return False at the end of the body.
+   */
+  private boolean next() {
+    while (current == null || !current.hasRemaining()) {
+      if (!chunks.hasNext()) {
+        return false;
+      }
+
+      // Don't change the producer's buffer
+      current = chunks.next().duplicate();
+      if (recording != null) {
+        int start = recording.size();
+        recording.write(current);
+        current = recording.view(start);
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * The copy of the body. The current chunk is read from a view of this buffer, so pulling the rest of the chunks to
+   * record them doesn't lose the ones the application hasn't read yet.
+   */
+  private static class Recording extends ByteArrayOutputStream {
+    private ByteBuffer view(int start) {
+      return ByteBuffer.wrap(buf, start, count - start);
+    }
+
+    private void write(ByteBuffer chunk) {
+      if (chunk.hasArray()) {
+        write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+      } else {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        write(bytes, 0, bytes.length);
+      }
+    }
+  }
+}
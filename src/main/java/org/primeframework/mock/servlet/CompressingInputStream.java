@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A servlet input stream that compresses a plain body as it is read. Only a block of the plain body and the compressed
+ * bytes it produced are buffered at a time, so very large bodies can be compressed without holding them in memory.
+ * <p>
+ * The stream counts the plain and compressed bytes and the time spent in the codec so tests can report the
+ * compression ratio and cost.
+ * <p>
+ * A recordable stream keeps all of the compressed bytes instead of only the current block, so that
+ * {@link ExchangeWriter} can record the encoded body after the application has read it.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompressingInputStream extends ServletInputStream {
+  private final byte[] block = new byte[8192];
+
+  private final Buffer compressed = new Buffer();
+
+  private final OutputStream encoder;
+
+  private final InputStream plain;
+
+  private final boolean recordable;
+
+  private long compressedBytes;
+
+  private boolean finished;
+
+  private long nanos;
+
+  private long plainBytes;
+
+  private int position;
+
+  /**
+   * @param plain           The plain body.
+   * @param contentEncoding The content coding, such as gzip.
+   * @throws IOException If the encoder can't be created.
+   */
+  public CompressingInputStream(InputStream plain, String contentEncoding) throws IOException {
+    this(plain, contentEncoding, false);
+  }
+
+  /**
+   * @param plain           The plain body.
+   * @param contentEncoding The content coding, such as gzip.
+   * @param recordable      Whether to keep the compressed body so it can be recorded.
+   * @throws IOException If the encoder can't be created.
+   */
+  public CompressingInputStream(InputStream plain, String contentEncoding, boolean recordable) throws IOException {
+    this.plain = plain;
+    this.recordable = recordable;
+    long start = System.nanoTime();
+    this.encoder = ContentCodec.encoder(contentEncoding, compressed);
+    this.nanos = System.nanoTime() - start;
+    this.compressedBytes = compressed.size(); // The gzip header
+  }
+
+  @Override
+  public int available() {
+    return compressed.size() - position;
+  }
+
+  /**
+   * @return The number of compressed bytes produced so far.
+   */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  /**
+   * @return The compression ratio so far (plain bytes divided by compressed bytes).
+   */
+  public double getCompressionRatio() {
+    return compressedBytes == 0 ? 0 : (double) plainBytes / compressedBytes;
+  }
+
+  /**
+   * @return The nanoseconds spent compressing so far.
+   */
+  public long getEncodeNanos() {
+    return nanos;
+  }
+
+  /**
+   * @return The number of plain bytes compressed so far.
+   */
+  public long getPlainBytes() {
+    return plainBytes;
+  }
+
+  /**
+   * @return True if the stream keeps the compressed body so it can be recorded.
+   */
+  public boolean isRecordable() {
+    return recordable;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return finished && position == compressed.size();
+  }
+
+  @Override
+  public boolean isReady() {
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+
+    return compressed.bytes()[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!fill()) {
+      return -1;
+    }
+
+    int count = Math.min(len, compressed.size() - position);
+    System.arraycopy(compressed.bytes(), position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public void setReadListener(ReadListener readListener) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Compresses the rest of the plain body without consuming it and returns the whole compressed body, including the
+   * part the application has already read.
+   *
+   * @return The compressed body.
+   * @throws IOException           If the plain body can't be read.
+   * @throws IllegalStateException If the stream isn't recordable.
+   */
+  byte[] bytes() throws IOException {
+    if (!recordable) {
+      throw new IllegalStateException("The compressed body isn't recordable. Create the CompressingInputStream with " +
+          "recordable set to true.");
+    }
+
+    while (!finished) {
+      compress();
+    }
+
+    return compressed.toByteArray();
+  }
+
+  /**
+   * Compresses the next block of the plain body, or finishes the compressed body at the end of the plain body.
+   */
+  private void compress() throws IOException {
+    int size = compressed.size();
+    int read = plain.read(block);
+    long start = System.nanoTime();
+    if (read < 0) {
+      encoder.close();
+      plain.close();
+      finished = true;
+    } else {
+      encoder.write(block, 0, read);
+      plainBytes += read;
+    }
+
+    nanos += System.nanoTime() - start;
+    compressedBytes += compressed.size() - size;
+  }
+
+  /**
+   * Compresses blocks of the plain body until there are compressed bytes to read or the body is finished.
+   *
+   * @return False at the end of the compressed body.
+   */
+  private boolean fill() throws IOException {
+    while (position == compressed.size()) {
+      if (finished) {
+        return false;
+      }
+
+      // A recordable stream keeps the whole compressed body
+      if (!recordable) {
+        compressed.reset();
+        position = 0;
+      }
+
+      compress();
+    }
+
+    return true;
+  }
+
+  private static class Buffer extends ByteArrayOutputStream {
+    private byte[] bytes() {
+      return buf;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The HTTP content codings the mocks can encode and decode. These are the codings built into the JDK: <code>gzip</code>
+ * (and <code>x-gzip</code>), <code>deflate</code> (which is the zlib format) and <code>identity</code>. Other codings,
+ * such as <code>br</code>, throw an {@link IllegalArgumentException}.
+ *
+ * @author Brian Pontarelli
+ */
+public final class ContentCodec {
+  private ContentCodec() {
+  }
+
+  /**
+   * Wraps the stream so that it decodes the content as it is read.
+   *
+   * @param contentEncoding The value of a Content-Encoding header. Null means identity.
+   * @param inputStream     The encoded content.
+   * @return The decoding stream.
+   * @throws IOException If the content is not in the coding's format.
+   */
+  public static InputStream decoder(String contentEncoding, InputStream inputStream) throws IOException {
+    switch (normalize(contentEncoding)) {
+      case "gzip":
+        return new GZIPInputStream(inputStream, 8192);
+      case "deflate":
+        return new InflaterInputStream(inputStream);
+      default:
+        return inputStream;
+    }
+  }
+
+  /**
+   * Wraps the stream so that it encodes the content as it is written. Closing the returned stream finishes the coding.
+   *
+   * @param contentEncoding The value of a Content-Encoding header. Null means identity.
+   * @param outputStream    The stream for the encoded content.
+   * @return The encoding stream.
+   * @throws IOException If the stream throws.
+   */
+  public static OutputStream encoder(String contentEncoding, OutputStream outputStream) throws IOException {
+    switch (normalize(contentEncoding)) {
+      case "gzip":
+        return new GZIPOutputStream(outputStream, 8192);
+      case "deflate":
+        return new DeflaterOutputStream(outputStream);
+      default:
+        return outputStream;
+    }
+  }
+
+  /**
+   * @param contentEncoding The value of a Content-Encoding header.
+   * @return True if the coding is supported.
+   */
+  public static boolean isSupported(String contentEncoding) {
+    try {
+      normalize(contentEncoding);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static String normalize(String contentEncoding) {
+    if (contentEncoding == null) {
+      return "identity";
+    }
+
+    String coding = contentEncoding.trim().toLowerCase();
+    switch (coding) {
+      case "":
+      case "identity":
+        return "identity";
+      case "gzip":
+      case "x-gzip":
+        return "gzip";
+      case "deflate":
+        return "deflate";
+      default:
+        throw new IllegalArgumentException("The content coding [" + contentEncoding + "] is not supported. Only gzip, deflate and identity are built into the JDK.");
+    }
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A map that reads from a shared, immutable map until it is first changed, at which point it copies the shared map and
+ * works on its own copy from then on. Creating one is O(1), which is what makes request templates cheap.
+ * <p>
+ * When the values are lists (such as headers and parameters), the lists handed out before the copy are views that
+ * trigger the copy when they are changed. This means the common <code>map.get(name).add(value)</code> and
+ * <code>computeIfAbsent(name, ...).add(value)</code> patterns never touch the shared lists.
+ * <p>
+ * This class is not thread safe. Wrap it with {@link Collections#synchronizedMap(Map)} if needed.
+ *
+ * @author Brian Pontarelli
+ */
+class CopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+  private final UnaryOperator<V> copier;
+
+  private final Map<K, V> shared;
+
+  private Map<K, V> own;
+
+  /**
+   * @param shared The shared map, which must never change.
+   * @param copier Copies a value from the shared map when this map makes its own copy. For list values this must
+   *               return a mutable list; for immutable values it can return the value.
+   */
+  CopyOnWriteMap(Map<K, V> shared, UnaryOperator<V> copier) {
+    this.shared = shared;
+    this.copier = copier;
+  }
+
+  @Override
+  public void clear() {
+    own = new LinkedHashMap<>();
+  }
+
+  @Override
+  public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+    return copy().compute(key, remappingFunction);
+  }
+
+  @Override
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    return copy().computeIfAbsent(key, mappingFunction);
+  }
+
+  @Override
+  public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+    return copy().computeIfPresent(key, remappingFunction);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return current().containsKey(key);
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    if (own != null) {
+      return own.entrySet();
+    }
+
+    return new SharedEntrySet();
+  }
+
+  @Override
+  public V get(Object key) {
+    if (own != null) {
+      return own.get(key);
+    }
+
+    V value = shared.get(key);
+    return value == null ? null : view(key, value);
+  }
+
+  /**
+   * @return True if this map has copied the shared map.
+   */
+  public boolean isCopied() {
+    return own != null;
+  }
+
+  @Override
+  public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+    return copy().merge(key, value, remappingFunction);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return copy().put(key, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    copy().putAll(m);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    return copy().putIfAbsent(key, value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return copy().remove(key);
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+    copy().replaceAll(function);
+  }
+
+  @Override
+  public int size() {
+    return current().size();
+  }
+
+  private Map<K, V> copy() {
+    if (own == null) {
+      Map<K, V> copy = new LinkedHashMap<>((int) (shared.size() / 0.75f) + 1);
+      shared.forEach((key, value) -> copy.put(key, copier.apply(value)));
+      own = copy;
+    }
+
+    return own;
+  }
+
+  private Map<K, V> current() {
+    return own != null ? own : shared;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V view(Object key, V value) {
+    if (value instanceof List) {
+      return (V) new ListView(key);
+    }
+
+    return value;
+  }
+
+  /**
+   * A list value that reads through to whichever map is current and makes the map copy itself before a change.
+   */
+  private class ListView extends AbstractList<Object> {
+    private final Object key;
+
+    private ListView(Object key) {
+      this.key = key;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+      writable().add(index, element);
+      modCount++;
+    }
+
+    @Override
+    public void clear() {
+      writable().clear();
+      modCount++;
+    }
+
+    @Override
+    public Object get(int index) {
+      return readable().get(index);
+    }
+
+    @Override
+    public Object remove(int index) {
+      modCount++;
+      return writable().remove(index);
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+      return writable().set(index, element);
+    }
+
+    @Override
+    public int size() {
+      return readable().size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> readable() {
+      List<Object> list = (List<Object>) current().get(key);
+      return list == null ? Collections.emptyList() : list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> writable() {
+      List<Object> list = (List<Object>) copy().get(key);
+      if (list == null) {
+        throw new IllegalStateException("The value for [" + key + "] was removed from the map");
+      }
+
+      return list;
+    }
+  }
+
+  /**
+   * An entry of the shared map. Setting its value makes the map copy itself and puts the value in the copy.
+   */
+  private class SharedEntry extends SimpleEntry<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private SharedEntry(K key, V value) {
+      super(key, value);
+    }
+
+    @Override
+    public V setValue(V value) {
+      super.setValue(value);
+      return copy().put(getKey(), value);
+    }
+  }
+
+  /**
+   * The entries of the shared map. Removing through the iterator or setting the value of an entry makes the map copy
+   * itself first; the iteration continues over the shared map, which doesn't change.
+   */
+  private class SharedEntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      Iterator<Entry<K, V>> iterator = shared.entrySet().iterator();
+      return new Iterator<Entry<K, V>>() {
+        private K last;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Entry<K, V> next() {
+          Entry<K, V> entry = iterator.next();
+          last = entry.getKey();
+          return new SharedEntry(last, view(last, entry.getValue()));
+        }
+
+        @Override
+        public void remove() {
+          copy().remove(last);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return shared.size();
+    }
+  }
+}
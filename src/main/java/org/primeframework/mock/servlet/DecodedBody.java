@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * A decoded view of a captured response body. Nothing is decoded until the view is read. {@link #getInputStream()}
+ * decodes as the stream is read and the other methods decode the whole body once and keep the result.
+ * <p>
+ * The view records the time spent decoding and the compression ratio, which is how much larger the decoded body is
+ * than the encoded body.
+ *
+ * @author Brian Pontarelli
+ */
+public class DecodedBody {
+  protected final String contentEncoding;
+
+  protected final byte[] encoded;
+
+  protected final int length;
+
+  private byte[] decoded;
+
+  private long nanos;
+
+  /**
+   * @param contentEncoding The content coding of the body.
+   * @param encoded         The encoded bytes. These are not copied.
+   * @param length          The number of encoded bytes.
+   */
+  public DecodedBody(String contentEncoding, byte[] encoded, int length) {
+    if (!ContentCodec.isSupported(contentEncoding)) {
+      throw new IllegalArgumentException("The content coding [" + contentEncoding + "] is not supported");
+    }
+
+    this.contentEncoding = contentEncoding;
+    this.encoded = encoded;
+    this.length = length;
+  }
+
+  /**
+   * @return The compression ratio, which is the decoded length divided by the encoded length. This decodes the body.
+   */
+  public double getCompressionRatio() {
+    return length == 0 ? 0 : (double) toByteArray().length / length;
+  }
+
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  /**
+   * @return The nanoseconds spent decoding the body by {@link #toByteArray()}, or 0 if it hasn't been decoded.
+   */
+  public long getDecodeNanos() {
+    return nanos;
+  }
+
+  public int getEncodedLength() {
+    return length;
+  }
+
+  /**
+   * @return A stream that decodes the body as it is read.
+   * @throws IOException If the body isn't in the format of the content coding.
+   */
+  public InputStream getInputStream() throws IOException {
+    if (decoded != null) {
+      return new ByteArrayInputStream(decoded);
+    }
+
+    return ContentCodec.decoder(contentEncoding, new ByteArrayInputStream(encoded, 0, length));
+  }
+
+  /**
+   * @return The decoded body.
+   * @throws UncheckedIOException If the body isn't in the format of the content coding.
+   */
+  public synchronized byte[] toByteArray() {
+    if (decoded == null) {
+      long start = System.nanoTime();
+      try (InputStream is = ContentCodec.decoder(contentEncoding, new ByteArrayInputStream(encoded, 0, length))) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(32, length * 4));
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = is.read(buf)) != -1) {
+          baos.write(buf, 0, read);
+        }
+
+        decoded = baos.toByteArray();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      nanos = System.nanoTime() - start;
+    }
+
+    return decoded;
+  }
+
+  /**
+   * @param charset The charset of the decoded body.
+   * @return The decoded body as a String.
+   */
+  public String toString(Charset charset) {
+    return new String(toByteArray(), charset);
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a file written by {@link ExchangeWriter}. The file is memory mapped (in regions of at most 1GB that always
+ * start at a record boundary) and indexed once, so records can be read in any order and from any thread without
+ * copying the file onto the heap.
+ * <p>
+ * The corpus can also replay every request against fresh containers in parallel and compare each response to the
+ * recorded one.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExchangeCorpus implements Closeable {
+  private static final long MAX_REGION = 1L << 30;
+
+  protected final FileChannel channel;
+
+  protected final int[] positions;
+
+  protected final int[] regionIndexes;
+
+  protected final List<MappedByteBuffer> regions = new ArrayList<>();
+
+  public ExchangeCorpus(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+
+    long size = channel.size();
+    if (size < 4) {
+      throw new IOException("The file [" + file + "] is not an exchange corpus");
+    }
+
+    int count = 0;
+    int[] positions = new int[1024];
+    int[] regionIndexes = new int[1024];
+    long regionStart = 4;
+    MappedByteBuffer region = map(regionStart, size);
+    if (channel.map(FileChannel.MapMode.READ_ONLY, 0, 4).getInt() != ExchangeRecord.MAGIC) {
+      throw new IOException("The file [" + file + "] is not an exchange corpus");
+    }
+
+    while (regionStart + region.position() < size) {
+      if (region.remaining() < 4 || region.remaining() - 4 < region.getInt(region.position())) {
+        // The record crosses the end of this region, so start a new region at the record
+        if (region.limit() == size - regionStart) {
+          throw new IOException("The file [" + file + "] is truncated");
+        } else if (region.position() == 0) {
+          throw new IOException("The file [" + file + "] contains a record larger than 1GB");
+        }
+
+        regionStart += region.position();
+        region = map(regionStart, size);
+        continue;
+      }
+
+      int length = region.getInt();
+      if (count == positions.length) {
+        positions = Arrays.copyOf(positions, count * 2);
+        regionIndexes = Arrays.copyOf(regionIndexes, count * 2);
+      }
+
+      positions[count] = region.position();
+      regionIndexes[count] = regions.size() - 1;
+      count++;
+      region.position(region.position() + length);
+    }
+
+    this.positions = Arrays.copyOf(positions, count);
+    this.regionIndexes = Arrays.copyOf(regionIndexes, count);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Decodes the record at the given index. This is thread safe.
+   *
+   * @param index The index.
+   * @return The record.
+   */
+  public ExchangeRecord get(int index) {
+    ByteBuffer buffer = regions.get(regionIndexes[index]).duplicate();
+    buffer.position(positions[index]);
+    return new ExchangeRecord(buffer);
+  }
+
+  /**
+   * Replays every record. Each record is built into a request in a new {@link MockContainer}, the replayer handles it
+   * and the response is compared to the recorded response.
+   *
+   * @param replayer       Handles each request.
+   * @param parallelism    The number of threads to replay with.
+   * @param ignoredHeaders The names of response headers that are not compared.
+   * @return The report.
+   * @throws InterruptedException If the replay is interrupted.
+   */
+  public ReplayReport replay(Replayer replayer, int parallelism, String... ignoredHeaders) throws InterruptedException {
+    long[] durations = new long[positions.length];
+    List<Mismatch> mismatches = Collections.synchronizedList(new ArrayList<>());
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    long start = System.nanoTime();
+    try {
+      pool.submit(() -> IntStream.range(0, positions.length).parallel().forEach(i -> {
+        ExchangeRecord record = get(i);
+        MockContainer container = new MockContainer();
+        record.toRequest(container);
+
+        long requestStart = System.nanoTime();
+        String difference;
+        try {
+          replayer.replay(container);
+          difference = record.compare(container.getResponse(), ignoredHeaders);
+        } catch (Exception e) {
+          difference = "Replay threw " + e;
+        }
+
+        durations[i] = System.nanoTime() - requestStart;
+        if (difference != null) {
+          mismatches.add(new Mismatch(i, record, difference));
+        }
+      })).get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    mismatches.sort((one, two) -> Integer.compare(one.index, two.index));
+    return new ReplayReport(durations, mismatches, System.nanoTime() - start);
+  }
+
+  /**
+   * @return The number of records.
+   */
+  public int size() {
+    return positions.length;
+  }
+
+  private MappedByteBuffer map(long start, long size) throws IOException {
+    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_REGION, size - start));
+    regions.add(region);
+    return region;
+  }
+
+  /**
+   * Handles a replayed request. The request is the container's current request.
+   */
+  @FunctionalInterface
+  public interface Replayer {
+    void replay(MockContainer container) throws Exception;
+  }
+
+  /**
+   * A replayed response that was different than the recorded response.
+   */
+  public static class Mismatch {
+    public final String difference;
+
+    public final int index;
+
+    public final ExchangeRecord record;
+
+    public Mismatch(int index, ExchangeRecord record, String difference) {
+      this.index = index;
+      this.record = record;
+      this.difference = difference;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + index + "] " + record.method + " " + record.uri + ": " + difference;
+    }
+  }
+
+  /**
+   * The result of a replay.
+   */
+  public static class ReplayReport {
+    public final long[] durations;
+
+    public final List<Mismatch> mismatches;
+
+    public final long totalNanos;
+
+    public ReplayReport(long[] durations, List<Mismatch> mismatches, long totalNanos) {
+      this.durations = durations;
+      this.mismatches = mismatches;
+      this.totalNanos = totalNanos;
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100.
+     * @return The replay duration of a single request in nanoseconds at the given percentile.
+     */
+    public long percentile(double percentile) {
+      if (durations.length == 0) {
+        return 0;
+      }
+
+      long[] sorted = durations.clone();
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public boolean passed() {
+      return mismatches.isEmpty();
+    }
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.Cookie;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.primeframework.mock.servlet.MockHttpServletRequest.Method;
+
+/**
+ * A single request and response pair read from an {@link ExchangeCorpus}. The bodies are read-only views of the
+ * memory mapped corpus, so they are never copied onto the heap unless a request is built from the record.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExchangeRecord {
+  public static final int DIGEST_LENGTH = 32;
+
+  public static final int MAGIC = 0x504D5831; // PMX1
+
+  public final List<Cookie> cookies = new ArrayList<>();
+
+  public final long durationNanos;
+
+  public final Map<String, List<String>> headers;
+
+  public final String method;
+
+  public final Map<String, List<String>> parameters;
+
+  public final String protocol;
+
+  public final ByteBuffer requestBody;
+
+  public final byte[] responseBodyDigest = new byte[DIGEST_LENGTH];
+
+  public final long responseBodyLength;
+
+  public final Map<String, List<String>> responseHeaders;
+
+  public final int responseStatus;
+
+  public final String scheme;
+
+  public final String serverName;
+
+  public final int serverPort;
+
+  public final String uri;
+
+  /**
+   * Decodes a record. The buffer must be positioned at the start of the record (after the length) and is left at the
+   * end of the record.
+   *
+   * @param buffer The buffer.
+   */
+  public ExchangeRecord(ByteBuffer buffer) {
+    durationNanos = buffer.getLong();
+    method = readString(buffer);
+    scheme = readString(buffer);
+    serverName = readString(buffer);
+    serverPort = readVarInt(buffer);
+    uri = readString(buffer);
+    protocol = readString(buffer);
+    headers = readMultiMap(buffer);
+    parameters = readMultiMap(buffer);
+
+    int count = readVarInt(buffer);
+    for (int i = 0; i < count; i++) {
+      Cookie cookie = new Cookie(readString(buffer), readString(buffer));
+      String domain = readString(buffer);
+      if (domain != null) {
+        cookie.setDomain(domain);
+      }
+      cookie.setPath(readString(buffer));
+      cookies.add(cookie);
+    }
+
+    int length = readVarInt(buffer);
+    ByteBuffer body = buffer.slice();
+    body.limit(length);
+    requestBody = body.asReadOnlyBuffer();
+    buffer.position(buffer.position() + length);
+
+    responseStatus = readVarInt(buffer);
+    responseHeaders = readMultiMap(buffer);
+    responseBodyLength = buffer.getLong();
+    buffer.get(responseBodyDigest);
+  }
+
+  private static Map<String, List<String>> readMultiMap(ByteBuffer buffer) {
+    int count = readVarInt(buffer);
+    Map<String, List<String>> map = new LinkedHashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      String name = readString(buffer);
+      int valueCount = readVarInt(buffer);
+      List<String> values = new ArrayList<>(valueCount);
+      for (int j = 0; j < valueCount; j++) {
+        values.add(readString(buffer));
+      }
+
+      map.put(name, values);
+    }
+
+    return map;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = readVarInt(buffer) - 1;
+    if (length < 0) {
+      return null;
+    }
+
+    String value;
+    if (buffer.hasArray()) {
+      value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.duplicate().get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  private static int readVarInt(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+
+    throw new IllegalStateException("Invalid exchange record. A variable length integer was too long.");
+  }
+
+  /**
+   * Determines if the response matches the recorded response. The status, the body length and digest, and the headers
+   * (except any that are ignored) must all be equal.
+   *
+   * @param response       The response to compare.
+   * @param ignoredHeaders The names of response headers that are not compared, such as Date.
+   * @return Null if the response matches or a description of the first difference.
+   */
+  public String compare(MockHttpServletResponse response, String... ignoredHeaders) {
+    if (response.getStatus() != responseStatus) {
+      return "Status was [" + response.getStatus() + "] but [" + responseStatus + "] was recorded";
+    }
+
+    byte[] body = response.getStream().toByteArray();
+    if (body.length != responseBodyLength) {
+      return "Body length was [" + body.length + "] but [" + responseBodyLength + "] was recorded";
+    }
+
+    if (!Arrays.equals(ExchangeWriter.sha256().digest(body), responseBodyDigest)) {
+      return "Body digest does not match the recorded digest";
+    }
+
+    Map<String, List<String>> actual = new LinkedHashMap<>(response.getHeaders());
+    Map<String, List<String>> expected = new LinkedHashMap<>(responseHeaders);
+    for (String ignored : ignoredHeaders) {
+      actual.remove(ignored);
+      expected.remove(ignored);
+    }
+
+    if (!actual.equals(expected)) {
+      return "Headers were " + actual + " but " + expected + " were recorded";
+    }
+
+    return null;
+  }
+
+  /**
+   * Builds a new request in the container from this record. The recorded cookies are added to the container's user
+   * agent.
+   *
+   * @param container The container.
+   * @return The request.
+   */
+  public MockHttpServletRequest toRequest(MockContainer container) {
+    MockHttpServletRequest request = container.newServletRequest(uri);
+    request.headers.clear();
+    request.scheme = scheme;
+    request.serverName = serverName;
+    request.serverPort = serverPort;
+    request.protocol = protocol;
+    request.method = Method.GET;
+    boolean known = false;
+    for (Method value : Method.values()) {
+      if (value.name().equals(method)) {
+        request.method = value;
+        known = true;
+        break;
+      }
+    }
+
+    if (!known) {
+      request.setOverrideMethod(method);
+    }
+
+    headers.forEach((name, values) -> {
+      request.headers.put(name, new ArrayList<>(values));
+      if (name.equalsIgnoreCase("Content-Type") && !values.isEmpty()) {
+        request.contentType = values.get(0);
+      }
+    });
+
+    parameters.forEach((name, values) -> request.parameters.put(name, new ArrayList<>(values)));
+    for (Cookie cookie : cookies) {
+      container.getUserAgent().addCookie(request, (Cookie) cookie.clone());
+    }
+
+    if (requestBody.remaining() > 0) {
+      byte[] body = new byte[requestBody.remaining()];
+      requestBody.duplicate().get(body);
+      request.setInputStream(new MockServletInputStream(body));
+
+      // The recorded parameters already include the ones from a form body
+      request.parametersDecoded = request.isFormPost();
+    }
+
+    return request;
+  }
+}
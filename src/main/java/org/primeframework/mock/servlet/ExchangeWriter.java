@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes request and response pairs (exchanges) to a stream in the compact binary format that {@link ExchangeCorpus}
+ * reads. The stream starts with {@link ExchangeRecord#MAGIC} and then each exchange is a 4 byte length followed by the
+ * record. Inside a record, counts and lengths are variable length integers and strings are UTF-8.
+ * <p>
+ * The request is stored completely (including the body) so it can be replayed. The response is stored as the status,
+ * the headers, the body length and the SHA-256 digest of the body, which is enough to compare a replay against it.
+ * <p>
+ * The record buffer is reused for every exchange. Writes are synchronized so a single writer can be shared by tests
+ * that run in parallel.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExchangeWriter implements Closeable {
+  private final MessageDigest digest;
+
+  private final OutputStream outputStream;
+
+  private byte[] buffer = new byte[8192];
+
+  private int length;
+
+  public ExchangeWriter(OutputStream outputStream) throws IOException {
+    this.outputStream = new BufferedOutputStream(outputStream, 64 * 1024);
+    this.digest = sha256();
+    writeInt(ExchangeRecord.MAGIC);
+    this.outputStream.write(buffer, 0, 4);
+    length = 0;
+  }
+
+  public ExchangeWriter(Path file) throws IOException {
+    this(Files.newOutputStream(file));
+  }
+
+  static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    outputStream.close();
+  }
+
+  public synchronized void flush() throws IOException {
+    outputStream.flush();
+  }
+
+  /**
+   * Writes the exchange. The request body is taken from the request's InputStream (or its files) without consuming it.
+   *
+   * @param request       The request.
+   * @param response      The response.
+   * @param durationNanos How long it took to handle the request.
+   * @throws IOException If the stream throws.
+   */
+  public void write(MockHttpServletRequest request, MockHttpServletResponse response, long durationNanos)
+      throws IOException {
+    write(request, requestBody(request), response, durationNanos);
+  }
+
+  /**
+   * Writes the exchange using the given request body.
+   *
+   * @param request       The request.
+   * @param requestBody   The body of the request.
+   * @param response      The response.
+   * @param durationNanos How long it took to handle the request.
+   * @throws IOException If the stream throws.
+   */
+  public synchronized void write(MockHttpServletRequest request, byte[] requestBody, MockHttpServletResponse response,
+                                 long durationNanos) throws IOException {
+    length = 0;
+    writeLong(durationNanos);
+    writeString(request.getMethod());
+    writeString(request.getScheme());
+    writeString(request.getServerName());
+    writeVarInt(request.getServerPort());
+    writeString(request.getRequestURI());
+    writeString(request.getProtocol());
+    synchronized (request.headers) {
+      writeMultiMap(request.headers);
+    }
+
+    // A form body the application never decoded is decoded here, since the replayed request won't decode it again
+    if (request.isFormPost() && request.inputStream != null && !request.parametersDecoded) {
+      Map<String, List<String>> parameters = new LinkedHashMap<>();
+      request.getParameters().forEach((name, values) -> parameters.put(name, new ArrayList<>(values)));
+      FormURLEncoding.decode(requestBody, 0, requestBody.length, request.charset(), parameters);
+      writeMultiMap(parameters);
+    } else {
+      writeMultiMap(request.getParameters());
+    }
+
+    List<Cookie> cookies = request.getCookiesList();
+    writeVarInt(cookies.size());
+    for (Cookie cookie : cookies) {
+      writeString(cookie.getName());
+      writeString(cookie.getValue());
+      writeString(cookie.getDomain());
+      writeString(cookie.getPath());
+    }
+
+    writeVarInt(requestBody.length);
+    writeBytes(requestBody, 0, requestBody.length);
+
+    byte[] responseBody = response.getStream().toByteArray();
+    writeVarInt(response.getStatus());
+    writeMultiMap(response.getHeaders());
+    writeLong(responseBody.length);
+    writeBytes(digest.digest(responseBody), 0, ExchangeRecord.DIGEST_LENGTH);
+
+    int recordLength = length;
+    writeInt(recordLength);
+    outputStream.write(buffer, recordLength, 4);
+    outputStream.write(buffer, 0, recordLength);
+  }
+
+  /**
+   * Gets the whole request body, including a form or multipart body that is built from the parameters and files.
+   * Chunked bodies are recorded de-chunked and compressed bodies are recorded encoded, which is what the recorded
+   * headers describe.
+   *
+   * @throws IOException If the body is a kind of stream that can't be read again, which would otherwise be recorded
+   *                     as an empty body.
+   */
+  private byte[] requestBody(MockHttpServletRequest request) throws IOException {
+    ServletInputStream inputStream = request.inputStream;
+    if (inputStream == null && !request.files.isEmpty()) {
+      inputStream = request.newMultipartBody();
+    } else if (inputStream == null && request.isFormPost()) {
+      return request.formBody();
+    }
+
+    if (inputStream == null) {
+      return new byte[0];
+    } else if (inputStream instanceof MockServletInputStream) {
+      return ((MockServletInputStream) inputStream).bytes();
+    } else if (inputStream instanceof MultipartInputStream) {
+      return ((MultipartInputStream) inputStream).bytes();
+    } else if (inputStream instanceof ChunkedInputStream && ((ChunkedInputStream) inputStream).isRecordable()) {
+      return ((ChunkedInputStream) inputStream).bytes();
+    } else if (inputStream instanceof CompressingInputStream && ((CompressingInputStream) inputStream).isRecordable()) {
+      return ((CompressingInputStream) inputStream).bytes();
+    }
+
+    throw new IOException("Unable to record the request body because it is a [" + inputStream.getClass().getName() +
+        "], which can't be read again");
+  }
+
+  private void ensure(int count) {
+    if (length + count > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+    }
+  }
+
+  private void writeBytes(byte[] bytes, int offset, int count) {
+    ensure(count);
+    System.arraycopy(bytes, offset, buffer, length, count);
+    length += count;
+  }
+
+  private void writeInt(int value) {
+    ensure(4);
+    buffer[length++] = (byte) (value >>> 24);
+    buffer[length++] = (byte) (value >>> 16);
+    buffer[length++] = (byte) (value >>> 8);
+    buffer[length++] = (byte) value;
+  }
+
+  private void writeLong(long value) {
+    writeInt((int) (value >>> 32));
+    writeInt((int) value);
+  }
+
+  private void writeMultiMap(Map<String, ? extends Collection<String>> map) {
+    List<Map.Entry<String, ? extends Collection<String>>> entries = new ArrayList<>(map.entrySet());
+    writeVarInt(entries.size());
+    for (Map.Entry<String, ? extends Collection<String>> entry : entries) {
+      writeString(entry.getKey());
+      Collection<String> values = entry.getValue();
+      writeVarInt(values.size());
+      for (String value : values) {
+        writeString(value);
+      }
+    }
+  }
+
+  /**
+   * Writes a nullable String as the length plus one (zero means null) and then the UTF-8 bytes.
+   */
+  private void writeString(String value) {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(bytes.length + 1);
+    writeBytes(bytes, 0, bytes.length);
+  }
+
+  private void writeVarInt(int value) {
+    ensure(5);
+    while ((value & ~0x7F) != 0) {
+      buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+
+    buffer[length++] = (byte) value;
+  }
+}
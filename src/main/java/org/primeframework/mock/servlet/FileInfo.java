@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2011, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,27 +16,138 @@
 package org.primeframework.mock.servlet;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyMap;
 
 /**
  * This class provides file info for multipart requests.
+ * <p>
+ * The contents of the file can come from a {@link File}, a {@link Path} (on any file system), a {@link ByteBuffer} in
+ * memory or a generator. Generated contents ({@link #random} and {@link #repeating}) are computed as they are read, so
+ * tests can upload files of any size without writing anything to disk. A {@link #mixed} file info nests several files
+ * in one part.
  *
  * @author Brian Pontarelli
  */
 public class FileInfo {
+  /**
+   * The file or null if the contents don't come from a java.io.File.
+   */
   public final File file;
+
   public final String name;
+
   public final String contentType;
 
+  /**
+   * The file name that is sent in the Content-Disposition header or null for {@link #mixed} parts.
+   */
+  public final String fileName;
+
+  protected final Source source;
+
   public FileInfo(File file, String name, String contentType) {
-    this.file = file;
+    this(name, file.getName(), contentType, file, new FileSource(file));
+  }
+
+  /**
+   * Creates a file info whose contents are read from the path when the body is built.
+   *
+   * @param path        The path.
+   * @param name        The name of the form field.
+   * @param contentType The content type.
+   */
+  public FileInfo(Path path, String name, String contentType) {
+    this(name, path.getFileName().toString(), contentType, null, new PathSource(path));
+  }
+
+  /**
+   * Creates a file info whose contents are the remaining bytes of the buffer. The bytes aren't copied, so the buffer's
+   * contents must not change until the body is built, but its position and limit can.
+   *
+   * @param data        The contents.
+   * @param name        The name of the form field.
+   * @param fileName    The file name.
+   * @param contentType The content type.
+   */
+  public FileInfo(ByteBuffer data, String name, String fileName, String contentType) {
+    this(name, fileName, contentType, null, new BufferSource(data.slice()));
+  }
+
+  protected FileInfo(String name, String fileName, String contentType, File file, Source source) {
     this.name = name;
+    this.fileName = fileName;
     this.contentType = contentType;
+    this.file = file;
+    this.source = source;
+  }
+
+  /**
+   * Creates a file info that sends several files as one <code>multipart/mixed</code> part, the way older clients send
+   * multiple files for a single form field (RFC 2388). The nested body has its own random boundary and is generated as
+   * it is read, just like the outer body. {@link MultipartParser} turns the nested parts back into parts named after
+   * the form field, like a container would.
+   *
+   * @param name  The name of the form field.
+   * @param files The files. Only their file names, content types and contents are used.
+   * @return The file info.
+   */
+  public static FileInfo mixed(String name, List<FileInfo> files) {
+    String boundary = MultipartLayout.randomBoundary();
+    MultipartLayout layout = new MultipartLayout(boundary, emptyMap(), emptyMap());
+    return new FileInfo(name, null, "multipart/mixed; boundary=" + boundary, null,
+        new MixedSource(layout, new ArrayList<>(files)));
+  }
+
+  /**
+   * Creates a file info whose contents are pseudo-random bytes. The same size and seed always produce the same bytes,
+   * and any range of the bytes can be computed without computing the ones before it.
+   *
+   * @param name        The name of the form field.
+   * @param fileName    The file name.
+   * @param contentType The content type.
+   * @param size        The number of bytes.
+   * @param seed        The seed.
+   * @return The file info.
+   */
+  public static FileInfo random(String name, String fileName, String contentType, long size, long seed) {
+    return new FileInfo(name, fileName, contentType, null, new RandomSource(size, seed));
+  }
+
+  /**
+   * Creates a file info whose contents are a pattern repeated until the size is reached.
+   *
+   * @param name        The name of the form field.
+   * @param fileName    The file name.
+   * @param contentType The content type.
+   * @param size        The number of bytes.
+   * @param pattern     The pattern, which must not be empty.
+   * @return The file info.
+   */
+  public static FileInfo repeating(String name, String fileName, String contentType, long size, byte[] pattern) {
+    if (pattern.length == 0) {
+      throw new IllegalArgumentException("The pattern can't be empty");
+    }
+
+    return new FileInfo(name, fileName, contentType, null, new RepeatingSource(size, pattern.clone()));
   }
 
   public File getFile() {
     return file;
   }
 
+  public String getFileName() {
+    return fileName;
+  }
+
   public String getName() {
     return name;
   }
@@ -45,7 +156,272 @@ public class FileInfo {
     return contentType;
   }
 
+  /**
+   * Deletes the file or path that the contents came from.
+   *
+   * @return True if the file was deleted, and false if it couldn't be deleted or the contents aren't from a file.
+   */
   public boolean deleteTempFile() {
-    return file.delete();
+    if (file != null) {
+      return file.delete();
+    }
+
+    if (source instanceof PathSource) {
+      try {
+        return Files.deleteIfExists(((PathSource) source).path);
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return The number of bytes in the file.
+   * @throws IOException If the size of a path can't be read.
+   */
+  public long length() throws IOException {
+    return source.length();
+  }
+
+  /**
+   * Opens a stream of the contents. Generated contents are computed as the stream is read.
+   *
+   * @return The stream, which the caller must close.
+   * @throws IOException If the file can't be opened.
+   */
+  public InputStream openStream() throws IOException {
+    return source.open();
+  }
+
+  /**
+   * Where the contents of a file come from.
+   */
+  protected interface Source {
+    long length() throws IOException;
+
+    InputStream open() throws IOException;
+  }
+
+  private static class BufferSource implements Source {
+    private final ByteBuffer data;
+
+    private BufferSource(ByteBuffer data) {
+      this.data = data;
+    }
+
+    @Override
+    public long length() {
+      return data.remaining();
+    }
+
+    @Override
+    public InputStream open() {
+      ByteBuffer buffer = data.duplicate();
+      return new InputStream() {
+        @Override
+        public int available() {
+          return buffer.remaining();
+        }
+
+        @Override
+        public int read() {
+          return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+          if (!buffer.hasRemaining()) {
+            return len == 0 ? 0 : -1;
+          }
+
+          int count = Math.min(len, buffer.remaining());
+          buffer.get(b, off, count);
+          return count;
+        }
+      };
+    }
+  }
+
+  private static class FileSource implements Source {
+    private final File file;
+
+    private FileSource(File file) {
+      this.file = file;
+    }
+
+    @Override
+    public long length() {
+      return file.length();
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+      return new FileInputStream(file);
+    }
+  }
+
+  /**
+   * Generated contents, which are computed for any range on demand.
+   */
+  private abstract static class GeneratedSource implements Source {
+    protected final long size;
+
+    private GeneratedSource(long size) {
+      if (size < 0) {
+        throw new IllegalArgumentException("The size can't be negative");
+      }
+
+      this.size = size;
+    }
+
+    @Override
+    public long length() {
+      return size;
+    }
+
+    @Override
+    public InputStream open() {
+      return new InputStream() {
+        private long position;
+
+        @Override
+        public int available() {
+          return (int) Math.min(size - position, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int read() {
+          if (position == size) {
+            return -1;
+          }
+
+          byte[] one = new byte[1];
+          generate(position++, one, 0, 1);
+          return one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+          if (position == size) {
+            return len == 0 ? 0 : -1;
+          }
+
+          int count = (int) Math.min(len, size - position);
+          generate(position, b, off, count);
+          position += count;
+          return count;
+        }
+
+        @Override
+        public long skip(long n) {
+          long count = Math.max(0, Math.min(n, size - position));
+          position += count;
+          return count;
+        }
+      };
+    }
+
+    /**
+     * Computes the bytes starting at the offset into the contents.
+     */
+    protected abstract void generate(long offset, byte[] bytes, int position, int length);
+  }
+
+  private static class MixedSource implements Source {
+    private final List<FileInfo> files;
+
+    private final MultipartLayout layout;
+
+    private MixedSource(MultipartLayout layout, List<FileInfo> files) {
+      this.layout = layout;
+      this.files = files;
+    }
+
+    @Override
+    public long length() throws IOException {
+      return layout.openMixed(files).length();
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+      return layout.openMixed(files);
+    }
+  }
+
+  private static class PathSource implements Source {
+    private final Path path;
+
+    private PathSource(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    public long length() throws IOException {
+      return Files.size(path);
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+      return Files.newInputStream(path);
+    }
+  }
+
+  /**
+   * Pseudo-random bytes from the SplitMix64 function of the seed and the index of each 8 byte block, so any block can
+   * be computed directly.
+   */
+  private static class RandomSource extends GeneratedSource {
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    private RandomSource(long size, long seed) {
+      super(size);
+      this.seed = seed;
+    }
+
+    @Override
+    protected void generate(long offset, byte[] bytes, int position, int length) {
+      long block = offset >>> 3;
+      int shift = (int) (offset & 7) * 8;
+      long value = mix(seed + (block + 1) * GAMMA);
+      for (int i = 0; i < length; i++) {
+        bytes[position + i] = (byte) (value >>> shift);
+        shift += 8;
+        if (shift == 64) {
+          shift = 0;
+          value = mix(seed + (++block + 1) * GAMMA);
+        }
+      }
+    }
+
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+  }
+
+  private static class RepeatingSource extends GeneratedSource {
+    private final byte[] pattern;
+
+    private RepeatingSource(long size, byte[] pattern) {
+      super(size);
+      this.pattern = pattern;
+    }
+
+    @Override
+    protected void generate(long offset, byte[] bytes, int position, int length) {
+      int index = (int) (offset % pattern.length);
+      int done = 0;
+      while (done < length) {
+        int count = Math.min(pattern.length - index, length - done);
+        System.arraycopy(pattern, index, bytes, position + done, count);
+        done += count;
+        index = 0;
+      }
+    }
   }
 }
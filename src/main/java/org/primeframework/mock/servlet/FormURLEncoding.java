@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes <code>application/x-www-form-urlencoded</code> data (query strings and form bodies) in a single
+ * pass over the bytes. Percent escapes and '+' are decoded into a scratch buffer and each name and value becomes a
+ * String directly, without splitting or regular expressions. Encoding writes straight into one growing byte array and
+ * only calls the charset for Strings that aren't ASCII.
+ *
+ * @author Brian Pontarelli
+ */
+public final class FormURLEncoding {
+  private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+  private FormURLEncoding() {
+  }
+
+  /**
+   * Decodes the bytes and adds each name and value to the parameters. Values for the same name are appended in order.
+   *
+   * @param bytes      The encoded bytes.
+   * @param start      The index of the first byte.
+   * @param end        The index after the last byte.
+   * @param charset    The charset of the decoded bytes.
+   * @param parameters The parameters to add to.
+   */
+  public static void decode(byte[] bytes, int start, int end, Charset charset, Map<String, List<String>> parameters) {
+    byte[] scratch = new byte[Math.max(0, end - start)];
+    String name = null;
+    int length = 0;
+    for (int i = start; i <= end; i++) {
+      byte b = i < end ? bytes[i] : (byte) '&';
+      if (b == '&') {
+        if (name != null || length > 0) {
+          String value = new String(scratch, 0, length, charset);
+          if (name == null) {
+            name = value;
+            value = "";
+          }
+
+          parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+
+        name = null;
+        length = 0;
+      } else if (b == '=' && name == null) {
+        name = new String(scratch, 0, length, charset);
+        length = 0;
+      } else if (b == '+') {
+        scratch[length++] = ' ';
+      } else if (b == '%' && i + 2 < end && hex(bytes[i + 1]) >= 0 && hex(bytes[i + 2]) >= 0) {
+        scratch[length++] = (byte) ((hex(bytes[i + 1]) << 4) + hex(bytes[i + 2]));
+        i += 2;
+      } else {
+        scratch[length++] = b;
+      }
+    }
+  }
+
+  /**
+   * Decodes the String (which must only contain ASCII characters, such as a query string) and adds each name and value
+   * to the parameters.
+   *
+   * @param encoded    The encoded String.
+   * @param charset    The charset of the decoded bytes.
+   * @param parameters The parameters to add to.
+   */
+  public static void decode(String encoded, Charset charset, Map<String, List<String>> parameters) {
+    byte[] bytes = new byte[encoded.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) encoded.charAt(i);
+    }
+
+    decode(bytes, 0, bytes.length, charset, parameters);
+  }
+
+  /**
+   * Encodes the parameters the same way as {@link java.net.URLEncoder}. Letters, digits and <code>.-*_</code> are left
+   * alone, spaces become '+' and everything else is percent encoded using the charset.
+   *
+   * @param parameters The parameters. Null values are encoded as empty values.
+   * @param charset    The charset used for characters that must be percent encoded.
+   * @return The encoded bytes.
+   */
+  public static byte[] encode(Map<String, ? extends Collection<String>> parameters, Charset charset) {
+    byte[] buffer = new byte[64];
+    int length = 0;
+    for (Map.Entry<String, ? extends Collection<String>> entry : parameters.entrySet()) {
+      for (String value : entry.getValue()) {
+        if (length > 0) {
+          buffer = ensure(buffer, length + 1);
+          buffer[length++] = '&';
+        }
+
+        String name = entry.getKey();
+        buffer = ensure(buffer, length + encodedLength(name, charset) + 1);
+        length = encode(name, charset, buffer, length);
+        buffer[length++] = '=';
+        if (value != null) {
+          buffer = ensure(buffer, length + encodedLength(value, charset));
+          length = encode(value, charset, buffer, length);
+        }
+      }
+    }
+
+    return Arrays.copyOf(buffer, length);
+  }
+
+  private static int encode(String value, Charset charset, byte[] buffer, int length) {
+    if (!isASCII(value)) {
+      for (byte b : value.getBytes(charset)) {
+        length = encode(b, buffer, length);
+      }
+
+      return length;
+    }
+
+    for (int i = 0; i < value.length(); i++) {
+      length = encode((byte) value.charAt(i), buffer, length);
+    }
+
+    return length;
+  }
+
+  private static int encode(byte b, byte[] buffer, int length) {
+    if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '.' || b == '-' || b == '*' || b == '_') {
+      buffer[length++] = b;
+    } else if (b == ' ') {
+      buffer[length++] = '+';
+    } else {
+      buffer[length++] = '%';
+      buffer[length++] = HEX[(b >> 4) & 0xF];
+      buffer[length++] = HEX[b & 0xF];
+    }
+
+    return length;
+  }
+
+  /**
+   * @return The most bytes the String can encode to. For ASCII this is 3 per char; otherwise the String is converted
+   * with the charset, which is only done for Strings that need it.
+   */
+  private static int encodedLength(String value, Charset charset) {
+    return isASCII(value) ? value.length() * 3 : value.getBytes(charset).length * 3;
+  }
+
+  private static byte[] ensure(byte[] buffer, int size) {
+    return size > buffer.length ? Arrays.copyOf(buffer, Math.max(size, buffer.length * 2)) : buffer;
+  }
+
+  private static boolean isASCII(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  static int hex(byte b) {
+    if (b >= '0' && b <= '9') {
+      return b - '0';
+    } else if (b >= 'a' && b <= 'f') {
+      return b - 'a' + 10;
+    } else if (b >= 'A' && b <= 'F') {
+      return b - 'A' + 10;
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.primeframework.mock.servlet.MockHttpServletRequest.Method;
+
+/**
+ * An incremental parser for raw HTTP/1.1 requests that builds {@link MockHttpServletRequest} objects. This handles the
+ * request line (including absolute URIs), headers (including folded lines), the query string and bodies that are sent
+ * with a Content-Length or with chunked transfer-encoding.
+ * <p>
+ * Bytes can be fed in any amount using {@link #parse(ByteBuffer)}, which returns null until a complete request has
+ * been read. The line and body buffers are kept and reused for every request this parser reads, so a single parser
+ * can replay any number of requests. Parsers are not thread safe.
+ *
+ * @author Brian Pontarelli
+ */
+public class HTTPRequestParser {
+  private static final Method[] METHODS = Method.values();
+
+  private final MockContainer container;
+
+  private final List<String[]> headers = new ArrayList<>();
+
+  private final int maximumLineLength;
+
+  private byte[] body = new byte[4096];
+
+  private int bodyLength;
+
+  private long chunkRemaining;
+
+  // Chunked transfer-encoding wins over a Content-Length, whichever header comes first
+  private boolean chunked;
+
+  private long contentLength;
+
+  private boolean hostInTarget;
+
+  private byte[] line = new byte[256];
+
+  private int lineLength;
+
+  private ByteBuffer readBuffer;
+
+  private MockHttpServletRequest request;
+
+  private State state = State.REQUEST_LINE;
+
+  public HTTPRequestParser(MockContainer container) {
+    this(container, 16 * 1024);
+  }
+
+  /**
+   * @param container         The container used to create the requests.
+   * @param maximumLineLength The longest request line or header line that is accepted.
+   */
+  public HTTPRequestParser(MockContainer container, int maximumLineLength) {
+    this.container = container;
+    this.maximumLineLength = maximumLineLength;
+  }
+
+  /**
+   * Parses as much of the buffer as is needed to complete the current request. The buffer is left positioned after the
+   * last byte of the request so that pipelined requests can be parsed by calling this method again.
+   *
+   * @param buffer The bytes.
+   * @return The request or null if more bytes are needed.
+   * @throws IllegalArgumentException If the bytes are not a valid HTTP request. The partially parsed request is
+   *                                  discarded, so the parser is ready for the next request.
+   */
+  public MockHttpServletRequest parse(ByteBuffer buffer) {
+    try {
+      return parseRequest(buffer);
+    } catch (RuntimeException e) {
+      reset();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the next request from the stream. Bytes after the end of the request are kept for the next call.
+   *
+   * @param inputStream The stream.
+   * @return The request or null if the stream ended before any bytes of a new request were read.
+   * @throws IOException              If the stream throws or ends in the middle of a request.
+   * @throws IllegalArgumentException If the bytes are not a valid HTTP request. The rest of the bytes that were read
+   *                                  ahead are discarded along with the request.
+   */
+  public MockHttpServletRequest parse(InputStream inputStream) throws IOException {
+    if (readBuffer == null) {
+      readBuffer = ByteBuffer.allocate(8192);
+      readBuffer.flip();
+    }
+
+    while (true) {
+      MockHttpServletRequest result;
+      try {
+        result = parse(readBuffer);
+      } catch (IllegalArgumentException e) {
+        // There is no telling where the bad request ends, so nothing that was read ahead can be trusted
+        readBuffer.limit(0);
+        throw e;
+      }
+
+      if (result != null) {
+        return result;
+      }
+
+      readBuffer.clear();
+      int read = inputStream.read(readBuffer.array(), 0, readBuffer.capacity());
+      if (read < 0) {
+        readBuffer.limit(0);
+        if (state == State.REQUEST_LINE && lineLength == 0) {
+          return null;
+        }
+
+        reset();
+        throw new IOException("The stream ended in the middle of an HTTP request");
+      }
+
+      readBuffer.limit(read);
+    }
+  }
+
+  /**
+   * Discards any partially parsed request.
+   */
+  public void reset() {
+    state = State.REQUEST_LINE;
+    request = null;
+    headers.clear();
+    lineLength = 0;
+    bodyLength = 0;
+    contentLength = 0;
+    chunked = false;
+    chunkRemaining = 0;
+  }
+
+  private static String ascii(byte[] bytes, int start, int end) {
+    return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+  }
+
+  private static boolean equalsIgnoreCase(String value, String expected) {
+    return value.length() == expected.length() && value.equalsIgnoreCase(expected);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  private void addHeader(String name, String value) {
+    if (equalsIgnoreCase(name, "Content-Length")) {
+      try {
+        contentLength = Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid Content-Length [" + value + "]");
+      }
+
+      if (contentLength < 0) {
+        throw new IllegalArgumentException("Invalid Content-Length [" + value + "]");
+      }
+    } else if (equalsIgnoreCase(name, "Transfer-Encoding") && value.regionMatches(true, value.length() - 7, "chunked", 0, 7)) {
+      chunked = true;
+    }
+
+    headers.add(new String[]{name, value});
+  }
+
+  private void copyBody(ByteBuffer buffer, long wanted) {
+    int count = (int) Math.min(wanted, buffer.remaining());
+    if (bodyLength + count > body.length) {
+      body = Arrays.copyOf(body, Math.max(body.length * 2, bodyLength + count));
+    }
+
+    buffer.get(body, bodyLength, count);
+    bodyLength += count;
+  }
+
+  private MockHttpServletRequest finish() {
+    MockHttpServletRequest result = request;
+    for (String[] header : headers) {
+      String name = header[0];
+      String value = header[1];
+      if (equalsIgnoreCase(name, "Content-Type")) {
+        result.contentType = value;
+        int index = value.toLowerCase().indexOf("charset=");
+        if (index >= 0) {
+          int end = value.indexOf(';', index);
+          result.encoding = value.substring(index + 8, end < 0 ? value.length() : end).trim().replace("\"", "");
+        }
+      }
+
+      result.addHeader(name, value);
+    }
+
+    if (chunked) {
+      // The body keeps its chunked framing, so the request reports no Content-Length like it would in a container
+      Iterator<ByteBuffer> chunks = Collections.singletonList(ByteBuffer.wrap(Arrays.copyOf(body, bodyLength))).iterator();
+      result.setInputStream(new ChunkedInputStream(chunks, true));
+    } else if (bodyLength > 0 || contentLength != 0) {
+      result.setInputStream(new MockServletInputStream(Arrays.copyOf(body, bodyLength)));
+    }
+
+    reset();
+    return result;
+  }
+
+  private MockHttpServletRequest parseRequest(ByteBuffer buffer) {
+    while (buffer.hasRemaining()) {
+      switch (state) {
+        case REQUEST_LINE:
+        case HEADERS:
+        case CHUNK_SIZE:
+        case CHUNK_END:
+        case TRAILERS:
+          if (readLine(buffer)) {
+            processLine();
+          }
+          break;
+        case BODY:
+          copyBody(buffer, contentLength - bodyLength);
+          if (bodyLength == contentLength) {
+            state = State.DONE;
+          }
+          break;
+        case CHUNK_DATA:
+          int before = bodyLength;
+          copyBody(buffer, chunkRemaining);
+          chunkRemaining -= bodyLength - before;
+          if (chunkRemaining == 0) {
+            state = State.CHUNK_END;
+          }
+          break;
+        default:
+          break;
+      }
+
+      if (state == State.DONE) {
+        return finish();
+      }
+    }
+
+    return state == State.DONE ? finish() : null;
+  }
+
+  private void processHeaderLine() {
+    if (lineLength == 0) {
+      return;
+    }
+
+    // Folded lines continue the previous header
+    if (isWhitespace(line[0]) && !headers.isEmpty()) {
+      String[] previous = headers.get(headers.size() - 1);
+      int start = 0;
+      while (start < lineLength && isWhitespace(line[start])) {
+        start++;
+      }
+
+      previous[1] = previous[1] + " " + ascii(line, start, lineLength);
+      return;
+    }
+
+    int colon = -1;
+    for (int i = 0; i < lineLength; i++) {
+      if (line[i] == ':') {
+        colon = i;
+        break;
+      }
+    }
+
+    if (colon <= 0) {
+      throw new IllegalArgumentException("Invalid HTTP header [" + ascii(line, 0, lineLength) + "]");
+    }
+
+    int start = colon + 1;
+    int end = lineLength;
+    while (start < end && isWhitespace(line[start])) {
+      start++;
+    }
+    while (end > start && isWhitespace(line[end - 1])) {
+      end--;
+    }
+
+    addHeader(ascii(line, 0, colon), ascii(line, start, end));
+  }
+
+  private void processLine() {
+    switch (state) {
+      case REQUEST_LINE:
+        // Empty lines before a request are allowed
+        if (lineLength > 0) {
+          processRequestLine();
+          state = State.HEADERS;
+        }
+        break;
+      case HEADERS:
+        if (lineLength > 0) {
+          processHeaderLine();
+        } else {
+          startBody();
+        }
+        break;
+      case CHUNK_SIZE:
+        long size = 0;
+        int digits = 0;
+        for (int i = 0; i < lineLength && line[i] != ';' && !isWhitespace(line[i]); i++) {
+          int digit = FormURLEncoding.hex(line[i]);
+          if (digit < 0 || ++digits > 15) {
+            throw new IllegalArgumentException("Invalid chunk size [" + ascii(line, 0, lineLength) + "]");
+          }
+
+          size = (size << 4) + digit;
+        }
+
+        if (digits == 0) {
+          throw new IllegalArgumentException("Invalid chunk size [" + ascii(line, 0, lineLength) + "]");
+        }
+
+        chunkRemaining = size;
+        state = size == 0 ? State.TRAILERS : State.CHUNK_DATA;
+        break;
+      case CHUNK_END:
+        if (lineLength != 0) {
+          throw new IllegalArgumentException("Chunk data was longer than the chunk size");
+        }
+
+        state = State.CHUNK_SIZE;
+        break;
+      case TRAILERS:
+        if (lineLength > 0) {
+          processHeaderLine();
+        } else {
+          state = State.DONE;
+        }
+        break;
+      default:
+        break;
+    }
+
+    lineLength = 0;
+  }
+
+  private void processRequestLine() {
+    int firstSpace = -1;
+    int lastSpace = -1;
+    for (int i = 0; i < lineLength; i++) {
+      if (line[i] == ' ') {
+        if (firstSpace < 0) {
+          firstSpace = i;
+        }
+        lastSpace = i;
+      }
+    }
+
+    if (firstSpace <= 0 || lastSpace == firstSpace) {
+      throw new IllegalArgumentException("Invalid HTTP request line [" + ascii(line, 0, lineLength) + "]");
+    }
+
+    // Request target, which might be in absolute form
+    int start = firstSpace + 1;
+    int end = lastSpace;
+    String scheme = null;
+    String host = null;
+    if (line[start] != '/' && line[start] != '*') {
+      int colon = start;
+      while (colon < end && line[colon] != ':') {
+        colon++;
+      }
+
+      if (colon + 2 < end && line[colon + 1] == '/' && line[colon + 2] == '/') {
+        scheme = ascii(line, start, colon).toUpperCase();
+        int authorityEnd = colon + 3;
+        while (authorityEnd < end && line[authorityEnd] != '/' && line[authorityEnd] != '?') {
+          authorityEnd++;
+        }
+
+        host = ascii(line, colon + 3, authorityEnd);
+        start = authorityEnd;
+      }
+    }
+
+    int question = start;
+    while (question < end && line[question] != '?') {
+      question++;
+    }
+
+    String uri = question == start ? "/" : ascii(line, start, question);
+    request = container.newServletRequest(uri);
+    request.headers.clear();
+    request.method = null;
+    request.setProtocol(ascii(line, lastSpace + 1, lineLength));
+    hostInTarget = scheme != null;
+    if (hostInTarget) {
+      request.scheme = scheme;
+      setHost(host);
+    }
+
+    for (Method method : METHODS) {
+      String name = method.name();
+      if (name.length() == firstSpace) {
+        boolean matches = true;
+        for (int i = 0; i < firstSpace && matches; i++) {
+          matches = line[i] == name.charAt(i);
+        }
+
+        if (matches) {
+          request.method = method;
+          break;
+        }
+      }
+    }
+
+    if (request.method == null) {
+      request.method = Method.GET;
+      request.setOverrideMethod(ascii(line, 0, firstSpace));
+    }
+
+    if (question < end) {
+      FormURLEncoding.decode(line, question + 1, end, StandardCharsets.UTF_8, request.parameters);
+    }
+  }
+
+  /**
+   * Reads bytes into the line buffer until a line feed is found. A trailing carriage return is dropped.
+   *
+   * @return True if a whole line was read.
+   */
+  private boolean readLine(ByteBuffer buffer) {
+    while (buffer.hasRemaining()) {
+      byte b = buffer.get();
+      if (b == '\n') {
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+          lineLength--;
+        }
+
+        return true;
+      }
+
+      if (lineLength == line.length) {
+        if (lineLength >= maximumLineLength) {
+          reset();
+          throw new IllegalArgumentException("HTTP request line or header is longer than [" + maximumLineLength + "] bytes");
+        }
+
+        line = Arrays.copyOf(line, Math.min(line.length * 2, maximumLineLength + 1));
+      }
+
+      line[lineLength++] = b;
+    }
+
+    return false;
+  }
+
+  private void setHost(String host) {
+    int colon = host.lastIndexOf(':');
+    if (colon > 0 && host.indexOf(']', colon) < 0) {
+      request.serverName = host.substring(0, colon);
+      request.serverPort = Integer.parseInt(host.substring(colon + 1));
+    } else {
+      request.serverName = host;
+      request.serverPort = request.scheme.equals("HTTPS") ? 443 : 80;
+    }
+  }
+
+  private void startBody() {
+    for (String[] header : headers) {
+      if (!hostInTarget && equalsIgnoreCase(header[0], "Host") && !header[1].isEmpty()) {
+        setHost(header[1]);
+      }
+    }
+
+    if (chunked) {
+      state = State.CHUNK_SIZE;
+    } else if (contentLength > 0) {
+      state = State.BODY;
+    } else {
+      state = State.DONE;
+    }
+  }
+
+  private enum State {
+    REQUEST_LINE,
+    HEADERS,
+    BODY,
+    CHUNK_SIZE,
+    CHUNK_DATA,
+    CHUNK_END,
+    TRAILERS,
+    DONE
+  }
+}
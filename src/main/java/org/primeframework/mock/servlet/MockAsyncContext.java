@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A mock AsyncContext. Tasks passed to {@link #start(Runnable)} and async dispatches run on the executor of the
+ * {@link MockContainer} and timeouts are driven by its scheduler. This also records (using {@link System#nanoTime()})
+ * when the request went async, when it was dispatched and when it completed so that tests can measure how long a
+ * request held on to a thread.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockAsyncContext implements AsyncContext {
+  private final static Logger logger = LoggerFactory.getLogger(MockAsyncContext.class);
+
+  protected final MockContainer container;
+
+  protected final CountDownLatch latch = new CountDownLatch(1);
+
+  protected final List<Registration> listeners = new ArrayList<>();
+
+  protected final MockHttpServletRequest owner;
+
+  protected volatile long completed;
+
+  protected int dispatches;
+
+  protected volatile long dispatched;
+
+  protected volatile boolean originalRequestAndResponse;
+
+  protected volatile ServletRequest request;
+
+  protected volatile ServletResponse response;
+
+  protected volatile long started;
+
+  protected volatile State state = State.STARTED;
+
+  protected long timeout = 30_000;
+
+  protected ScheduledFuture<?> timeoutFuture;
+
+  public MockAsyncContext(MockHttpServletRequest owner, ServletRequest request, ServletResponse response,
+                          boolean originalRequestAndResponse) {
+    this.owner = owner;
+    this.container = owner.container;
+    this.request = request;
+    this.response = response;
+    this.originalRequestAndResponse = originalRequestAndResponse;
+    this.started = System.nanoTime();
+  }
+
+  /**
+   * Creates the default executor for async tasks. This uses virtual threads when the JVM supports them and a cached pool
+   * of daemon threads otherwise.
+   *
+   * @return The executor.
+   */
+  public static ExecutorService newDefaultExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (Exception e) {
+      return Executors.newCachedThreadPool(daemonThreadFactory("prime-mock-async-"));
+    }
+  }
+
+  /**
+   * @return A new single threaded scheduler with a daemon thread that is used for async timeouts.
+   */
+  public static ScheduledExecutorService newDefaultScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("prime-mock-async-timeout-"));
+  }
+
+  private static ThreadFactory daemonThreadFactory(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @Override
+  public void addListener(AsyncListener listener) {
+    addListener(listener, request, response);
+  }
+
+  @Override
+  public synchronized void addListener(AsyncListener listener, ServletRequest servletRequest,
+                                       ServletResponse servletResponse) {
+    listeners.add(new Registration(listener, servletRequest, servletResponse));
+  }
+
+  /**
+   * Waits for the async request to complete.
+   *
+   * @param timeout The maximum time to wait.
+   * @param unit    The unit of the timeout.
+   * @return True if the request completed, false if the wait timed out.
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+    return latch.await(timeout, unit);
+  }
+
+  @Override
+  public void complete() {
+    List<Registration> registrations;
+    synchronized (this) {
+      if (state == State.COMPLETED) {
+        return;
+      }
+
+      state = State.COMPLETED;
+      completed = System.nanoTime();
+      cancelTimeout();
+      registrations = new ArrayList<>(listeners);
+    }
+
+    for (Registration registration : registrations) {
+      try {
+        registration.listener.onComplete(registration.event(null));
+      } catch (IOException e) {
+        logger.debug("AsyncListener threw an exception during onComplete", e);
+      }
+    }
+
+    latch.countDown();
+  }
+
+  @Override
+  public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+    return container.getContext().createListener(clazz);
+  }
+
+  @Override
+  public void dispatch() {
+    String uri = request instanceof HttpServletRequest ? ((HttpServletRequest) request).getRequestURI() : owner.getRequestURI();
+    String contextPath = container.getContext().getContextPath();
+    if (!contextPath.isEmpty() && uri.startsWith(contextPath)) {
+      uri = uri.substring(contextPath.length());
+    }
+
+    dispatch(uri);
+  }
+
+  @Override
+  public void dispatch(String path) {
+    dispatch(container.getContext(), path);
+  }
+
+  @Override
+  public void dispatch(ServletContext context, String path) {
+    if (!(context instanceof MockServletContext)) {
+      throw new IllegalArgumentException("Async dispatches are only supported to a MockServletContext");
+    }
+
+    int generation;
+    ServletRequest request;
+    ServletResponse response;
+    synchronized (this) {
+      if (state != State.STARTED) {
+        throw new IllegalStateException("Unable to dispatch because the request was already dispatched or completed");
+      }
+
+      state = State.DISPATCHED;
+      dispatched = System.nanoTime();
+      generation = ++dispatches;
+      request = this.request;
+      response = this.response;
+      cancelTimeout();
+    }
+
+    MockRequestDispatcher dispatcher = new MockRequestDispatcher((MockServletContext) context, path);
+    container.getAsyncExecutor().execute(() -> {
+      try {
+        request.setAttribute(ASYNC_REQUEST_URI, owner.getRequestURI());
+        request.setAttribute(ASYNC_CONTEXT_PATH, owner.getContextPath());
+        request.setAttribute(ASYNC_SERVLET_PATH, owner.getServletPath());
+        request.setAttribute(ASYNC_PATH_INFO, owner.getPathInfo());
+        request.setAttribute(ASYNC_QUERY_STRING, owner.getQueryString());
+        dispatcher.dispatch(request, response, DispatcherType.ASYNC);
+      } catch (Throwable t) {
+        error(t);
+      } finally {
+        // The container completes the request unless the dispatched servlet went async again
+        boolean restarted;
+        synchronized (this) {
+          restarted = dispatches != generation || state == State.STARTED;
+        }
+
+        if (!restarted) {
+          complete();
+        }
+      }
+    });
+  }
+
+  /**
+   * @return The time (from {@link System#nanoTime()}) the request completed or 0 if it hasn't.
+   */
+  public long getCompleted() {
+    return completed;
+  }
+
+  /**
+   * @return The time (from {@link System#nanoTime()}) the request was dispatched or 0 if it hasn't been.
+   */
+  public long getDispatched() {
+    return dispatched;
+  }
+
+  /**
+   * @return The number of nanoseconds between the request going async and completing, or -1 if it hasn't completed.
+   */
+  public long getDuration() {
+    return completed == 0 ? -1 : completed - started;
+  }
+
+  @Override
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  @Override
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  /**
+   * @return The time (from {@link System#nanoTime()}) the request went async.
+   */
+  public long getStarted() {
+    return started;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public synchronized long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Sets the timeout. If the request is still async, the timeout is restarted using the new value.
+   *
+   * @param timeout The timeout in milliseconds. Zero or less means the request never times out.
+   */
+  @Override
+  public synchronized void setTimeout(long timeout) {
+    this.timeout = timeout;
+    if (state == State.STARTED) {
+      cancelTimeout();
+      scheduleTimeout();
+    }
+  }
+
+  @Override
+  public boolean hasOriginalRequestAndResponse() {
+    return originalRequestAndResponse;
+  }
+
+  /**
+   * @return True if this context has been started and not yet dispatched or completed.
+   */
+  public boolean isStarted() {
+    return state == State.STARTED;
+  }
+
+  @Override
+  public void start(Runnable run) {
+    container.getAsyncExecutor().execute(() -> {
+      try {
+        run.run();
+      } catch (Throwable t) {
+        error(t);
+      }
+    });
+  }
+
+  /**
+   * Called when the request goes async again during an async dispatch. The listeners are notified and removed, since
+   * they must register again. The time the request originally went async is kept.
+   *
+   * @param request                    The request passed to startAsync.
+   * @param response                   The response passed to startAsync.
+   * @param originalRequestAndResponse Whether or not these are the original request and response.
+   */
+  protected void restart(ServletRequest request, ServletResponse response, boolean originalRequestAndResponse) {
+    List<Registration> registrations;
+    synchronized (this) {
+      if (state != State.DISPATCHED) {
+        throw new IllegalStateException("Unable to start async because the request is already async or completed");
+      }
+
+      state = State.STARTED;
+      this.request = request;
+      this.response = response;
+      this.originalRequestAndResponse = originalRequestAndResponse;
+      registrations = new ArrayList<>(listeners);
+      listeners.clear();
+      scheduleTimeout();
+    }
+
+    for (Registration registration : registrations) {
+      try {
+        registration.listener.onStartAsync(new AsyncEvent(this, registration.request, registration.response));
+      } catch (IOException e) {
+        logger.debug("AsyncListener threw an exception during onStartAsync", e);
+      }
+    }
+  }
+
+  /**
+   * Starts the timeout for this context if it has one and it isn't already running.
+   */
+  protected synchronized void scheduleTimeout() {
+    if (state == State.STARTED && timeout > 0 && timeoutFuture == null) {
+      timeoutFuture = container.getAsyncScheduler().schedule(this::timeout, timeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void cancelTimeout() {
+    if (timeoutFuture != null) {
+      timeoutFuture.cancel(false);
+      timeoutFuture = null;
+    }
+  }
+
+  private void error(Throwable t) {
+    List<Registration> registrations;
+    synchronized (this) {
+      registrations = new ArrayList<>(listeners);
+    }
+
+    for (Registration registration : registrations) {
+      try {
+        registration.listener.onError(registration.event(t));
+      } catch (IOException e) {
+        logger.debug("AsyncListener threw an exception during onError", e);
+      }
+    }
+
+    if (state != State.COMPLETED && response instanceof HttpServletResponse && !response.isCommitted()) {
+      try {
+        ((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      } catch (IOException e) {
+        logger.debug("Unable to send the error for a failed async request", e);
+      }
+    }
+
+    complete();
+  }
+
+  private void timeout() {
+    List<Registration> registrations;
+    synchronized (this) {
+      if (state != State.STARTED) {
+        return;
+      }
+
+      registrations = new ArrayList<>(listeners);
+    }
+
+    for (Registration registration : registrations) {
+      try {
+        registration.listener.onTimeout(registration.event(null));
+      } catch (IOException e) {
+        logger.debug("AsyncListener threw an exception during onTimeout", e);
+      }
+    }
+
+    // If none of the listeners dispatched or completed, the container sends an error
+    if (state == State.STARTED) {
+      if (response instanceof HttpServletResponse && !response.isCommitted()) {
+        try {
+          ((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException e) {
+          logger.debug("Unable to send the error for a timed out async request", e);
+        }
+      }
+
+      complete();
+    }
+  }
+
+  /**
+   * The states of an async request.
+   */
+  public enum State {
+    STARTED,
+    DISPATCHED,
+    COMPLETED
+  }
+
+  private class Registration {
+    private final AsyncListener listener;
+
+    private final ServletRequest request;
+
+    private final ServletResponse response;
+
+    private Registration(AsyncListener listener, ServletRequest request, ServletResponse response) {
+      this.listener = listener;
+      this.request = request;
+      this.response = response;
+    }
+
+    private AsyncEvent event(Throwable throwable) {
+      return new AsyncEvent(MockAsyncContext.this, request, response, throwable);
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2017, Inversoft, All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft, All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,15 +15,24 @@
  */
 package org.primeframework.mock.servlet;
 
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import org.primeframework.mock.lang.FlightRecorder;
 
 /**
  * Mock container to manage the session and context references.
@@ -31,10 +40,20 @@ import java.util.Set;
  * @author Daniel DeGroff
  */
 public class MockContainer {
+  private static volatile Executor defaultAsyncExecutor;
+
+  private static volatile ScheduledExecutorService defaultAsyncScheduler;
+
   private final MockUserAgent userAgent;
 
+  private Executor asyncExecutor;
+
+  private ScheduledExecutorService asyncScheduler;
+
   private MockServletContext context;
 
+  private volatile MockMetrics metrics;
+
   private MockHttpServletRequest request;
 
   private MockHttpServletResponse response;
@@ -45,6 +64,7 @@ public class MockContainer {
 
   public MockContainer() {
     this.context = new MockServletContext();
+    this.context.container = this;
     request = new MockHttpServletRequest("", this);
     response = new MockHttpServletResponse(this);
     userAgent = new MockUserAgent();
@@ -63,6 +83,69 @@ public class MockContainer {
   }
 
 
+  /**
+   * Turns on metrics for this container. Requests created after this call count how they are used and add their counts
+   * to {@link #getMetrics()}.
+   *
+   * @return This container.
+   */
+  public MockContainer enableMetrics() {
+    if (metrics == null) {
+      metrics = new MockMetrics();
+      request.metrics = newRequestMetrics();
+    }
+
+    return this;
+  }
+
+  /**
+   * @return The executor used for {@link javax.servlet.AsyncContext#start(Runnable)} and async dispatches. Unless one
+   * is set, this is an executor shared by all containers that uses virtual threads if the JVM supports them.
+   */
+  public synchronized Executor getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      if (defaultAsyncExecutor == null) {
+        synchronized (MockContainer.class) {
+          if (defaultAsyncExecutor == null) {
+            defaultAsyncExecutor = MockAsyncContext.newDefaultExecutor();
+          }
+        }
+      }
+
+      asyncExecutor = defaultAsyncExecutor;
+    }
+
+    return asyncExecutor;
+  }
+
+  public synchronized void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * @return The scheduler used for async timeouts. Unless one is set, this is a single daemon thread shared by all
+   * containers.
+   */
+  public synchronized ScheduledExecutorService getAsyncScheduler() {
+    if (asyncScheduler == null) {
+      if (defaultAsyncScheduler == null) {
+        synchronized (MockContainer.class) {
+          if (defaultAsyncScheduler == null) {
+            defaultAsyncScheduler = MockAsyncContext.newDefaultScheduler();
+          }
+        }
+      }
+
+      asyncScheduler = defaultAsyncScheduler;
+    }
+
+    return asyncScheduler;
+  }
+
+  public synchronized void setAsyncScheduler(ScheduledExecutorService asyncScheduler) {
+    this.asyncScheduler = asyncScheduler;
+  }
+
   public MockServletContext getContext() {
     return context;
   }
@@ -71,6 +154,14 @@ public class MockContainer {
     return new HttpServletRequestWrapper(request);
   }
 
+  /**
+   * @return The metrics of all of the requests in this container, or null if {@link #enableMetrics()} hasn't been
+   * called.
+   */
+  public MockMetrics getMetrics() {
+    return metrics;
+  }
+
   public MockHttpServletRequest getRequest() {
     return request;
   }
@@ -89,6 +180,8 @@ public class MockContainer {
   public MockHttpSession getSession(boolean create) {
     if (session == null && create) {
       session = new MockHttpSession(this);
+      context.sessionCreated(session);
+      FlightRecorder.sessionCreated(session.getId());
     }
 
     return session;
@@ -107,6 +200,7 @@ public class MockContainer {
 
   public MockServletContext newServletContext(File webDir) {
     context = new MockServletContext(webDir);
+    context.container = this;
     return context;
   }
 
@@ -132,6 +226,38 @@ public class MockContainer {
     return request;
   }
 
+  /**
+   * Creates a new request from the template and makes it the current request. The template's cookies are added to the
+   * user agent.
+   *
+   * @param template The template.
+   * @return The request.
+   */
+  public MockHttpServletRequest newServletRequest(MockHttpServletRequestTemplate template) {
+    request = new MockHttpServletRequest(template, this);
+    for (Cookie cookie : template.cookies) {
+      userAgent.addCookie(request, (Cookie) cookie.clone());
+    }
+
+    return request;
+  }
+
+  /**
+   * Creates an immutable request template. The configurer sets up a scratch request (in its own container, so cookies
+   * don't leak into this container's user agent) using the normal setters and then the template takes a snapshot of
+   * it.
+   *
+   * @param uri        The URI of the requests.
+   * @param configurer Configures the request.
+   * @return The template.
+   */
+  public MockHttpServletRequestTemplate newServletRequestTemplate(String uri,
+                                                                  Consumer<MockHttpServletRequest> configurer) {
+    MockHttpServletRequest prototype = new MockContainer().newServletRequest(uri);
+    configurer.accept(prototype);
+    return new MockHttpServletRequestTemplate(prototype);
+  }
+
   public MockHttpServletResponse newServletResponse() {
     response = new MockHttpServletResponse(this);
     return response;
@@ -143,6 +269,7 @@ public class MockContainer {
    */
   public void resetContext() {
     context = context.webDir == null ? new MockServletContext() : new MockServletContext(context.webDir);
+    context.container = this;
   }
 
   public void resetRequest() {
@@ -161,6 +288,15 @@ public class MockContainer {
     session = null;
   }
 
+  /**
+   * Services the current request and response using the servlets and filters registered with the servlet context.
+   *
+   * @see MockServletContext#service(MockHttpServletRequest, HttpServletResponse)
+   */
+  public void service() throws ServletException, IOException {
+    context.service(request, response);
+  }
+
   public void resetUserAgent() {
     userAgent.reset();
   }
@@ -171,4 +307,20 @@ public class MockContainer {
     return this;
   }
 
+  /**
+   * @return The metrics that session and context operations count against, which are the current request's metrics,
+   * or null if metrics are off.
+   */
+  MockMetrics currentMetrics() {
+    MockHttpServletRequest current = request;
+    return current != null && current.metrics != null ? current.metrics : metrics;
+  }
+
+  /**
+   * @return New metrics for a request, or null if metrics are off.
+   */
+  MockMetrics newRequestMetrics() {
+    MockMetrics aggregate = metrics;
+    return aggregate == null ? null : new MockMetrics(aggregate);
+  }
 }
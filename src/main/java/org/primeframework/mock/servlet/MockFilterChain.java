@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A filter chain that invokes each filter in order and then the target servlet. A new chain is created for each
+ * dispatch since it tracks the position in the chain.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockFilterChain implements FilterChain {
+  protected final List<MockFilterRegistration> filters;
+
+  protected final MockServletRegistration servlet;
+
+  protected int index;
+
+  /**
+   * @param filters The filters in the order they are invoked.
+   * @param servlet The target servlet, which may be null if the chain should end after the filters.
+   */
+  public MockFilterChain(List<MockFilterRegistration> filters, MockServletRegistration servlet) {
+    this.filters = filters;
+    this.servlet = servlet;
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+    if (index < filters.size()) {
+      filters.get(index++).getFilter().doFilter(request, response, this);
+    } else if (servlet != null) {
+      servlet.getServlet().service(request, response);
+    }
+  }
+
+  /**
+   * @return The filters in this chain.
+   */
+  public List<MockFilterRegistration> getFilters() {
+    return filters;
+  }
+
+  /**
+   * @return The target servlet of this chain or null.
+   */
+  public MockServletRegistration getServlet() {
+    return servlet;
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterConfig;
+import javax.servlet.FilterRegistration;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * A filter registered with the {@link MockServletContext}. This is both the registration and the FilterConfig handed to
+ * the filter when it is initialized.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockFilterRegistration implements FilterRegistration.Dynamic, FilterConfig {
+  protected final MockServletContext context;
+
+  protected final Map<String, String> initParameters = new LinkedHashMap<>();
+
+  protected final String name;
+
+  protected final List<String> servletNameMappings = new ArrayList<>();
+
+  protected final List<String> urlPatternMappings = new ArrayList<>();
+
+  protected boolean asyncSupported;
+
+  protected String className;
+
+  protected Filter filter;
+
+  protected Class<? extends Filter> filterClass;
+
+  protected boolean initialized;
+
+  protected MockFilterRegistration(MockServletContext context, String name, Filter filter) {
+    this.context = context;
+    this.name = name;
+    this.filter = filter;
+    this.className = filter.getClass().getName();
+  }
+
+  protected MockFilterRegistration(MockServletContext context, String name, Class<? extends Filter> filterClass) {
+    this.context = context;
+    this.name = name;
+    this.filterClass = filterClass;
+    this.className = filterClass.getName();
+  }
+
+  @Override
+  public void addMappingForServletNames(EnumSet<DispatcherType> dispatcherTypes, boolean isMatchAfter,
+                                        String... servletNames) {
+    if (servletNames == null || servletNames.length == 0) {
+      throw new IllegalArgumentException("At least one servlet name is required");
+    }
+
+    for (String servletName : servletNames) {
+      servletNameMappings.add(servletName);
+      context.addFilterMapping(new FilterMapping(this, null, servletName, dispatcherTypes), isMatchAfter);
+    }
+  }
+
+  @Override
+  public void addMappingForUrlPatterns(EnumSet<DispatcherType> dispatcherTypes, boolean isMatchAfter,
+                                       String... urlPatterns) {
+    if (urlPatterns == null || urlPatterns.length == 0) {
+      throw new IllegalArgumentException("At least one URL pattern is required");
+    }
+
+    for (String urlPattern : urlPatterns) {
+      urlPatternMappings.add(urlPattern);
+      context.addFilterMapping(new FilterMapping(this, urlPattern, null, dispatcherTypes), isMatchAfter);
+    }
+  }
+
+  /**
+   * Destroys the filter if it was initialized.
+   */
+  public synchronized void destroy() {
+    if (initialized) {
+      filter.destroy();
+      initialized = false;
+    }
+  }
+
+  @Override
+  public String getClassName() {
+    return className;
+  }
+
+  /**
+   * Returns the filter, creating and initializing it the first time it is requested.
+   *
+   * @return The initialized filter.
+   * @throws ServletException If the filter could not be created or its init method failed.
+   */
+  public synchronized Filter getFilter() throws ServletException {
+    if (filter == null) {
+      filter = context.createFilter(filterClass);
+    }
+
+    if (!initialized) {
+      filter.init(this);
+      initialized = true;
+    }
+
+    return filter;
+  }
+
+  @Override
+  public String getFilterName() {
+    return name;
+  }
+
+  @Override
+  public String getInitParameter(String name) {
+    return initParameters.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getInitParameterNames() {
+    return new Vector<>(initParameters.keySet()).elements();
+  }
+
+  @Override
+  public Map<String, String> getInitParameters() {
+    return Collections.unmodifiableMap(initParameters);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public ServletContext getServletContext() {
+    return context;
+  }
+
+  @Override
+  public Collection<String> getServletNameMappings() {
+    return Collections.unmodifiableList(servletNameMappings);
+  }
+
+  @Override
+  public Collection<String> getUrlPatternMappings() {
+    return Collections.unmodifiableList(urlPatternMappings);
+  }
+
+  public boolean isAsyncSupported() {
+    return asyncSupported;
+  }
+
+  @Override
+  public void setAsyncSupported(boolean asyncSupported) {
+    this.asyncSupported = asyncSupported;
+  }
+
+  @Override
+  public boolean setInitParameter(String name, String value) {
+    if (name == null || value == null) {
+      throw new IllegalArgumentException("Init parameter names and values can't be null");
+    }
+
+    return initParameters.putIfAbsent(name, value) == null;
+  }
+
+  @Override
+  public Set<String> setInitParameters(Map<String, String> initParameters) {
+    Set<String> conflicts = new HashSet<>();
+    for (Map.Entry<String, String> entry : initParameters.entrySet()) {
+      if (this.initParameters.containsKey(entry.getKey())) {
+        conflicts.add(entry.getKey());
+      }
+    }
+
+    if (conflicts.isEmpty()) {
+      initParameters.forEach(this::setInitParameter);
+    }
+
+    return conflicts;
+  }
+
+  /**
+   * A single URL pattern or servlet name mapping of a filter. These are kept by the context in the order the filters
+   * are invoked.
+   */
+  public static class FilterMapping {
+    public final EnumSet<DispatcherType> dispatcherTypes;
+
+    public final MockFilterRegistration registration;
+
+    public final String servletName;
+
+    public final String urlPattern;
+
+    public FilterMapping(MockFilterRegistration registration, String urlPattern, String servletName,
+                         EnumSet<DispatcherType> dispatcherTypes) {
+      this.registration = registration;
+      this.urlPattern = urlPattern;
+      this.servletName = servletName;
+      this.dispatcherTypes = dispatcherTypes == null || dispatcherTypes.isEmpty()
+          ? EnumSet.of(DispatcherType.REQUEST)
+          : EnumSet.copyOf(dispatcherTypes);
+    }
+
+    /**
+     * Determines if this mapping applies to the given path or servlet.
+     *
+     * @param path           The context relative path being dispatched (may be null for named dispatches).
+     * @param servletName    The name of the target servlet (may be null if there is no target).
+     * @param dispatcherType The type of the dispatch.
+     * @return True if the filter should be part of the chain.
+     */
+    public boolean matches(String path, String servletName, DispatcherType dispatcherType) {
+      if (!dispatcherTypes.contains(dispatcherType)) {
+        return false;
+      }
+
+      if (this.servletName != null) {
+        return this.servletName.equals("*") ? servletName != null : this.servletName.equals(servletName);
+      }
+
+      return path != null && ServletMappingTable.matches(urlPattern, path);
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2019, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,10 @@ package org.primeframework.mock.servlet;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.DispatcherType;
+import javax.servlet.MultipartConfigElement;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 import javax.servlet.ServletInputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -29,22 +31,30 @@ import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpUpgradeHandler;
 import javax.servlet.http.Part;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Vector;
+import java.util.function.UnaryOperator;
+
+import org.primeframework.mock.servlet.MockMetrics.Counter;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
@@ -57,18 +67,24 @@ import static java.util.Collections.singletonList;
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class MockHttpServletRequest implements HttpServletRequest {
-  protected final Map<String, Object> attributes = new HashMap<>();
+  public static final MultipartConfigElement DEFAULT_MULTIPART_CONFIG = new MultipartConfigElement("", -1, -1, 1024 * 1024);
+
+  protected final Map<String, Object> attributes;
 
   protected final MockContainer container;
 
   protected final MockServletContext context;
 
-  protected final Map<String, FileInfo> files = new LinkedHashMap<>();
+  protected final Map<String, List<FileInfo>> files;
 
   // Support multi-threading requests in a test.
-  protected final Map<String, List<String>> headers = Collections.synchronizedMap(new LinkedHashMap<>());
+  protected final Map<String, List<String>> headers;
+
+  protected final Map<String, List<String>> parameters;
+
+  protected MockAsyncContext asyncContext;
 
-  protected final Map<String, List<String>> parameters = new LinkedHashMap<>();
+  protected boolean asyncSupported = true;
 
   protected String contentType = null;
 
@@ -90,10 +106,26 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
   protected Method method;
 
+  protected MockMetrics.MeteredInputStream meteredInputStream;
+
+  protected MockMetrics metrics;
+
+  protected MultipartConfigElement multipartConfig;
+
+  protected MultipartLayout multipartLayout;
+
+  protected String overrideMethod;
+
+  protected boolean parametersDecoded;
+
+  protected List<Part> parts;
+
   protected String pathInfo = "";
 
   protected String pathTranslated;
 
+  protected String protocol = "HTTP/1.0";
+
   protected BufferedReader reader;
 
   protected boolean readerRetrieved;
@@ -118,10 +150,8 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
   protected String uri;
 
-  private String overrideMethod;
-
   protected MockHttpServletRequest(MockContainer container) {
-    this(null, container);
+    this((String) null, container);
   }
 
   protected MockHttpServletRequest(String uri, MockContainer container) {
@@ -135,7 +165,10 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
   protected MockHttpServletRequest(Map<String, List<String>> parameters, String uri, String encoding,
                                    Locale locale, boolean post, MockContainer container) {
-    this.parameters.putAll(parameters);
+    this.attributes = new HashMap<>();
+    this.files = new LinkedHashMap<>();
+    this.headers = Collections.synchronizedMap(new LinkedHashMap<>());
+    this.parameters = new LinkedHashMap<>(parameters);
     this.uri = uri;
     this.encoding = encoding;
     this.locales.add(locale);
@@ -159,11 +192,51 @@ public class MockHttpServletRequest implements HttpServletRequest {
       values.add("Prime-Mock");
       headers.put("User-Agent", values);
     }
+
+    this.metrics = container.newRequestMetrics();
+  }
+
+  /**
+   * Creates a request from a template. The collections are shared with the template until the request changes them, so
+   * this is O(1) in the size of the template (except for the locales).
+   *
+   * @param template  The template.
+   * @param container The container.
+   */
+  protected MockHttpServletRequest(MockHttpServletRequestTemplate template, MockContainer container) {
+    this.attributes = new CopyOnWriteMap<>(template.attributes, UnaryOperator.identity());
+    this.container = container;
+    this.context = container.getContext();
+    this.files = new CopyOnWriteMap<>(template.files, ArrayList::new);
+    this.headers = Collections.synchronizedMap(new CopyOnWriteMap<>(template.headers, ArrayList::new));
+    this.parameters = new CopyOnWriteMap<>(template.parameters, ArrayList::new);
+    this.contentType = template.contentType;
+    this.contextPath = template.contextPath;
+    this.encoding = template.encoding;
+    this.locales = new Vector<>(template.locales);
+    this.method = template.method;
+    this.overrideMethod = template.overrideMethod;
+    this.protocol = template.protocol;
+    this.remoteAddr = template.remoteAddr;
+    this.scheme = template.scheme;
+    this.serverName = template.serverName;
+    this.serverPort = template.serverPort;
+    this.uri = template.uri;
+    this.multipartLayout = template.multipartLayout;
+    if (template.body != null) {
+      this.inputStream = new MockServletInputStream(template.body);
+    }
+
+    this.metrics = container.newRequestMetrics();
   }
 
   /**
    * Adds a file to the HTTP request body. This must be called if the content type is not set and the InputStream hasn't
    * been set or retrieved.
+   * <p>
+   * The first file sets the content type to <code>multipart/form-data; boundary=...</code> with a random boundary. To
+   * use a specific boundary, set the content type to <code>multipart/form-data</code> with that boundary before adding
+   * the file. Building the body fails if a file or parameter value contains the boundary.
    *
    * @param key         The name of the form field.
    * @param file        The file to add.
@@ -173,18 +246,38 @@ public class MockHttpServletRequest implements HttpServletRequest {
     if (contentType == null || file == null) {
       throw new IllegalArgumentException("The FileInfo must have a file and a contentType");
     }
+
+    addFile(new FileInfo(file, key, contentType));
+  }
+
+  /**
+   * Adds a file to the HTTP request body under the file's field name. The contents can come from anywhere a FileInfo
+   * supports, including memory and generators, so tests don't need to write temporary files. See
+   * {@link #addFile(String, File, String)} for when this can be called and how the boundary is picked.
+   * <p>
+   * Adding several files with the same field name sends each one as its own part, like an
+   * <code>&lt;input type="file" multiple&gt;</code> upload. To nest them in one <code>multipart/mixed</code> part
+   * instead, add a {@link FileInfo#mixed} file info.
+   *
+   * @param file The file to add.
+   */
+  public void addFile(FileInfo file) {
+    if (file == null || file.contentType == null || file.name == null) {
+      throw new IllegalArgumentException("The FileInfo must have a name and a contentType");
+    }
     if (inputStreamRetrieved) {
       throw new IllegalStateException("InputStream retrieved already. Can't add a file to the HTTP request");
     }
     if (readerRetrieved) {
       throw new IllegalStateException("Reader retrieved already. Can't add a file to the HTTP request");
     }
-    if (this.contentType != null) {
+    if (this.contentType == null) {
+      this.contentType = "multipart/form-data; boundary=" + MultipartLayout.randomBoundary();
+    } else if (!isMultipartFormData()) {
       throw new IllegalStateException("Content-Type set already. Can't add a file to the HTTP request");
     }
 
-    this.contentType = "multipart/form-data, boundary=primeframeworkmultipartuploadLKAlskld09309djoid";
-    this.files.put(key, new FileInfo(file, key, contentType));
+    this.files.computeIfAbsent(file.name, k -> new ArrayList<>()).add(file);
   }
 
   //-------------------------------------------------------------------------
@@ -198,6 +291,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param value The header value.
    */
   public void addHeader(String name, String value) {
+    count(Counter.HEADER_WRITES);
     List<String> values = headers.computeIfAbsent(name, key -> new ArrayList<>());
 
     // Special cases
@@ -260,12 +354,21 @@ public class MockHttpServletRequest implements HttpServletRequest {
     cookies.addAll(container.getUserAgent().getCookies(this));
   }
 
+  /**
+   * @return The async context.
+   * @throws IllegalStateException If the request hasn't been put into async mode.
+   */
   @Override
   public AsyncContext getAsyncContext() {
-    throw new UnsupportedOperationException();
+    if (asyncContext == null) {
+      throw new IllegalStateException("The request has not been put into asynchronous mode");
+    }
+
+    return asyncContext;
   }
 
   public Object getAttribute(String name) {
+    count(Counter.REQUEST_ATTRIBUTE_READS);
     return attributes.get(name);
   }
 
@@ -298,24 +401,45 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
   /**
-   * @return If the input stream or the reader are setup, this will return the length of those using the available
-   * method.
+   * @return The length of the body, or -1 if there isn't a body, the body is chunked or the length is larger than an
+   * int.
+   * @see #getContentLengthLong()
    */
   public int getContentLength() {
-    if (inputStream != null) {
+    long length = getContentLengthLong();
+    return length > Integer.MAX_VALUE ? -1 : (int) length;
+  }
+
+  /**
+   * @return The length of the body or -1 if there isn't a body or the body is chunked (which includes compressed
+   * bodies). Bodies the mock knows about report their full length, even after they have been read. Any other
+   * InputStream reports the available bytes.
+   */
+  @Override
+  public long getContentLengthLong() {
+    if (inputStream == null && !files.isEmpty()) {
       try {
-        return inputStream.available();
+        inputStream = newMultipartBody();
       } catch (IOException e) {
         throw new IllegalStateException(e);
       }
+    } else if (inputStream == null && isFormPost()) {
+      inputStream = newFormBody();
     }
 
-    return -1;
-  }
+    if (inputStream == null || inputStream instanceof ChunkedInputStream || inputStream instanceof CompressingInputStream) {
+      return -1;
+    } else if (inputStream instanceof MockServletInputStream) {
+      return ((MockServletInputStream) inputStream).bytes().length;
+    } else if (inputStream instanceof MultipartInputStream) {
+      return ((MultipartInputStream) inputStream).length();
+    }
 
-  @Override
-  public long getContentLengthLong() {
-    return 0;
+    try {
+      return inputStream.available();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   /**
@@ -384,9 +508,13 @@ public class MockHttpServletRequest implements HttpServletRequest {
     return Long.parseLong(value);
   }
 
+  /**
+   * @return Always REQUEST. Forwards and includes done by the MockRequestDispatcher wrap the request and report their
+   * own dispatcher type.
+   */
   @Override
   public DispatcherType getDispatcherType() {
-    throw new UnsupportedOperationException();
+    return DispatcherType.REQUEST;
   }
 
   /**
@@ -394,6 +522,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The header or null.
    */
   public String getHeader(String name) {
+    count(Counter.HEADER_READS);
     if (name == null) {
       return null;
     }
@@ -411,6 +540,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The header names.
    */
   public Enumeration<String> getHeaderNames() {
+    count(Counter.HEADER_READS);
     return new Vector<>(headers.keySet()).elements();
   }
 
@@ -419,6 +549,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The headers, never null.
    */
   public Enumeration<String> getHeaders(String name) {
+    count(Counter.HEADER_READS);
     for (String key : headers.keySet()) {
       if (key.equalsIgnoreCase(name)) {
         return new Vector<>(headers.get(key)).elements();
@@ -438,13 +569,16 @@ public class MockHttpServletRequest implements HttpServletRequest {
     }
 
     if (files.size() > 0 && inputStream == null) {
-      inputStream = new MultipartInputStream(parameters, files);
+      inputStream = newMultipartBody();
+    } else if (inputStream == null && isFormPost()) {
+      inputStream = newFormBody();
     } else if (inputStream == null) {
       inputStream = new MockServletInputStream();
     }
 
     inputStreamRetrieved = true;
-    return inputStream;
+    count(Counter.BODY_OPENS);
+    return metered();
   }
 
   /**
@@ -456,6 +590,80 @@ public class MockHttpServletRequest implements HttpServletRequest {
     this.inputStream = inputStream;
   }
 
+  /**
+   * Sets a <code>Transfer-Encoding: chunked</code> body that is pulled from the iterator as the application reads it.
+   * The Content-Length header is removed and {@link #getContentLengthLong()} returns -1, just like a request from a
+   * client that streams its body. A copy of the body is kept so the exchange can be recorded. Use
+   * {@link #setChunkedBody(Iterator, boolean)} for bodies that are too large for that.
+   *
+   * @param chunks The chunks of the body. The buffers are read from their position to their limit and are not
+   *               changed.
+   */
+  public void setChunkedBody(Iterator<ByteBuffer> chunks) {
+    setChunkedBody(chunks, true);
+  }
+
+  /**
+   * Sets a <code>Transfer-Encoding: chunked</code> body that is pulled from the iterator as the application reads it.
+   *
+   * @param chunks     The chunks of the body. The buffers are read from their position to their limit and are not
+   *                   changed.
+   * @param recordable Whether to keep a copy of the body so the exchange can be recorded with an
+   *                   {@link ExchangeWriter}.
+   */
+  public void setChunkedBody(Iterator<ByteBuffer> chunks, boolean recordable) {
+    this.inputStream = new ChunkedInputStream(chunks, recordable);
+    setStreamingHeaders();
+  }
+
+  /**
+   * Sets a body that is compressed with the content coding as the application reads it. The Content-Encoding header is
+   * set and, because the compressed length isn't known up front, the body is sent chunked. The compressed body is kept
+   * so the exchange can be recorded. Use {@link #setCompressedBody(InputStream, String, boolean)} for bodies that are
+   * too large for that.
+   *
+   * @param plain           The plain body.
+   * @param contentEncoding The content coding, which must be gzip or deflate.
+   * @see CompressingInputStream
+   */
+  public void setCompressedBody(InputStream plain, String contentEncoding) {
+    setCompressedBody(plain, contentEncoding, true);
+  }
+
+  /**
+   * Sets a body that is compressed with the content coding as the application reads it.
+   *
+   * @param plain           The plain body.
+   * @param contentEncoding The content coding, which must be gzip or deflate.
+   * @param recordable      Whether to keep the compressed body so the exchange can be recorded with an
+   *                        {@link ExchangeWriter}.
+   * @see #setCompressedBody(InputStream, String)
+   */
+  public void setCompressedBody(InputStream plain, String contentEncoding, boolean recordable) {
+    try {
+      this.inputStream = new CompressingInputStream(plain, contentEncoding, recordable);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    setStreamingHeaders();
+    headers.keySet().removeIf(name -> name.equalsIgnoreCase("Content-Encoding"));
+    List<String> values = new ArrayList<>();
+    values.add(contentEncoding);
+    headers.put("Content-Encoding", values);
+  }
+
+  /**
+   * Sets a body that is compressed with the content coding as the application reads it.
+   *
+   * @param plain           The plain body.
+   * @param contentEncoding The content coding, which must be gzip or deflate.
+   * @see #setCompressedBody(InputStream, String)
+   */
+  public void setCompressedBody(byte[] plain, String contentEncoding) {
+    setCompressedBody(new ByteArrayInputStream(plain), contentEncoding);
+  }
+
   /**
    * @param name The name of the header.
    * @return The header or -1.
@@ -520,6 +728,14 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
 
+  /**
+   * @return The metrics for this request, or null if metrics aren't enabled on the container.
+   * @see MockContainer#enableMetrics()
+   */
+  public MockMetrics getMetrics() {
+    return metrics;
+  }
+
   //-------------------------------------------------------------------------
   //  javax.servlet.http.HttpServletRequest methods
   //-------------------------------------------------------------------------
@@ -551,6 +767,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The parameter or null.
    */
   public String getParameter(String name) {
+    count(Counter.PARAMETER_READS);
     if (doesNotHaveParameters()) {
       return null;
     }
@@ -564,6 +781,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
   public Map<String, String[]> getParameterMap() {
+    count(Counter.PARAMETER_READS);
     if (doesNotHaveParameters()) {
       return emptyMap();
     }
@@ -577,6 +795,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
   public Enumeration<String> getParameterNames() {
+    count(Counter.PARAMETER_READS);
     if (doesNotHaveParameters()) {
       return new Vector<String>().elements();
     }
@@ -585,6 +804,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
   public String[] getParameterValues(String name) {
+    count(Counter.PARAMETER_READS);
     if (doesNotHaveParameters()) {
       return null;
     }
@@ -604,14 +824,99 @@ public class MockHttpServletRequest implements HttpServletRequest {
     return parameters;
   }
 
+  /**
+   * @return The multipart config of the servlet that is handling the request or null if it hasn't been set.
+   */
+  public MultipartConfigElement getMultipartConfig() {
+    return multipartConfig;
+  }
+
+  /**
+   * Sets the multipart config that limits the parts of the request. The servlet context sets this to the config of the
+   * servlet that handles the request.
+   *
+   * @param multipartConfig The config.
+   */
+  public void setMultipartConfig(MultipartConfigElement multipartConfig) {
+    this.multipartConfig = multipartConfig;
+  }
+
   @Override
-  public Part getPart(String name) {
-    throw new UnsupportedOperationException();
+  public Part getPart(String name) throws IOException, ServletException {
+    for (Part part : getParts()) {
+      if (name.equals(part.getName())) {
+        return part;
+      }
+    }
+
+    return null;
   }
 
+  /**
+   * Parses the multipart body into parts the first time it is called. If the body is a {@link MockServletInputStream},
+   * parts under the file size threshold are slices of the body. Otherwise the body (including one generated from files
+   * added with {@link #addFile(String, File, String)}) is parsed as it is read. If no multipart config has been set,
+   * the parts have no size limits and are kept in memory up to 1MB. Nested <code>multipart/mixed</code> parts are
+   * returned as one part per nested file, named after their form field.
+   * <p>
+   * Parts over the file size threshold are temporary files. {@link MockServletContext#service} deletes them when the
+   * request is destroyed, like a container does. Requests that are driven some other way should call
+   * {@link #deleteParts()} when they are done.
+   *
+   * @return The parts.
+   * @throws ServletException If the request is not multipart/form-data.
+   * @throws IOException      If the body is malformed.
+   */
   @Override
-  public Collection<Part> getParts() {
-    throw new UnsupportedOperationException();
+  public Collection<Part> getParts() throws IOException, ServletException {
+    if (parts != null) {
+      return parts;
+    }
+
+    if (!isMultipartFormData()) {
+      throw new ServletException("The request is not multipart/form-data");
+    }
+
+    MultipartConfigElement config = multipartConfig != null ? multipartConfig : DEFAULT_MULTIPART_CONFIG;
+    MultipartParser parser = new MultipartParser(MultipartParser.boundary(contentType), config, charset());
+
+    ServletInputStream body = inputStream;
+    if (body == null && !files.isEmpty()) {
+      body = newMultipartBody();
+    }
+
+    List<Part> result;
+    if (body instanceof MultipartInputStream) {
+      // Generated bodies are parsed from a fresh stream, so the body is never buffered whole. The parts are still kept
+      // in memory up to the file size threshold, and only the larger ones go to temporary files
+      try (InputStream is = ((MultipartInputStream) body).reopen()) {
+        result = parser.parse(is);
+      }
+    } else if (body instanceof MockServletInputStream && !inputStreamRetrieved) {
+      byte[] bytes = ((MockServletInputStream) body).bytes();
+      result = parser.parse(bytes, 0, bytes.length);
+    } else {
+      result = parser.parse(getInputStream());
+    }
+
+    parts = Collections.unmodifiableList(result);
+    return parts;
+  }
+
+  /**
+   * Deletes the temporary files of the parts, if the parts have been parsed. The parts that were kept in memory can
+   * still be read afterwards.
+   *
+   * @throws IOException If a temporary file can't be deleted.
+   */
+  public void deleteParts() throws IOException {
+    if (parts == null) {
+      return;
+    }
+
+    for (Part part : parts) {
+      part.delete();
+    }
   }
 
   /**
@@ -647,33 +952,26 @@ public class MockHttpServletRequest implements HttpServletRequest {
   }
 
   /**
-   * @return Always HTTP/1.0
+   * @return The protocol, which defaults to HTTP/1.0.
    */
   public String getProtocol() {
-    return "HTTP/1.0";
+    return protocol;
+  }
+
+  /**
+   * Sets the protocol.
+   *
+   * @param protocol The protocol.
+   */
+  public void setProtocol(String protocol) {
+    this.protocol = protocol;
   }
 
   /**
    * @return The query string.
    */
   public String getQueryString() {
-    StringBuilder build = new StringBuilder();
-    for (String key : parameters.keySet()) {
-      List<String> list = parameters.get(key);
-      for (String value : list) {
-        if (build.length() > 0) {
-          build.append("&");
-        }
-
-        try {
-          build.append(URLEncoder.encode(key, "UTF-8")).append("=").append(URLEncoder.encode(value, "UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-          throw new RuntimeException(e);
-        }
-      }
-    }
-
-    return build.toString();
+    return new String(FormURLEncoding.encode(parameters, StandardCharsets.UTF_8), StandardCharsets.US_ASCII);
   }
 
   /**
@@ -685,15 +983,19 @@ public class MockHttpServletRequest implements HttpServletRequest {
       throw new IOException("InputStream already retrieved.");
     }
 
-    if (inputStream == null) {
+    if (inputStream == null && isFormPost()) {
+      inputStream = newFormBody();
+    } else if (inputStream == null) {
       inputStream = new MockServletInputStream();
     }
 
+    count(Counter.BODY_OPENS);
     if (reader == null) {
+      InputStream is = metered();
       if (encoding != null) {
-        reader = new BufferedReader(new InputStreamReader(inputStream, encoding));
+        reader = new BufferedReader(new InputStreamReader(is, encoding));
       } else {
-        reader = new BufferedReader(new InputStreamReader(inputStream));
+        reader = new BufferedReader(new InputStreamReader(is));
       }
     }
 
@@ -804,18 +1106,13 @@ public class MockHttpServletRequest implements HttpServletRequest {
     } else {
 
       String pI = getPathInfo();
-      if (pI == null) {
-        fullPath = catPath(getServletPath(), thePath);
-      } else {
-        fullPath = catPath(getServletPath() + pI, thePath);
-      }
-
+      fullPath = catPath(getServletPath(), pI, thePath);
       if (fullPath == null) {
         return null;
       }
     }
 
-    dispatcher = new MockRequestDispatcher(fullPath);
+    dispatcher = new MockRequestDispatcher(context, fullPath);
     return dispatcher;
   }
 
@@ -929,6 +1226,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The session.
    */
   public HttpSession getSession() {
+    count(Counter.SESSION_TOUCHES);
     return container.getSession();
   }
 
@@ -945,6 +1243,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return The session.
    */
   public HttpSession getSession(boolean create) {
+    count(Counter.SESSION_TOUCHES);
     return container.getSession(create);
   }
 
@@ -957,12 +1256,16 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
   @Override
   public boolean isAsyncStarted() {
-    throw new UnsupportedOperationException();
+    return asyncContext != null && asyncContext.isStarted();
   }
 
+  /**
+   * @return True unless it was turned off using {@link #setAsyncSupported(boolean)} or by the MockServletContext because
+   * the servlet or a filter doesn't support async.
+   */
   @Override
   public boolean isAsyncSupported() {
-    throw new UnsupportedOperationException();
+    return asyncSupported;
   }
 
   /**
@@ -1023,6 +1326,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param name The name of the attribute.
    */
   public void removeAttribute(String name) {
+    count(Counter.REQUEST_ATTRIBUTE_WRITES);
     attributes.remove(name);
   }
 
@@ -1032,6 +1336,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param name The name.
    */
   public void removeHeader(String name) {
+    count(Counter.HEADER_WRITES);
     headers.remove(name);
   }
 
@@ -1041,6 +1346,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param name The name of the parameter.
    */
   public void removeParameter(String name) {
+    count(Counter.PARAMETER_WRITES);
     parameters.remove(name);
   }
 
@@ -1051,6 +1357,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param value The attribute value.
    */
   public void setAttribute(String name, Object value) {
+    count(Counter.REQUEST_ATTRIBUTE_WRITES);
     attributes.put(name, value);
   }
 
@@ -1074,6 +1381,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param value The value of the parameter.
    */
   public void setParameter(String name, String value) {
+    count(Counter.PARAMETER_WRITES);
     List<String> list = parameters.computeIfAbsent(name, k -> new ArrayList<>());
     list.add(value);
   }
@@ -1085,6 +1393,7 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @param values The values of the parameter.
    */
   public void setParameters(String name, String... values) {
+    count(Counter.PARAMETER_WRITES);
     parameters.put(name, asList(values));
   }
 
@@ -1110,14 +1419,24 @@ public class MockHttpServletRequest implements HttpServletRequest {
     this.uri = uri;
   }
 
+  /**
+   * Sets whether or not the request supports async.
+   *
+   * @param asyncSupported True if startAsync is allowed.
+   */
+  public void setAsyncSupported(boolean asyncSupported) {
+    this.asyncSupported = asyncSupported;
+  }
+
   @Override
   public AsyncContext startAsync() throws IllegalStateException {
-    throw new UnsupportedOperationException();
+    return startAsync(this, container.getResponse(), true);
   }
 
   @Override
   public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) throws IllegalStateException {
-    throw new UnsupportedOperationException();
+    return startAsync(servletRequest, servletResponse,
+        servletRequest == this && servletResponse == container.getResponse());
   }
 
   @Override
@@ -1125,6 +1444,22 @@ public class MockHttpServletRequest implements HttpServletRequest {
     throw new UnsupportedOperationException();
   }
 
+  protected synchronized AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse,
+                                                 boolean original) {
+    if (!asyncSupported) {
+      throw new IllegalStateException("The request does not support async");
+    }
+
+    if (asyncContext == null || asyncContext.getState() == MockAsyncContext.State.COMPLETED) {
+      asyncContext = new MockAsyncContext(this, servletRequest, servletResponse, original);
+      asyncContext.scheduleTimeout();
+    } else {
+      asyncContext.restart(servletRequest, servletResponse, original);
+    }
+
+    return asyncContext;
+  }
+
   protected String getBaseURL() {
     return scheme.toLowerCase() + "://" + serverName + (serverPort != 80 ? ":" + serverPort : "");
   }
@@ -1138,46 +1473,213 @@ public class MockHttpServletRequest implements HttpServletRequest {
    * @return the concatenated thePath or null if an error occurs
    */
   String catPath(String theLookupPath, String thePath) {
+    return catPath(theLookupPath, null, thePath);
+  }
+
+  /**
+   * Same as {@link #catPath(String, String)} except the lookup path is given in two parts (the servlet path and the
+   * path info) so they don't have to be concatenated first. This only scans the strings and builds the result once.
+   *
+   * @param servletPath The servlet path.
+   * @param pathInfo    The path info, which may be null.
+   * @param thePath     The part to add to the lookup path.
+   * @return The concatenated path or null if there are more ../ segments than directories.
+   */
+  String catPath(String servletPath, String pathInfo, String thePath) {
     // Cut off the last slash and everything beyond
-    int index = theLookupPath.lastIndexOf("/");
-    if (index == -1) {
+    int length = servletPath.length() + (pathInfo != null ? pathInfo.length() : 0);
+    int end = lastSlash(servletPath, pathInfo, length);
+    if (end == -1) {
       return thePath;
     }
 
-    theLookupPath = theLookupPath.substring(0, index);
-
-    // Deal with .. by chopping dirs off the lookup thePath
-    while (thePath.startsWith("../")) {
-      index = theLookupPath.lastIndexOf("/");
-      if (theLookupPath.length() > 0) {
-        theLookupPath = theLookupPath.substring(0, index);
-      } else {
+    // Deal with .. by moving the end of the lookup path back a directory at a time
+    int start = 0;
+    while (thePath.startsWith("../", start)) {
+      if (end == 0) {
         // More ..'s than dirs, return null
         return null;
       }
 
-      index = thePath.indexOf("../") + 3;
-      thePath = thePath.substring(index);
+      end = lastSlash(servletPath, pathInfo, end);
+      if (end == -1) {
+        return null;
+      }
+
+      start += 3;
+    }
+
+    StringBuilder build = new StringBuilder(end + 1 + thePath.length() - start);
+    if (end <= servletPath.length()) {
+      build.append(servletPath, 0, end);
+    } else {
+      build.append(servletPath).append(pathInfo, 0, end - servletPath.length());
     }
 
-    return theLookupPath + "/" + thePath;
+    return build.append('/').append(thePath, start, thePath.length()).toString();
   }
 
   /**
-   * Simulated how the container drains the InputStream when parameters are retrieved and the content-type is form
-   * encoded.
+   * @return The number of body bytes the application has read, or -1 if that can't be determined for the body.
+   */
+  long bodyBytesRead() {
+    if (metrics != null) {
+      return metrics.get(Counter.BODY_BYTES_READ);
+    } else if (inputStream == null) {
+      return 0;
+    } else if (inputStream instanceof MockServletInputStream) {
+      return ((MockServletInputStream) inputStream).position();
+    } else if (inputStream instanceof ChunkedInputStream) {
+      return ((ChunkedInputStream) inputStream).getBytesRead();
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the multipart layout for the boundary in the content type, compiling it the first time (unless the request
+   * was made from a template, which shares its layout).
    *
-   * @return True if the parameters are still good, false if there is an input stream to be used.
+   * @return The layout.
+   */
+  MultipartLayout multipartLayout() {
+    String boundary = MultipartParser.boundary(contentType);
+    if (boundary == null) {
+      boundary = MultipartLayout.DEFAULT_BOUNDARY;
+    }
+
+    if (multipartLayout == null || !multipartLayout.getBoundary().equals(boundary)) {
+      multipartLayout = new MultipartLayout(boundary, parameters, files);
+    }
+
+    return multipartLayout;
+  }
+
+  /**
+   * Builds the multipart body from the parameters and files.
+   */
+  MultipartInputStream newMultipartBody() throws IOException {
+    return new MultipartInputStream(multipartLayout(), parameters, files);
+  }
+
+  Charset charset() {
+    return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Encodes the parameters as the body of a form POST without changing the request.
+   */
+  byte[] formBody() {
+    return FormURLEncoding.encode(parameters, charset());
+  }
+
+  boolean isFormPost() {
+    return method == Method.POST && contentType != null && contentType.regionMatches(true, 0, "application/x-www-form-urlencoded", 0, 33);
+  }
+
+  private void count(Counter counter) {
+    if (metrics != null) {
+      metrics.increment(counter);
+    }
+  }
+
+  /**
+   * @return The body wrapped so the reads are counted, or the body itself if metrics are off. The wrapper is reused
+   * until the body is replaced, so retrieving the stream over and over doesn't allocate.
+   */
+  private ServletInputStream metered() {
+    if (metrics == null) {
+      return inputStream;
+    }
+
+    if (meteredInputStream == null || meteredInputStream.delegate != inputStream) {
+      meteredInputStream = new MockMetrics.MeteredInputStream(inputStream, metrics);
+    }
+
+    return meteredInputStream;
+  }
+
+  /**
+   * Decodes a form encoded POST body into the parameters the first time they are retrieved, the same way a container
+   * would. The body is read (without copying when it is a {@link MockServletInputStream} or a recordable
+   * {@link ChunkedInputStream}) and left in place, so the raw body can still be read afterwards. A custom InputStream is only decoded if the application hasn't retrieved it.
+   *
+   * @return True if the request is multipart, in which case the parameters are in the body and are not returned.
    */
   private boolean doesNotHaveParameters() {
-    if (method == Method.POST && contentType != null && contentType.equals("application/x-www-form-urlencoded")) {
-      inputStream = new MockServletInputStream(new byte[0]);
-      return false;
+    if (!parametersDecoded && inputStream != null && isFormPost()) {
+      parametersDecoded = true;
+      try {
+        byte[] body;
+        if (inputStream instanceof MockServletInputStream) {
+          body = ((MockServletInputStream) inputStream).bytes();
+        } else if (inputStream instanceof ChunkedInputStream && ((ChunkedInputStream) inputStream).isRecordable()) {
+          // The body stays chunked for the application
+          body = ((ChunkedInputStream) inputStream).bytes();
+        } else if (inputStreamRetrieved || readerRetrieved) {
+          // The application has already read (some of) the body itself
+          return !files.isEmpty();
+        } else {
+          ByteArrayOutputStream baos = new ByteArrayOutputStream();
+          byte[] buf = new byte[4096];
+          int len;
+          while ((len = inputStream.read(buf)) != -1) {
+            baos.write(buf, 0, len);
+          }
+
+          body = baos.toByteArray();
+          inputStream = new MockServletInputStream(body);
+        }
+
+        FormURLEncoding.decode(body, 0, body.length, charset(), parameters);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
     }
 
     return !files.isEmpty();
   }
 
+  /**
+   * Replaces the Content-Length header with <code>Transfer-Encoding: chunked</code> for a body whose length isn't
+   * known.
+   */
+  private void setStreamingHeaders() {
+    headers.keySet().removeIf(name -> name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding"));
+    List<String> values = new ArrayList<>();
+    values.add("chunked");
+    headers.put("Transfer-Encoding", values);
+  }
+
+  private boolean isMultipartFormData() {
+    return contentType != null && contentType.regionMatches(true, 0, "multipart/form-data", 0, 19) &&
+        MultipartParser.boundary(contentType) != null;
+  }
+
+  /**
+   * Encodes the parameters as the body of a form POST. The parameters are marked as decoded so they aren't added a
+   * second time from the body.
+   */
+  private MockServletInputStream newFormBody() {
+    parametersDecoded = true;
+    return new MockServletInputStream(formBody());
+  }
+
+  /**
+   * Finds the last slash before the given index in the servlet path and path info as if they were one String.
+   */
+  private static int lastSlash(String servletPath, String pathInfo, int before) {
+    int split = servletPath.length();
+    if (pathInfo != null && before > split) {
+      int index = pathInfo.lastIndexOf('/', before - split - 1);
+      if (index >= 0) {
+        return split + index;
+      }
+    }
+
+    return servletPath.lastIndexOf('/', Math.min(before, split) - 1);
+  }
+
   private void updateCommonHeaders() {
     headers.remove("Origin");
     headers.computeIfAbsent("Origin", key -> new ArrayList<>()).add(getBaseURL());
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.Cookie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.primeframework.mock.servlet.MockHttpServletRequest.Method;
+
+/**
+ * An immutable snapshot of a configured request that can be turned into new requests cheaply. Requests made from a
+ * template share its headers, parameters, attributes and body until they change them (see {@link CopyOnWriteMap}), so
+ * making a request doesn't depend on how many headers or parameters the template has.
+ * <p>
+ * Templates are made with {@link MockContainer#newServletRequestTemplate(String, Consumer)}, which configures a
+ * request using the normal setters and then takes a snapshot of it, and requests are made with
+ * {@link MockContainer#newServletRequest(MockHttpServletRequestTemplate)}.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockHttpServletRequestTemplate {
+  protected final Map<String, Object> attributes;
+
+  protected final byte[] body;
+
+  protected final String contentType;
+
+  protected final String contextPath;
+
+  protected final List<Cookie> cookies;
+
+  protected final String encoding;
+
+  protected final Map<String, List<FileInfo>> files;
+
+  protected final Map<String, List<String>> headers;
+
+  protected final List<Locale> locales;
+
+  protected final Method method;
+
+  protected final MultipartLayout multipartLayout;
+
+  protected final String overrideMethod;
+
+  protected final Map<String, List<String>> parameters;
+
+  protected final String protocol;
+
+  protected final String remoteAddr;
+
+  protected final String scheme;
+
+  protected final String serverName;
+
+  protected final int serverPort;
+
+  protected final String uri;
+
+  /**
+   * Takes a snapshot of the request. The request body is shared with the template if it is a
+   * {@link MockServletInputStream}, so it must not be changed afterwards. Any other kind of body isn't part of the
+   * template.
+   *
+   * @param request The request.
+   */
+  public MockHttpServletRequestTemplate(MockHttpServletRequest request) {
+    this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(request.attributes));
+    this.body = request.inputStream instanceof MockServletInputStream ? ((MockServletInputStream) request.inputStream).bytes() : null;
+    this.contentType = request.contentType;
+    this.contextPath = request.contextPath;
+    this.encoding = request.encoding;
+    this.files = freeze(request.files);
+    this.locales = Collections.unmodifiableList(new ArrayList<>(request.locales));
+    this.method = request.method;
+    this.overrideMethod = request.overrideMethod;
+    this.protocol = request.protocol;
+    this.remoteAddr = request.remoteAddr;
+    this.scheme = request.scheme;
+    this.serverName = request.serverName;
+    this.serverPort = request.serverPort;
+    this.uri = request.uri;
+
+    synchronized (request.headers) {
+      this.headers = freeze(request.headers);
+    }
+    this.parameters = freeze(request.parameters);
+
+    // Compile the multipart layout once so every request made from the template only splices in its values and files
+    if (files.isEmpty()) {
+      this.multipartLayout = null;
+    } else {
+      this.multipartLayout = request.multipartLayout();
+    }
+
+    List<Cookie> cookies = new ArrayList<>();
+    for (Cookie cookie : request.getCookiesList()) {
+      cookies.add((Cookie) cookie.clone());
+    }
+    this.cookies = Collections.unmodifiableList(cookies);
+  }
+
+  private static <T> Map<String, List<T>> freeze(Map<String, List<T>> map) {
+    Map<String, List<T>> copy = new LinkedHashMap<>();
+    map.forEach((key, values) -> copy.put(key, Collections.unmodifiableList(new ArrayList<>(values))));
+    return Collections.unmodifiableMap(copy);
+  }
+
+  public String getURI() {
+    return uri;
+  }
+
+  /**
+   * Creates a new template from this one with some changes, leaving this template unchanged.
+   *
+   * @param changes Changes a request made from this template before the new template takes a snapshot of it.
+   * @return The new template.
+   */
+  public MockHttpServletRequestTemplate with(Consumer<MockHttpServletRequest> changes) {
+    MockContainer container = new MockContainer();
+    MockHttpServletRequest request = container.newServletRequest(this);
+    changes.accept(request);
+    return new MockHttpServletRequestTemplate(request);
+  }
+}
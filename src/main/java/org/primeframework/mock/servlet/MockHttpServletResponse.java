@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2019, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.primeframework.mock.servlet.MockMetrics.Counter;
+
 /**
  * This class is a mock servlet response.
  *
@@ -79,6 +81,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
   }
 
   public void addHeader(String name, String value) {
+    count(Counter.RESPONSE_HEADER_WRITES);
     if (name != null && name.equalsIgnoreCase("Set-Cookie")) {
       addCookie(name + ": " + value);
     }
@@ -92,6 +95,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
   }
 
   public boolean containsHeader(String name) {
+    count(Counter.RESPONSE_HEADER_READS);
     return headers.containsKey(name);
   }
 
@@ -160,8 +164,17 @@ public class MockHttpServletResponse implements HttpServletResponse {
     this.encoding = encoding;
   }
 
+  /**
+   * @return The body decoded using the Content-Encoding header (or as is if there isn't one).
+   * @see MockServletOutputStream#decoded(String)
+   */
+  public DecodedBody getDecodedBody() {
+    return stream.decoded(getHeader("Content-Encoding"));
+  }
+
   @Override
   public String getHeader(String name) {
+    count(Counter.RESPONSE_HEADER_READS);
     List<String> list = headers.get(name);
     if (list == null || list.isEmpty()) {
       return null;
@@ -172,11 +185,13 @@ public class MockHttpServletResponse implements HttpServletResponse {
 
   @Override
   public Collection<String> getHeaderNames() {
+    count(Counter.RESPONSE_HEADER_READS);
     return headers.keySet();
   }
 
   @Override
   public Collection<String> getHeaders(String name) {
+    count(Counter.RESPONSE_HEADER_READS);
     List<String> list = headers.get(name);
     if (list == null || list.isEmpty()) {
       return null;
@@ -218,7 +233,8 @@ public class MockHttpServletResponse implements HttpServletResponse {
   }
 
   public ServletOutputStream getOutputStream() {
-    return stream;
+    MockMetrics metrics = metrics();
+    return metrics != null ? new MockMetrics.MeteredOutputStream(stream, metrics) : stream;
   }
 
   public String getRedirect() {
@@ -255,7 +271,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
   }
 
   public PrintWriter getWriter() {
-    return new PrintWriter(stream);
+    return new PrintWriter(getOutputStream());
   }
 
   public boolean isCommitted() {
@@ -286,8 +302,14 @@ public class MockHttpServletResponse implements HttpServletResponse {
     this.reset = true;
   }
 
+  /**
+   * Discards the body written so far, unless the response has been committed.
+   */
   public void resetBuffer() {
     this.reset = true;
+    if (!committed) {
+      stream.baos.reset();
+    }
   }
 
   public void sendError(int code, String message) {
@@ -318,6 +340,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
   }
 
   public void setHeader(String name, String value) {
+    count(Counter.RESPONSE_HEADER_WRITES);
     if (name != null && name.equalsIgnoreCase("Set-Cookie")) {
       addCookie(name + ": " + value);
     }
@@ -335,6 +358,17 @@ public class MockHttpServletResponse implements HttpServletResponse {
     this.message = message;
   }
 
+  private void count(Counter counter) {
+    MockMetrics metrics = metrics();
+    if (metrics != null) {
+      metrics.increment(counter);
+    }
+  }
+
+  private MockMetrics metrics() {
+    return container != null ? container.currentMetrics() : null;
+  }
+
   private void addCookie(String headerValue) {
     for (HttpCookie c : HttpCookie.parse(headerValue)) {
       Cookie cookie = new Cookie(c.getName(), c.getValue());
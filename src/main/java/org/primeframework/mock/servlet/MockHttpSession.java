@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2018, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
 
+import org.primeframework.mock.lang.FlightRecorder;
+import org.primeframework.mock.servlet.MockMetrics.Counter;
+
 /**
  * This is a mock session.
  *
@@ -50,10 +53,12 @@ public class MockHttpSession implements HttpSession {
   }
 
   public Object getAttribute(String name) {
+    count(Counter.SESSION_ATTRIBUTE_READS);
     return attributes.get(name);
   }
 
   public Enumeration getAttributeNames() {
+    count(Counter.SESSION_ATTRIBUTE_READS);
     return new Vector(attributes.keySet()).elements();
   }
 
@@ -98,6 +103,7 @@ public class MockHttpSession implements HttpSession {
   }
 
   public Object getValue(String name) {
+    count(Counter.SESSION_ATTRIBUTE_READS);
     return attributes.get(name);
   }
 
@@ -106,6 +112,8 @@ public class MockHttpSession implements HttpSession {
   }
 
   public void invalidate() {
+    container.getContext().sessionDestroyed(this);
+    FlightRecorder.sessionInvalidated(getId());
     attributes.clear();
     container.resetSession();
     created = ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.of("UTC"));
@@ -116,18 +124,29 @@ public class MockHttpSession implements HttpSession {
   }
 
   public void putValue(String name, Object value) {
+    count(Counter.SESSION_ATTRIBUTE_WRITES);
     attributes.put(name, value);
   }
 
   public void removeAttribute(String name) {
+    count(Counter.SESSION_ATTRIBUTE_WRITES);
     attributes.remove(name);
   }
 
   public void removeValue(String name) {
+    count(Counter.SESSION_ATTRIBUTE_WRITES);
     attributes.remove(name);
   }
 
   public void setAttribute(String name, Object value) {
+    count(Counter.SESSION_ATTRIBUTE_WRITES);
     attributes.put(name, value);
   }
+
+  private void count(Counter counter) {
+    MockMetrics metrics = container.currentMetrics();
+    if (metrics != null) {
+      metrics.increment(counter);
+    }
+  }
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how the code under test uses the mocks. Metrics are off unless {@link MockContainer#enableMetrics()} is
+ * called, and when they are off the mocks only pay for a null check.
+ * <p>
+ * Each request gets its own metrics ({@link MockHttpServletRequest#getMetrics()}) and every count is also added to the
+ * container's aggregate ({@link MockContainer#getMetrics()}). Session and servlet context operations are counted
+ * against the container's current request. All of the counts are thread safe, so async requests can be counted too.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockMetrics {
+  private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+  private final AtomicLong firstByteCount = new AtomicLong();
+
+  private final AtomicLong firstByteMax = new AtomicLong();
+
+  private final AtomicLong firstByteTotal = new AtomicLong();
+
+  private final MockMetrics parent;
+
+  private final AtomicLong requests = new AtomicLong();
+
+  private final long started = System.nanoTime();
+
+  private volatile long timeToFirstByte = -1;
+
+  /**
+   * Creates the aggregate metrics for a container.
+   */
+  public MockMetrics() {
+    this.parent = null;
+  }
+
+  /**
+   * Creates the metrics for a single request that also add to the aggregate.
+   *
+   * @param parent The aggregate.
+   */
+  public MockMetrics(MockMetrics parent) {
+    this.parent = parent;
+    parent.requests.incrementAndGet();
+  }
+
+  public void add(Counter counter, long count) {
+    counters.addAndGet(counter.ordinal(), count);
+    if (parent != null) {
+      parent.add(counter, count);
+    }
+  }
+
+  public long get(Counter counter) {
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * @return The average time to first byte of the requests in nanoseconds (for the aggregate), or the time for a single
+   * request. -1 if nothing has been written.
+   */
+  public long getAverageTimeToFirstByte() {
+    long count = firstByteCount.get();
+    return count == 0 ? -1 : firstByteTotal.get() / count;
+  }
+
+  /**
+   * @return The longest time to first byte in nanoseconds, or -1 if nothing has been written.
+   */
+  public long getMaxTimeToFirstByte() {
+    return firstByteCount.get() == 0 ? -1 : firstByteMax.get();
+  }
+
+  /**
+   * @return The number of requests that were counted (for the aggregate).
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * @return The nanoseconds between the request being created and the first byte of the response being written, or
+   * -1 if nothing has been written. This is only set for a single request.
+   */
+  public long getTimeToFirstByte() {
+    return timeToFirstByte;
+  }
+
+  public void increment(Counter counter) {
+    add(counter, 1);
+  }
+
+  /**
+   * Clears all of the counts and the time to first byte.
+   */
+  public void reset() {
+    for (int i = 0; i < counters.length(); i++) {
+      counters.set(i, 0);
+    }
+
+    firstByteCount.set(0);
+    firstByteMax.set(0);
+    firstByteTotal.set(0);
+    requests.set(0);
+    timeToFirstByte = -1;
+  }
+
+  /**
+   * @return The non-zero counts.
+   */
+  public Map<Counter, Long> toMap() {
+    Map<Counter, Long> map = new EnumMap<>(Counter.class);
+    for (Counter counter : Counter.values()) {
+      long value = get(counter);
+      if (value != 0) {
+        map.put(counter, value);
+      }
+    }
+
+    return map;
+  }
+
+  @Override
+  public String toString() {
+    return "MockMetrics{requests=" + requests + ", timeToFirstByte=" + timeToFirstByte + ", counts=" + toMap() + "}";
+  }
+
+  /**
+   * Records the first byte of the response the first time it is called.
+   */
+  void firstByteWritten() {
+    if (timeToFirstByte == -1) {
+      synchronized (this) {
+        if (timeToFirstByte == -1) {
+          timeToFirstByte = System.nanoTime() - started;
+          recordFirstByte(timeToFirstByte);
+          if (parent != null) {
+            parent.recordFirstByte(timeToFirstByte);
+          }
+        }
+      }
+    }
+  }
+
+  private void recordFirstByte(long nanos) {
+    firstByteCount.incrementAndGet();
+    firstByteTotal.addAndGet(nanos);
+    firstByteMax.accumulateAndGet(nanos, Math::max);
+  }
+
+  public enum Counter {
+    BODY_BYTES_READ,
+    BODY_BYTES_WRITTEN,
+    BODY_OPENS,
+    CONTEXT_ATTRIBUTE_READS,
+    CONTEXT_ATTRIBUTE_WRITES,
+    HEADER_READS,
+    HEADER_WRITES,
+    PARAMETER_READS,
+    PARAMETER_WRITES,
+    REQUEST_ATTRIBUTE_READS,
+    REQUEST_ATTRIBUTE_WRITES,
+    RESPONSE_HEADER_READS,
+    RESPONSE_HEADER_WRITES,
+    SESSION_ATTRIBUTE_READS,
+    SESSION_ATTRIBUTE_WRITES,
+    SESSION_TOUCHES
+  }
+
+  /**
+   * Counts the bytes read or skipped from a request body.
+   */
+  static class MeteredInputStream extends ServletInputStream {
+    final ServletInputStream delegate;
+
+    private final MockMetrics metrics;
+
+    MeteredInputStream(ServletInputStream delegate, MockMetrics metrics) {
+      this.delegate = delegate;
+      this.metrics = metrics;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return delegate.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return delegate.isFinished();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = delegate.read();
+      if (b >= 0) {
+        metrics.increment(Counter.BODY_BYTES_READ);
+      }
+
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = delegate.read(b, off, len);
+      if (count > 0) {
+        metrics.add(Counter.BODY_BYTES_READ, count);
+      }
+
+      return count;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      delegate.setReadListener(readListener);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long count = delegate.skip(n);
+      if (count > 0) {
+        metrics.add(Counter.BODY_BYTES_READ, count);
+      }
+
+      return count;
+    }
+  }
+
+  /**
+   * Counts the bytes written to a response body and records the time to the first byte.
+   */
+  static class MeteredOutputStream extends ServletOutputStream {
+    private final ServletOutputStream delegate;
+
+    private final MockMetrics metrics;
+
+    MeteredOutputStream(ServletOutputStream delegate, MockMetrics metrics) {
+      this.delegate = delegate;
+      this.metrics = metrics;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      delegate.setWriteListener(writeListener);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      metrics.firstByteWritten();
+      metrics.increment(Counter.BODY_BYTES_WRITTEN);
+      delegate.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len > 0) {
+        metrics.firstByteWritten();
+        metrics.add(Counter.BODY_BYTES_WRITTEN, len);
+      }
+
+      delegate.write(b, off, len);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.Part;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A part of a multipart request created by the {@link MultipartParser}. The content is either a slice of a byte array
+ * (which is usually the request body itself) or a temporary file.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockPart implements Part {
+  protected final Map<String, List<String>> headers;
+
+  protected final File location;
+
+  protected final int offset;
+
+  protected final long size;
+
+  protected byte[] bytes;
+
+  protected File file;
+
+  protected boolean temporary;
+
+  public MockPart(Map<String, List<String>> headers, byte[] bytes, int offset, int length, File location) {
+    this.headers = headers;
+    this.bytes = bytes;
+    this.offset = offset;
+    this.size = length;
+    this.location = location;
+  }
+
+  public MockPart(Map<String, List<String>> headers, File file, long size, File location) {
+    this.headers = headers;
+    this.file = file;
+    this.temporary = true;
+    this.offset = 0;
+    this.size = size;
+    this.location = location;
+  }
+
+  /**
+   * Pulls a parameter such as <code>name</code> or <code>filename</code> out of a Content-Disposition header.
+   *
+   * @param header The header.
+   * @param name   The name of the parameter.
+   * @return The value (without quotes) or null if the parameter isn't in the header.
+   */
+  static String dispositionParameter(String header, String name) {
+    int index = 0;
+    while (index < header.length()) {
+      int semicolon = header.indexOf(';', index);
+      if (semicolon < 0) {
+        return null;
+      }
+
+      int start = semicolon + 1;
+      while (start < header.length() && header.charAt(start) == ' ') {
+        start++;
+      }
+
+      int equals = header.indexOf('=', start);
+      if (equals < 0) {
+        return null;
+      }
+
+      int end;
+      String value;
+      if (equals + 1 < header.length() && header.charAt(equals + 1) == '"') {
+        end = header.indexOf('"', equals + 2);
+        end = end < 0 ? header.length() : end;
+        value = header.substring(equals + 2, end);
+      } else {
+        end = header.indexOf(';', equals);
+        end = end < 0 ? header.length() : end;
+        value = header.substring(equals + 1, end).trim();
+      }
+
+      if (header.substring(start, equals).trim().equalsIgnoreCase(name)) {
+        return value;
+      }
+
+      index = end;
+    }
+
+    return null;
+  }
+
+  @Override
+  public void delete() throws IOException {
+    if (file != null && temporary) {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+
+  @Override
+  public String getContentType() {
+    return getHeader("Content-Type");
+  }
+
+  /**
+   * @return The file that holds the content or null if the content is in memory.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  @Override
+  public Collection<String> getHeaderNames() {
+    return Collections.unmodifiableCollection(new ArrayList<>(headers.keySet()));
+  }
+
+  @Override
+  public Collection<String> getHeaders(String name) {
+    List<String> values = headers.get(name);
+    return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    if (file != null) {
+      return new FileInputStream(file);
+    }
+
+    return new ByteArrayInputStream(bytes, offset, (int) size);
+  }
+
+  @Override
+  public String getName() {
+    String disposition = getHeader("Content-Disposition");
+    return disposition == null ? null : dispositionParameter(disposition, "name");
+  }
+
+  @Override
+  public long getSize() {
+    return size;
+  }
+
+  @Override
+  public String getSubmittedFileName() {
+    String disposition = getHeader("Content-Disposition");
+    return disposition == null ? null : dispositionParameter(disposition, "filename");
+  }
+
+  /**
+   * @return True if the content is in memory rather than in a temporary file.
+   */
+  public boolean isInMemory() {
+    return file == null;
+  }
+
+  @Override
+  public String toString() {
+    return "MockPart{name=" + getName() + ", size=" + size + ", inMemory=" + isInMemory() + "}";
+  }
+
+  /**
+   * Writes the content to the given file. Relative names are resolved against the location of the multipart config. A
+   * part that is in a temporary file is moved rather than copied.
+   *
+   * @param fileName The file name.
+   * @throws IOException If the write fails.
+   */
+  @Override
+  public void write(String fileName) throws IOException {
+    File target = new File(fileName);
+    if (!target.isAbsolute()) {
+      target = new File(location, fileName);
+    }
+
+    if (file != null) {
+      Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      file = target;
+      temporary = false;
+      return;
+    }
+
+    try (OutputStream os = new FileOutputStream(target)) {
+      os.write(bytes, offset, (int) size);
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2007, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,32 +16,91 @@
  */
 package org.primeframework.mock.servlet;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * This is a mock request dispatcher.
+ * This is a mock request dispatcher. It always records that it was forwarded or included. If it was created by a
+ * {@link MockServletContext} and a servlet is mapped to the URI, it also runs the filters and the servlet.
  *
  * @author Brian Pontarelli
  */
 public class MockRequestDispatcher implements RequestDispatcher {
+  protected MockServletContext context;
+  protected ServletMappingTable.Match match;
+  protected MockServletRegistration named;
+  protected String path;
+  protected String queryString;
   protected String uri;
   protected boolean forwarded;
   protected boolean included;
+  private boolean resolved;
 
   public MockRequestDispatcher(String uri) {
     this.uri = uri;
   }
 
+  public MockRequestDispatcher(MockServletContext context, String uri) {
+    this.context = context;
+    this.uri = uri;
+  }
+
+  public MockRequestDispatcher(MockServletContext context, MockServletRegistration named) {
+    this.context = context;
+    this.named = named;
+  }
+
   public void forward(ServletRequest servletRequest, ServletResponse servletResponse) throws ServletException, IOException {
     forwarded = true;
+    dispatch(servletRequest, servletResponse, DispatcherType.FORWARD);
   }
 
   public void include(ServletRequest servletRequest, ServletResponse servletResponse) throws ServletException, IOException {
     included = true;
+    dispatch(servletRequest, servletResponse, DispatcherType.INCLUDE);
+  }
+
+  /**
+   * @return The path info the target servlet sees when this dispatcher forwards, or null if the URI isn't mapped to a
+   * servlet.
+   */
+  public String getPathInfo() {
+    ServletMappingTable.Match match = resolve();
+    return match != null ? match.pathInfo : null;
+  }
+
+  /**
+   * @return The servlet path the target servlet sees when this dispatcher forwards, or null if the URI isn't mapped to
+   * a servlet.
+   */
+  public String getServletPath() {
+    ServletMappingTable.Match match = resolve();
+    return match != null ? match.servletPath : null;
+  }
+
+  /**
+   * @return The servlet this dispatcher sends requests to or null if there isn't one.
+   */
+  public MockServletRegistration getTarget() {
+    ServletMappingTable.Match match = resolve();
+    return match != null ? match.registration : named;
   }
 
   public String getUri() {
@@ -55,4 +114,301 @@ public class MockRequestDispatcher implements RequestDispatcher {
   public boolean isIncluded() {
     return included;
   }
-}
\ No newline at end of file
+
+  /**
+   * Runs the target servlet (and the filters mapped for the dispatcher type) using a request that reports the path of
+   * the target for forwards and async dispatches and the original path for includes, as the Servlet specification
+   * requires. Only includes wrap the response so that the target can't change the status or headers.
+   *
+   * @param servletRequest  The request.
+   * @param servletResponse The response.
+   * @param type            The dispatcher type.
+   */
+  protected void dispatch(ServletRequest servletRequest, ServletResponse servletResponse, DispatcherType type)
+      throws ServletException, IOException {
+    if (context == null) {
+      return;
+    }
+
+    ServletMappingTable.Match match = resolve();
+    MockServletRegistration target = getTarget();
+    if (target == null) {
+      return;
+    }
+
+    HttpServletRequest request = (HttpServletRequest) servletRequest;
+    HttpServletResponse response = (HttpServletResponse) servletResponse;
+    MockFilterChain chain = context.newFilterChain(path, target, type);
+    if (type == DispatcherType.FORWARD || type == DispatcherType.ASYNC) {
+      if (type == DispatcherType.FORWARD) {
+        if (response.isCommitted()) {
+          throw new IllegalStateException("Unable to forward because the response has already been committed");
+        }
+
+        // Anything the caller wrote before forwarding is discarded
+        response.resetBuffer();
+      }
+
+      // The async attributes are set by the MockAsyncContext, so only forwards set attributes here
+      DispatchedRequest wrapper = new DispatchedRequest(request, type);
+      wrapper.mergeParameters(queryString);
+      if (match != null) {
+        if (type == DispatcherType.FORWARD) {
+          setAttributeIfAbsent(request, FORWARD_REQUEST_URI, request.getRequestURI());
+          setAttributeIfAbsent(request, FORWARD_CONTEXT_PATH, request.getContextPath());
+          setAttributeIfAbsent(request, FORWARD_SERVLET_PATH, request.getServletPath());
+          setAttributeIfAbsent(request, FORWARD_PATH_INFO, request.getPathInfo());
+          setAttributeIfAbsent(request, FORWARD_QUERY_STRING, request.getQueryString());
+        }
+
+        wrapper.requestURI = request.getContextPath() + path;
+        wrapper.servletPath = match.servletPath;
+        wrapper.pathInfo = match.pathInfo;
+        wrapper.queryString = queryString != null ? queryString : request.getQueryString();
+      }
+
+      chain.doFilter(wrapper, response);
+      return;
+    }
+
+    Object[] previous = null;
+    if (match != null) {
+      previous = new Object[]{
+          request.getAttribute(INCLUDE_REQUEST_URI), request.getAttribute(INCLUDE_CONTEXT_PATH),
+          request.getAttribute(INCLUDE_SERVLET_PATH), request.getAttribute(INCLUDE_PATH_INFO),
+          request.getAttribute(INCLUDE_QUERY_STRING)
+      };
+      request.setAttribute(INCLUDE_REQUEST_URI, request.getContextPath() + path);
+      request.setAttribute(INCLUDE_CONTEXT_PATH, request.getContextPath());
+      request.setAttribute(INCLUDE_SERVLET_PATH, match.servletPath);
+      request.setAttribute(INCLUDE_PATH_INFO, match.pathInfo);
+      request.setAttribute(INCLUDE_QUERY_STRING, queryString);
+    }
+
+    DispatchedRequest wrapper = new DispatchedRequest(request, type);
+    wrapper.mergeParameters(queryString);
+    try {
+      chain.doFilter(wrapper, new IncludedResponse(response));
+    } finally {
+      if (previous != null) {
+        restoreAttribute(request, INCLUDE_REQUEST_URI, previous[0]);
+        restoreAttribute(request, INCLUDE_CONTEXT_PATH, previous[1]);
+        restoreAttribute(request, INCLUDE_SERVLET_PATH, previous[2]);
+        restoreAttribute(request, INCLUDE_PATH_INFO, previous[3]);
+        restoreAttribute(request, INCLUDE_QUERY_STRING, previous[4]);
+      }
+    }
+  }
+
+  /**
+   * Resolves the URI against the servlet mappings of the context the first time it is needed. The mappings are
+   * compiled by the context, so this is a single lookup.
+   *
+   * @return The match or null if this is a named dispatcher or nothing is mapped to the URI.
+   */
+  protected ServletMappingTable.Match resolve() {
+    if (!resolved && context != null && uri != null) {
+      path = uri;
+      int index = path.indexOf('?');
+      if (index >= 0) {
+        queryString = path.substring(index + 1);
+        path = path.substring(0, index);
+      }
+
+      match = context.getMappingTable().match(path);
+      resolved = true;
+    }
+
+    return match;
+  }
+
+  private void restoreAttribute(HttpServletRequest request, String name, Object value) {
+    if (value == null) {
+      request.removeAttribute(name);
+    } else {
+      request.setAttribute(name, value);
+    }
+  }
+
+  private void setAttributeIfAbsent(HttpServletRequest request, String name, Object value) {
+    if (request.getAttribute(name) == null && value != null) {
+      request.setAttribute(name, value);
+    }
+  }
+
+  /**
+   * The request handed to the target of a dispatch. Everything is delegated to the original request except the
+   * dispatcher type, the parameters from the query string of the dispatch path and, for forwards and async dispatches,
+   * the path elements of the target.
+   */
+  static class DispatchedRequest extends HttpServletRequestWrapper {
+    final DispatcherType dispatcherType;
+
+    Map<String, List<String>> parameters;
+
+    String pathInfo;
+
+    String queryString;
+
+    String requestURI;
+
+    String servletPath;
+
+    DispatchedRequest(HttpServletRequest request, DispatcherType dispatcherType) {
+      super(request);
+      this.dispatcherType = dispatcherType;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+      return dispatcherType;
+    }
+
+    @Override
+    public String getParameter(String name) {
+      if (parameters == null) {
+        return super.getParameter(name);
+      }
+
+      List<String> values = parameters.get(name);
+      return values != null ? values.get(0) : null;
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+      if (parameters == null) {
+        return super.getParameterMap();
+      }
+
+      Map<String, String[]> map = new LinkedHashMap<>();
+      parameters.forEach((name, values) -> map.put(name, values.toArray(new String[0])));
+      return map;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+      return parameters != null ? Collections.enumeration(parameters.keySet()) : super.getParameterNames();
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+      if (parameters == null) {
+        return super.getParameterValues(name);
+      }
+
+      List<String> values = parameters.get(name);
+      return values != null ? values.toArray(new String[0]) : null;
+    }
+
+    @Override
+    public String getPathInfo() {
+      return requestURI != null ? pathInfo : super.getPathInfo();
+    }
+
+    @Override
+    public String getQueryString() {
+      return requestURI != null ? queryString : super.getQueryString();
+    }
+
+    @Override
+    public String getRequestURI() {
+      return requestURI != null ? requestURI : super.getRequestURI();
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+      if (requestURI == null) {
+        return super.getRequestURL();
+      }
+
+      StringBuffer url = new StringBuffer();
+      url.append(getScheme().toLowerCase()).append("://").append(getServerName());
+      if (getServerPort() != 80) {
+        url.append(':').append(getServerPort());
+      }
+
+      return url.append(requestURI);
+    }
+
+    @Override
+    public String getServletPath() {
+      return requestURI != null ? servletPath : super.getServletPath();
+    }
+
+    /**
+     * Adds the parameters from the query string of the dispatch path in front of the request's own parameters, so the
+     * new values take precedence, as the Servlet specification requires.
+     */
+    void mergeParameters(String queryString) {
+      if (queryString == null || queryString.isEmpty()) {
+        return;
+      }
+
+      String encoding = getCharacterEncoding();
+      parameters = new LinkedHashMap<>();
+      FormURLEncoding.decode(queryString, encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8,
+          parameters);
+      for (Map.Entry<String, String[]> entry : super.getParameterMap().entrySet()) {
+        parameters.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).addAll(Arrays.asList(entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * The response handed to the target of an include. The Servlet specification doesn't allow an included servlet to
+   * change the status or the headers, so those calls are ignored.
+   */
+  static class IncludedResponse extends HttpServletResponseWrapper {
+    IncludedResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setContentType(String type) {
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+    }
+
+    @Override
+    public void setStatus(int sc) {
+    }
+
+    /**
+     * @deprecated
+     */
+    @Deprecated
+    @Override
+    public void setStatus(int sc, String sm) {
+    }
+  }
+}
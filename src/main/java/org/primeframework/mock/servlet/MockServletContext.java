@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2019, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,31 +16,48 @@
  */
 package org.primeframework.mock.servlet;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterRegistration;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.Servlet;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRegistration;
 import javax.servlet.ServletRegistration.Dynamic;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
 import javax.servlet.SessionCookieConfig;
 import javax.servlet.SessionTrackingMode;
 import javax.servlet.descriptor.JspConfigDescriptor;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.EventListener;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.primeframework.mock.lang.ClassPath;
+import org.primeframework.mock.lang.ClassPath.ClassPathBuilder;
+import org.primeframework.mock.lang.FlightRecorder;
+import org.primeframework.mock.servlet.MockMetrics.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +68,12 @@ import org.slf4j.LoggerFactory;
  */
 @SuppressWarnings("unchecked")
 public class MockServletContext implements ServletContext {
+  /**
+   * The system property for a ClassPath cache file. When it is set, contexts build the classpath in parallel and reuse
+   * the cached result while the classpath hasn't changed (see {@link ClassPathBuilder#setParallel(boolean)}).
+   */
+  public static final String CLASS_PATH_CACHE = "primeframework.mock.classPathCache";
+
   public static final String WEB_INF_LIB = "/WEB-INF/lib";
 
   private final static Logger logger = LoggerFactory.getLogger(MockServletContext.class);
@@ -63,10 +86,34 @@ public class MockServletContext implements ServletContext {
 
   public File webDir;
 
+  protected final List<MockFilterRegistration.FilterMapping> filterMappings = new CopyOnWriteArrayList<>();
+
+  protected final Map<String, MockFilterRegistration> filters = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  protected final List<EventListener> listeners = new CopyOnWriteArrayList<>();
+
+  protected final Map<String, MockServletRegistration> servlets = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  protected MockContainer container;
+
+  protected int filterMappingsBefore;
+
+  protected boolean initialized;
+
+  protected volatile ServletMappingTable mappingTable;
+
   protected MockServletContext() {
     logger.debug("Built MockServletContext without webDir");
     try {
-      classPath = ClassPath.getCurrentClassPath();
+      String cacheFile = System.getProperty(CLASS_PATH_CACHE);
+      if (cacheFile == null) {
+        classPath = ClassPath.getCurrentClassPath();
+      } else {
+        ClassPathBuilder builder = ClassPath.build();
+        builder.setParallel(true);
+        builder.setCacheFile(new File(cacheFile));
+        classPath = builder.build();
+      }
     } catch (IOException e) {
       throw new RuntimeException("Unable to determine current classpath");
     }
@@ -80,62 +127,95 @@ public class MockServletContext implements ServletContext {
 
   @Override
   public FilterRegistration.Dynamic addFilter(String filterName, String className) {
-    throw new UnsupportedOperationException();
+    return addFilter(filterName, loadClass(className, Filter.class));
   }
 
   @Override
   public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
-    throw new UnsupportedOperationException();
+    return addFilter(new MockFilterRegistration(this, filterName, filter));
   }
 
   @Override
   public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
-    throw new UnsupportedOperationException();
+    return addFilter(new MockFilterRegistration(this, filterName, filterClass));
   }
 
   @Override
   public void addListener(String className) {
-    throw new UnsupportedOperationException();
+    addListener(loadClass(className, EventListener.class));
   }
 
   @Override
   public <T extends EventListener> void addListener(T t) {
-    throw new UnsupportedOperationException();
+    if (!(t instanceof ServletContextListener) && !(t instanceof ServletRequestListener) &&
+        !(t instanceof HttpSessionListener)) {
+      throw new IllegalArgumentException("Unsupported listener type [" + t.getClass().getName() + "]. Only " +
+          "ServletContextListener, ServletRequestListener and HttpSessionListener are supported.");
+    }
+
+    listeners.add(t);
   }
 
   @Override
   public void addListener(Class<? extends EventListener> listenerClass) {
-    throw new UnsupportedOperationException();
+    try {
+      addListener(createListener(listenerClass));
+    } catch (ServletException e) {
+      throw new IllegalArgumentException(e);
+    }
   }
 
   @Override
   public Dynamic addServlet(String servletName, String className) {
-    throw new UnsupportedOperationException();
+    return addServlet(servletName, loadClass(className, Servlet.class));
   }
 
   @Override
   public Dynamic addServlet(String servletName, Servlet servlet) {
-    throw new UnsupportedOperationException();
+    return addServlet(new MockServletRegistration(this, servletName, servlet));
   }
 
   @Override
   public Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
-    throw new UnsupportedOperationException();
+    return addServlet(new MockServletRegistration(this, servletName, servletClass));
   }
 
   @Override
-  public <T extends Filter> T createFilter(Class<T> clazz) {
-    throw new UnsupportedOperationException();
+  public <T extends Filter> T createFilter(Class<T> clazz) throws ServletException {
+    return instantiate(clazz);
   }
 
   @Override
-  public <T extends EventListener> T createListener(Class<T> clazz) {
-    throw new UnsupportedOperationException();
+  public <T extends EventListener> T createListener(Class<T> clazz) throws ServletException {
+    return instantiate(clazz);
   }
 
   @Override
-  public <T extends Servlet> T createServlet(Class<T> clazz) {
-    throw new UnsupportedOperationException();
+  public <T extends Servlet> T createServlet(Class<T> clazz) throws ServletException {
+    return instantiate(clazz);
+  }
+
+  /**
+   * Destroys all of the servlets and filters and notifies the context listeners in reverse order. After this, the
+   * context can be initialized again.
+   */
+  public synchronized void destroy() {
+    if (!initialized) {
+      return;
+    }
+
+    servlets.values().forEach(MockServletRegistration::destroy);
+    filters.values().forEach(MockFilterRegistration::destroy);
+
+    ServletContextEvent event = new ServletContextEvent(this);
+    for (int i = listeners.size() - 1; i >= 0; i--) {
+      EventListener listener = listeners.get(i);
+      if (listener instanceof ServletContextListener) {
+        ((ServletContextListener) listener).contextDestroyed(event);
+      }
+    }
+
+    initialized = false;
   }
 
   @Override
@@ -144,16 +224,19 @@ public class MockServletContext implements ServletContext {
   }
 
   public Object getAttribute(String name) {
+    count(Counter.CONTEXT_ATTRIBUTE_READS);
     return attributes.get(name);
   }
 
   public Enumeration getAttributeNames() {
+    count(Counter.CONTEXT_ATTRIBUTE_READS);
     return new Vector(attributes.keySet()).elements();
   }
 
   @Override
   public ClassLoader getClassLoader() {
-    throw new UnsupportedOperationException();
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    return classLoader != null ? classLoader : MockServletContext.class.getClassLoader();
   }
 
   public ServletContext getContext(String s) {
@@ -187,12 +270,12 @@ public class MockServletContext implements ServletContext {
 
   @Override
   public FilterRegistration getFilterRegistration(String filterName) {
-    throw new UnsupportedOperationException();
+    return filters.get(filterName);
   }
 
   @Override
   public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
-    throw new UnsupportedOperationException();
+    return Collections.unmodifiableMap(new LinkedHashMap<>(filters));
   }
 
   public String getInitParameter(String s) {
@@ -220,8 +303,13 @@ public class MockServletContext implements ServletContext {
     return 0;
   }
 
-  public RequestDispatcher getNamedDispatcher(String s) {
-    return null;
+  public RequestDispatcher getNamedDispatcher(String name) {
+    MockServletRegistration registration = servlets.get(name);
+    if (registration == null) {
+      return null;
+    }
+
+    return new MockRequestDispatcher(this, registration);
   }
 
   public String getRealPath(String path) {
@@ -237,33 +325,19 @@ public class MockServletContext implements ServletContext {
     return null;
   }
 
-  public RequestDispatcher getRequestDispatcher(String s) {
-    return null;
-  }
-
-  public URL getResource(String path) throws MalformedURLException {
-    if (path.startsWith(WEB_INF_LIB)) {
-      String jarFile = path.substring(WEB_INF_LIB.length());
-      List<String> entries = classPath.getNames();
-      for (String entry : entries) {
-        if (entry.endsWith(jarFile)) {
-          return new File(entry).toURI().toURL();
-        }
-      }
-
+  public RequestDispatcher getRequestDispatcher(String path) {
+    if (path == null || !path.startsWith("/")) {
       return null;
-    } else {
-      if (path.startsWith("/")) {
-        path = path.substring(1);
-      }
+    }
 
-      File f = new File(webDir, path);
-      if (f.isFile()) {
-        return f.toURI().toURL();
-      }
+    return new MockRequestDispatcher(this, path);
+  }
 
-      return null;
-    }
+  public URL getResource(String path) throws MalformedURLException {
+    Object event = FlightRecorder.beginResourceLoad();
+    URL url = findResource(path);
+    FlightRecorder.endResourceLoad(event, path, url != null);
+    return url;
   }
 
   public InputStream getResourceAsStream(String path) {
@@ -332,12 +406,12 @@ public class MockServletContext implements ServletContext {
 
   @Override
   public ServletRegistration getServletRegistration(String servletName) {
-    throw new UnsupportedOperationException();
+    return servlets.get(servletName);
   }
 
   @Override
   public Map<String, ? extends ServletRegistration> getServletRegistrations() {
-    throw new UnsupportedOperationException();
+    return Collections.unmodifiableMap(new LinkedHashMap<>(servlets));
   }
 
   public Enumeration getServlets() {
@@ -354,6 +428,44 @@ public class MockServletContext implements ServletContext {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Initializes the context. This notifies the context listeners and then initializes all of the filters and the
+   * servlets that are loaded on startup. This is called automatically by {@link #service} the first time a request is
+   * handled and does nothing if the context is already initialized.
+   *
+   * @throws ServletException If a filter or servlet fails to initialize.
+   */
+  public synchronized void initialize() throws ServletException {
+    if (initialized) {
+      return;
+    }
+
+    initialized = true;
+
+    ServletContextEvent event = new ServletContextEvent(this);
+    for (EventListener listener : listeners) {
+      if (listener instanceof ServletContextListener) {
+        ((ServletContextListener) listener).contextInitialized(event);
+      }
+    }
+
+    for (MockFilterRegistration registration : new ArrayList<>(filters.values())) {
+      registration.getFilter();
+    }
+
+    List<MockServletRegistration> startup = new ArrayList<>();
+    for (MockServletRegistration registration : servlets.values()) {
+      if (registration.loadOnStartup >= 0) {
+        startup.add(registration);
+      }
+    }
+
+    startup.sort(Comparator.comparingInt(MockServletRegistration::getLoadOnStartup));
+    for (MockServletRegistration registration : startup) {
+      registration.getServlet();
+    }
+  }
+
   public void log(String s) {
   }
 
@@ -364,10 +476,12 @@ public class MockServletContext implements ServletContext {
   }
 
   public void removeAttribute(String name) {
+    count(Counter.CONTEXT_ATTRIBUTE_WRITES);
     attributes.remove(name);
   }
 
   public void setAttribute(String name, Object value) {
+    count(Counter.CONTEXT_ATTRIBUTE_WRITES);
     attributes.put(name, value);
   }
 
@@ -376,8 +490,235 @@ public class MockServletContext implements ServletContext {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Services the request by running it through the filters and the servlet mapped to the request URI. If no servlet
+   * is mapped and no filter handles the request, a 404 is sent. This sets the servlet path and path info of the request
+   * and notifies the request listeners. When the request is done, the temporary files of its multipart parts are
+   * deleted.
+   *
+   * @param request  The request.
+   * @param response The response.
+   * @throws ServletException If a filter or the servlet throws.
+   * @throws IOException      If a filter or the servlet throws.
+   */
+  public void service(MockHttpServletRequest request, HttpServletResponse response)
+      throws ServletException, IOException {
+    initialize();
+
+    String path = request.getRequestURI() == null ? "/" : request.getRequestURI();
+    if (!contextPath.isEmpty() && path.startsWith(contextPath) &&
+        (path.length() == contextPath.length() || path.charAt(contextPath.length()) == '/')) {
+      path = path.substring(contextPath.length());
+    }
+
+    ServletMappingTable.Match match = getMappingTable().match(path);
+    MockServletRegistration registration = null;
+    if (match != null) {
+      registration = match.registration;
+      request.setServletPath(match.servletPath);
+      request.setPathInfo(match.pathInfo);
+      if (registration.getMultipartConfig() != null) {
+        request.setMultipartConfig(registration.getMultipartConfig());
+      }
+    }
+
+    Object recorderEvent = FlightRecorder.beginRequest();
+    ServletRequestEvent event = new ServletRequestEvent(this, request);
+    for (EventListener listener : listeners) {
+      if (listener instanceof ServletRequestListener) {
+        ((ServletRequestListener) listener).requestInitialized(event);
+      }
+    }
+
+    try {
+      MockFilterChain chain = newFilterChain(path, registration, DispatcherType.REQUEST);
+      if (registration == null && chain.getFilters().isEmpty()) {
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+
+      boolean asyncSupported = registration == null || registration.isAsyncSupported();
+      for (MockFilterRegistration filter : chain.getFilters()) {
+        asyncSupported &= filter.isAsyncSupported();
+      }
+
+      request.setAsyncSupported(asyncSupported);
+      chain.doFilter(request, response);
+    } finally {
+      for (int i = listeners.size() - 1; i >= 0; i--) {
+        EventListener listener = listeners.get(i);
+        if (listener instanceof ServletRequestListener) {
+          ((ServletRequestListener) listener).requestDestroyed(event);
+        }
+      }
+
+      if (recorderEvent != null) {
+        long responseBodyBytes = response instanceof MockHttpServletResponse ?
+            ((MockHttpServletResponse) response).getStream().baos.size() : -1;
+        FlightRecorder.endRequest(recorderEvent, request.getMethod(), request.getRequestURI(), response.getStatus(),
+            request.bodyBytesRead(), responseBodyBytes);
+      }
+
+      // Like a container, the temporary files of the parts only live as long as the request, unless it went async
+      if (!request.isAsyncStarted()) {
+        request.deleteParts();
+      }
+    }
+  }
+
   @Override
   public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Adds a filter mapping in the order the filters will be invoked.
+   *
+   * @param mapping      The mapping.
+   * @param isMatchAfter If false, the mapping is placed before all of the mappings that were added with true.
+   */
+  protected synchronized void addFilterMapping(MockFilterRegistration.FilterMapping mapping, boolean isMatchAfter) {
+    if (isMatchAfter) {
+      filterMappings.add(mapping);
+    } else {
+      filterMappings.add(filterMappingsBefore++, mapping);
+    }
+  }
+
+  protected MockServletRegistration findServletForPattern(String urlPattern) {
+    return getMappingTable().registrationFor(urlPattern);
+  }
+
+  /**
+   * @return The compiled servlet mappings, which are rebuilt lazily whenever a servlet mapping is added.
+   */
+  protected ServletMappingTable getMappingTable() {
+    ServletMappingTable table = mappingTable;
+    if (table == null) {
+      // The table is published under the same lock that mappingsChanged clears it with, so a table built from the old
+      // mappings can't be published after a change
+      synchronized (servlets) {
+        table = mappingTable;
+        if (table == null) {
+          table = new ServletMappingTable(servlets.values());
+          mappingTable = table;
+        }
+      }
+    }
+
+    return table;
+  }
+
+  protected void mappingsChanged() {
+    synchronized (servlets) {
+      mappingTable = null;
+    }
+  }
+
+  /**
+   * Builds the filter chain for a dispatch. URL pattern mappings come first and then servlet name mappings, each in
+   * the order they were added.
+   *
+   * @param path           The context relative path or null for named dispatches.
+   * @param servlet        The target servlet or null.
+   * @param dispatcherType The type of dispatch.
+   * @return The chain.
+   */
+  protected MockFilterChain newFilterChain(String path, MockServletRegistration servlet,
+                                           DispatcherType dispatcherType) {
+    List<MockFilterRegistration> chain = new ArrayList<>();
+    String servletName = servlet != null ? servlet.getName() : null;
+    for (MockFilterRegistration.FilterMapping mapping : filterMappings) {
+      if (mapping.urlPattern != null && !chain.contains(mapping.registration) &&
+          mapping.matches(path, servletName, dispatcherType)) {
+        chain.add(mapping.registration);
+      }
+    }
+
+    for (MockFilterRegistration.FilterMapping mapping : filterMappings) {
+      if (mapping.servletName != null && !chain.contains(mapping.registration) &&
+          mapping.matches(path, servletName, dispatcherType)) {
+        chain.add(mapping.registration);
+      }
+    }
+
+    return new MockFilterChain(chain, servlet);
+  }
+
+  void sessionCreated(MockHttpSession session) {
+    HttpSessionEvent event = new HttpSessionEvent(session);
+    for (EventListener listener : listeners) {
+      if (listener instanceof HttpSessionListener) {
+        ((HttpSessionListener) listener).sessionCreated(event);
+      }
+    }
+  }
+
+  void sessionDestroyed(MockHttpSession session) {
+    HttpSessionEvent event = new HttpSessionEvent(session);
+    for (int i = listeners.size() - 1; i >= 0; i--) {
+      EventListener listener = listeners.get(i);
+      if (listener instanceof HttpSessionListener) {
+        ((HttpSessionListener) listener).sessionDestroyed(event);
+      }
+    }
+  }
+
+  private FilterRegistration.Dynamic addFilter(MockFilterRegistration registration) {
+    return filters.putIfAbsent(registration.getName(), registration) == null ? registration : null;
+  }
+
+  private Dynamic addServlet(MockServletRegistration registration) {
+    return servlets.putIfAbsent(registration.getName(), registration) == null ? registration : null;
+  }
+
+  private void count(Counter counter) {
+    MockMetrics metrics = container != null ? container.currentMetrics() : null;
+    if (metrics != null) {
+      metrics.increment(counter);
+    }
+  }
+
+  private URL findResource(String path) throws MalformedURLException {
+    if (path.startsWith(WEB_INF_LIB)) {
+      // This matches the file names of the classpath entries, not the resources inside them, so the ClassPathIndex
+      // doesn't help here. It is a scan of the entry names only and never opens a JAR.
+      String jarFile = path.substring(WEB_INF_LIB.length());
+      List<String> entries = classPath.getNames();
+      for (String entry : entries) {
+        if (entry.endsWith(jarFile)) {
+          return new File(entry).toURI().toURL();
+        }
+      }
+
+      return null;
+    } else {
+      if (path.startsWith("/")) {
+        path = path.substring(1);
+      }
+
+      File f = new File(webDir, path);
+      if (f.isFile()) {
+        return f.toURI().toURL();
+      }
+
+      return null;
+    }
+  }
+
+  private <T> T instantiate(Class<T> clazz) throws ServletException {
+    try {
+      return clazz.getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new ServletException("Unable to create an instance of [" + clazz.getName() + "]", e);
+    }
+  }
+
+  private <T> Class<? extends T> loadClass(String className, Class<T> type) {
+    try {
+      return getClassLoader().loadClass(className).asSubclass(type);
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IllegalArgumentException("Invalid class [" + className + "]. It must be a [" + type.getName() + "]", e);
+    }
+  }
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009-2016, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2009-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,4 +62,18 @@ public class MockServletInputStream extends ServletInputStream {
     }
     return Byte.toUnsignedInt(bytes[index++]);
   }
+
+  /**
+   * @return The whole body, regardless of how much of it has been read.
+   */
+  byte[] bytes() {
+    return bytes;
+  }
+
+  /**
+   * @return The number of bytes that have been read.
+   */
+  int position() {
+    return index;
+  }
 }
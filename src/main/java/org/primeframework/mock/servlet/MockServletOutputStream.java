@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2019, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,17 @@ public class MockServletOutputStream extends ServletOutputStream {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Returns a view of the captured bytes decoded with the given content coding. The bytes are decoded when the view is
+   * read, not when it is created.
+   *
+   * @param contentEncoding The content coding, such as gzip.
+   * @return The view.
+   */
+  public DecodedBody decoded(String contentEncoding) {
+    return new DecodedBody(contentEncoding, baos.toByteArray(), baos.size());
+  }
+
   public byte[] toByteArray() {
     return baos.toByteArray();
   }
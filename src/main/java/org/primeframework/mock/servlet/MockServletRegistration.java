@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.Servlet;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRegistration;
+import javax.servlet.ServletSecurityElement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * A servlet registered with the {@link MockServletContext}. This is both the registration and the ServletConfig handed
+ * to the servlet when it is initialized.
+ *
+ * @author Brian Pontarelli
+ */
+public class MockServletRegistration implements ServletRegistration.Dynamic, ServletConfig {
+  protected final MockServletContext context;
+
+  protected final Map<String, String> initParameters = new LinkedHashMap<>();
+
+  protected final Set<String> mappings = new LinkedHashSet<>();
+
+  protected final String name;
+
+  protected boolean asyncSupported;
+
+  protected String className;
+
+  protected boolean initialized;
+
+  protected int loadOnStartup = -1;
+
+  protected MultipartConfigElement multipartConfig;
+
+  protected String runAsRole;
+
+  protected Servlet servlet;
+
+  protected Class<? extends Servlet> servletClass;
+
+  protected MockServletRegistration(MockServletContext context, String name, Servlet servlet) {
+    this.context = context;
+    this.name = name;
+    this.servlet = servlet;
+    this.className = servlet.getClass().getName();
+  }
+
+  protected MockServletRegistration(MockServletContext context, String name, Class<? extends Servlet> servletClass) {
+    this.context = context;
+    this.name = name;
+    this.servletClass = servletClass;
+    this.className = servletClass.getName();
+  }
+
+  @Override
+  public Set<String> addMapping(String... urlPatterns) {
+    if (urlPatterns == null || urlPatterns.length == 0) {
+      throw new IllegalArgumentException("At least one URL pattern is required");
+    }
+
+    // The mapping table is built under the same lock, so it never reads the mappings while they change
+    Set<String> conflicts = new HashSet<>();
+    synchronized (context.servlets) {
+      for (String urlPattern : urlPatterns) {
+        MockServletRegistration existing = context.findServletForPattern(urlPattern);
+        if (existing != null && existing != this) {
+          conflicts.add(urlPattern);
+        }
+      }
+
+      if (conflicts.isEmpty()) {
+        Collections.addAll(mappings, urlPatterns);
+        context.mappingsChanged();
+      }
+    }
+
+    return conflicts;
+  }
+
+  /**
+   * Destroys the servlet if it was initialized.
+   */
+  public synchronized void destroy() {
+    if (initialized) {
+      servlet.destroy();
+      initialized = false;
+    }
+  }
+
+  @Override
+  public String getClassName() {
+    return className;
+  }
+
+  @Override
+  public String getInitParameter(String name) {
+    return initParameters.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getInitParameterNames() {
+    return new Vector<>(initParameters.keySet()).elements();
+  }
+
+  @Override
+  public Map<String, String> getInitParameters() {
+    return Collections.unmodifiableMap(initParameters);
+  }
+
+  public int getLoadOnStartup() {
+    return loadOnStartup;
+  }
+
+  @Override
+  public Collection<String> getMappings() {
+    return Collections.unmodifiableSet(mappings);
+  }
+
+  public MultipartConfigElement getMultipartConfig() {
+    return multipartConfig;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getRunAsRole() {
+    return runAsRole;
+  }
+
+  /**
+   * Returns the servlet, creating and initializing it the first time it is requested.
+   *
+   * @return The initialized servlet.
+   * @throws ServletException If the servlet could not be created or its init method failed.
+   */
+  public synchronized Servlet getServlet() throws ServletException {
+    if (servlet == null) {
+      servlet = context.createServlet(servletClass);
+    }
+
+    if (!initialized) {
+      servlet.init(this);
+      initialized = true;
+    }
+
+    return servlet;
+  }
+
+  @Override
+  public ServletContext getServletContext() {
+    return context;
+  }
+
+  @Override
+  public String getServletName() {
+    return name;
+  }
+
+  public boolean isAsyncSupported() {
+    return asyncSupported;
+  }
+
+  @Override
+  public void setAsyncSupported(boolean asyncSupported) {
+    this.asyncSupported = asyncSupported;
+  }
+
+  @Override
+  public boolean setInitParameter(String name, String value) {
+    if (name == null || value == null) {
+      throw new IllegalArgumentException("Init parameter names and values can't be null");
+    }
+
+    return initParameters.putIfAbsent(name, value) == null;
+  }
+
+  @Override
+  public Set<String> setInitParameters(Map<String, String> initParameters) {
+    Set<String> conflicts = new HashSet<>();
+    for (Map.Entry<String, String> entry : initParameters.entrySet()) {
+      if (this.initParameters.containsKey(entry.getKey())) {
+        conflicts.add(entry.getKey());
+      }
+    }
+
+    if (conflicts.isEmpty()) {
+      initParameters.forEach(this::setInitParameter);
+    }
+
+    return conflicts;
+  }
+
+  @Override
+  public void setLoadOnStartup(int loadOnStartup) {
+    this.loadOnStartup = loadOnStartup;
+  }
+
+  @Override
+  public void setMultipartConfig(MultipartConfigElement multipartConfig) {
+    this.multipartConfig = multipartConfig;
+  }
+
+  @Override
+  public void setRunAsRole(String runAsRole) {
+    this.runAsRole = runAsRole;
+  }
+
+  @Override
+  public Set<String> setServletSecurity(ServletSecurityElement servletSecurityElement) {
+    throw new UnsupportedOperationException();
+  }
+}
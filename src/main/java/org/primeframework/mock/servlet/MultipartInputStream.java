@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2017, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,7 @@ package org.primeframework.mock.servlet;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Map;
 
@@ -35,106 +31,60 @@ import org.slf4j.LoggerFactory;
  */
 public class MultipartInputStream extends ServletInputStream {
   public static final Logger logger = LoggerFactory.getLogger(MultipartInputStream.class);
-  public static final byte[] BOUNDARY = getBytes("--primeframeworkmultipartuploadLKAlskld09309djoid");
-  public static final byte[] CLOSE_BOUNDARY = getBytes("--");
-  public static final byte[] CRLF = getBytes("\r\n");
-  public static final byte[] CONTENT_DISPOSITION = getBytes("Content-Disposition: form-data; name=");
-  public static final byte[] CONTENT_TYPE = getBytes("Content-Type: ");
-  public static final byte[] CONTENT_TRANSFER_ENCODING = getBytes("Content-Transfer-Encoding: binary");
-  public static final byte[] FILENAME = getBytes("; filename=");
-  public static final byte[] QUOTE = getBytes("\"");
-  private final byte[] bytes;
-  private int index = 0;
-
-  public MultipartInputStream(Map<String, List<String>> parameters, Map<String, FileInfo> files) throws IOException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    for (String key : parameters.keySet()) {
-      List<String> values = parameters.get(key);
-      for (String value : values) {
-        baos.write(BOUNDARY);
-        baos.write(CRLF);
-
-        // Content disposition header
-        baos.write(CONTENT_DISPOSITION);
-        baos.write(QUOTE);
-        baos.write(getBytes(key));
-        baos.write(QUOTE);
-
-        // Header end
-        baos.write(CRLF);
-        baos.write(CRLF);
-
-        // Data
-        baos.write(getBytes(value));
-
-        // End
-        baos.write(CRLF);
-      }
-    }
-
-    for (String key : files.keySet()) {
-      FileInfo file = files.get(key);
-      // Boundary
-      baos.write(BOUNDARY);
-      baos.write(CRLF);
-
-      // Content disposition header
-      baos.write(CONTENT_DISPOSITION);
-      baos.write(QUOTE);
-      baos.write(getBytes(key));
-      baos.write(QUOTE);
-      baos.write(FILENAME);
-      baos.write(QUOTE);
-      baos.write(getBytes(file.file.getName()));
-      baos.write(QUOTE);
-
-      // Content type header
-      baos.write(CRLF);
-      baos.write(CONTENT_TYPE);
-      baos.write(getBytes(file.contentType));
-
-      // Content transfer encoding header
-      baos.write(CRLF);
-      baos.write(CONTENT_TRANSFER_ENCODING);
-
-      // Header end
-      baos.write(CRLF);
-      baos.write(CRLF);
-
-      // Data
-      byte[] ba = new byte[4096];
-      InputStream is = new FileInputStream(file.file);
-      int len;
-      while ((len = is.read(ba)) != -1) {
-        baos.write(ba, 0, len);
-      }
-      is.close();
+  public static final byte[] BOUNDARY = MultipartLayout.ascii("--" + MultipartLayout.DEFAULT_BOUNDARY);
+  public static final byte[] CLOSE_BOUNDARY = MultipartLayout.ascii("--");
+  public static final byte[] CRLF = MultipartLayout.ascii("\r\n");
+  public static final byte[] CONTENT_DISPOSITION = MultipartLayout.ascii("Content-Disposition: form-data; name=");
+  public static final byte[] CONTENT_TYPE = MultipartLayout.ascii("Content-Type: ");
+  public static final byte[] CONTENT_TRANSFER_ENCODING = MultipartLayout.ascii("Content-Transfer-Encoding: binary");
+  public static final byte[] FILENAME = MultipartLayout.ascii("; filename=");
+  public static final byte[] QUOTE = MultipartLayout.ascii("\"");
+  private final MultipartLayout.Body body;
+
+  public MultipartInputStream(Map<String, List<String>> parameters, Map<String, List<FileInfo>> files)
+      throws IOException {
+    this(new MultipartLayout(MultipartLayout.DEFAULT_BOUNDARY, parameters, files), parameters, files);
+  }
 
-      // End
-      baos.write(CRLF);
-    }
+  /**
+   * Opens the body from a compiled layout. The body is generated as it is read, so only one file is open at a time.
+   *
+   * @param layout     The layout.
+   * @param parameters The parameters.
+   * @param files      The files.
+   * @throws IOException If the length of a file can't be read.
+   */
+  public MultipartInputStream(MultipartLayout layout, Map<String, List<String>> parameters,
+                              Map<String, List<FileInfo>> files) throws IOException {
+    body = layout.open(parameters, files);
+    logger.debug("Body is " + body.length());
+  }
 
-    baos.write(BOUNDARY);
-    baos.write(CLOSE_BOUNDARY);
-    baos.write(CRLF);
-    baos.flush();
-    bytes = baos.toByteArray();
-    logger.debug("Body is " + bytes.length);
+  @Override
+  public int available() {
+    return body.available();
   }
 
   @Override
-  public int available() throws IOException {
-    return bytes.length;
+  public void close() throws IOException {
+    body.close();
   }
 
   @Override
   public boolean isFinished() {
-    return index == bytes.length;
+    return body.available() == 0;
   }
 
   @Override
   public boolean isReady() {
-    return index != bytes.length;
+    return body.available() != 0;
+  }
+
+  /**
+   * @return The length of the whole body, regardless of how much of it has been read.
+   */
+  public long length() {
+    return body.length();
   }
 
   @Override
@@ -143,14 +93,30 @@ public class MultipartInputStream extends ServletInputStream {
   }
 
   public int read() throws IOException {
-    return (index < bytes.length) ? (bytes[index++] & 0xff) : -1;
+    return body.read();
   }
 
-  private static byte[] getBytes(String str) {
-    try {
-      return str.getBytes("US-ASCII");
-    } catch (UnsupportedEncodingException e) {
-      throw new RuntimeException(e);
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    return body.read(b, off, len);
+  }
+
+  /**
+   * Builds the whole body in memory, regardless of how much of it has been read.
+   *
+   * @return The body.
+   * @throws IOException If a file can't be read or a value or file contains the boundary.
+   */
+  byte[] bytes() throws IOException {
+    try (MultipartLayout.Body copy = body.reopen()) {
+      return copy.readAll();
     }
   }
+
+  /**
+   * @return A stream of the whole body from the beginning, regardless of how much of it has been read.
+   */
+  MultipartLayout.Body reopen() {
+    return body.reopen();
+  }
 }
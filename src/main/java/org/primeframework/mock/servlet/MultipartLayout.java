@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The compiled structure of a multipart/form-data body: the encoded part headers of each parameter and file, and the
+ * closing delimiter. Opening a body from a layout only reuses the cached header bytes and streams the parameter values
+ * and the file contents between them, so a test that uploads the same form many times with different values or files
+ * only encodes the headers once.
+ * <p>
+ * Layouts are immutable and can be shared between threads. Requests made from a {@link MockHttpServletRequestTemplate}
+ * share the template's layout. Parameters or files that aren't in the layout (or files whose name or content type
+ * changed) still work, their headers are just encoded when the body is opened.
+ * <p>
+ * A {@link Body} is generated as it is read. Only one file is open at a time and nothing but the parameter values is
+ * held in memory, so a body with hundreds of parts (or parts of any size) can be produced and consumed in constant
+ * memory. Each value and file is checked for the boundary as it streams through. A body whose data contains the
+ * boundary would be split in the wrong place by a parser, so reading it fails instead. Use {@link #randomBoundary()}
+ * to make collisions practically impossible.
+ *
+ * @author Brian Pontarelli
+ */
+public class MultipartLayout {
+  public static final String DEFAULT_BOUNDARY = "primeframeworkmultipartuploadLKAlskld09309djoid";
+
+  private static final char[] BOUNDARY_CHARACTERS =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+  private static final byte[] CLOSE_DELIMITER = ascii("--\r\n");
+
+  private static final byte[] CONTENT_DISPOSITION = ascii("\r\nContent-Disposition: form-data; name=\"");
+
+  private static final byte[] CONTENT_TYPE = ascii("\"\r\nContent-Type: ");
+
+  private static final byte[] CRLF = ascii("\r\n");
+
+  private static final byte[] FILE_HEADER_END = ascii("\r\nContent-Transfer-Encoding: binary\r\n\r\n");
+
+  private static final byte[] FILENAME = ascii("\"; filename=\"");
+
+  private static final byte[] MIXED_DISPOSITION = ascii("\r\nContent-Disposition: attachment; filename=\"");
+
+  private static final byte[] PARAMETER_HEADER_END = ascii("\"\r\n\r\n");
+
+  protected final String boundary;
+
+  protected final byte[] closing;
+
+  protected final byte[] delimiter;
+
+  protected final Map<String, List<FileHeader>> fileHeaders;
+
+  protected final Map<String, byte[]> parameterHeaders;
+
+  // The CRLF and dashes that come before the boundary in the body, and the Boyer-Moore-Horspool skip table for them
+  protected final byte[] search;
+
+  protected final int[] skip = new int[256];
+
+  /**
+   * Compiles the layout of a body with the parameters and files.
+   *
+   * @param boundary   The boundary, without the leading dashes.
+   * @param parameters The parameters. Only the names are used.
+   * @param files      The files. The names, file names and content types are used.
+   */
+  public MultipartLayout(String boundary, Map<String, List<String>> parameters, Map<String, List<FileInfo>> files) {
+    this.boundary = boundary;
+    this.delimiter = ascii("--" + boundary);
+    this.closing = concat(delimiter, CLOSE_DELIMITER);
+    this.search = concat(CRLF, delimiter);
+    Arrays.fill(skip, search.length);
+    for (int i = 0; i < search.length - 1; i++) {
+      skip[search[i] & 0xFF] = search.length - 1 - i;
+    }
+
+    Map<String, byte[]> parameterHeaders = new LinkedHashMap<>();
+    for (String key : parameters.keySet()) {
+      parameterHeaders.put(key, parameterHeader(key));
+    }
+    this.parameterHeaders = Collections.unmodifiableMap(parameterHeaders);
+
+    Map<String, List<FileHeader>> fileHeaders = new LinkedHashMap<>();
+    for (Map.Entry<String, List<FileInfo>> entry : files.entrySet()) {
+      List<FileHeader> headers = new ArrayList<>();
+      for (FileInfo info : entry.getValue()) {
+        headers.add(new FileHeader(entry.getKey(), info));
+      }
+      fileHeaders.put(entry.getKey(), Collections.unmodifiableList(headers));
+    }
+    this.fileHeaders = Collections.unmodifiableMap(fileHeaders);
+  }
+
+  /**
+   * Builds a whole body in memory.
+   *
+   * @param parameters The parameters.
+   * @param files      The files.
+   * @return The body.
+   * @throws IOException If a file can't be read, a value or file contains the boundary or the body is larger than 2GB.
+   */
+  public byte[] build(Map<String, List<String>> parameters, Map<String, List<FileInfo>> files) throws IOException {
+    try (Body body = open(parameters, files)) {
+      return body.readAll();
+    }
+  }
+
+  /**
+   * Opens a body that is generated as it is read. The parameter values are encoded and the lengths of the files are
+   * taken now, but no file is opened until the body reaches it.
+   *
+   * @param parameters The parameters.
+   * @param files      The files.
+   * @return The body, which must be closed if it isn't read to the end.
+   * @throws IOException If the length of a file can't be read.
+   */
+  public Body open(Map<String, List<String>> parameters, Map<String, List<FileInfo>> files) throws IOException {
+    List<Section> sections = new ArrayList<>();
+    for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+      byte[] header = parameterHeaders.get(entry.getKey());
+      if (header == null) {
+        header = parameterHeader(entry.getKey());
+      }
+
+      for (String value : entry.getValue()) {
+        byte[] bytes = ascii(value);
+        sections.add(new Section(header, bytes, null, bytes.length));
+      }
+    }
+
+    for (Map.Entry<String, List<FileInfo>> entry : files.entrySet()) {
+      List<FileHeader> cached = fileHeaders.get(entry.getKey());
+      int index = 0;
+      for (FileInfo info : entry.getValue()) {
+        FileHeader header = cached != null && index < cached.size() ? cached.get(index) : null;
+        if (header == null || !header.matches(info)) {
+          header = new FileHeader(entry.getKey(), info);
+        }
+
+        sections.add(new Section(header.bytes, null, info, info.length()));
+        index++;
+      }
+    }
+
+    return new Body(sections);
+  }
+
+  /**
+   * Opens a <code>multipart/mixed</code> body of files, which is what {@link FileInfo#mixed} sends as the contents of
+   * a single form field. The parts only have a file name and a content type. They use an <code>attachment</code>
+   * disposition rather than the <code>file</code> one from RFC 2388, since that is what Commons FileUpload (and the
+   * containers built on it) look for.
+   *
+   * @param files The files.
+   * @return The body, which must be closed if it isn't read to the end.
+   * @throws IOException If the length of a file can't be read.
+   */
+  public Body openMixed(List<FileInfo> files) throws IOException {
+    List<Section> sections = new ArrayList<>();
+    for (FileInfo info : files) {
+      byte[] header = concat(delimiter, MIXED_DISPOSITION, ascii(info.fileName), CONTENT_TYPE, ascii(info.contentType),
+          FILE_HEADER_END);
+      sections.add(new Section(header, null, info, info.length()));
+    }
+
+    return new Body(sections);
+  }
+
+  /**
+   * @return The boundary, without the leading dashes.
+   */
+  public String getBoundary() {
+    return boundary;
+  }
+
+  /**
+   * Generates a boundary with 144 bits of randomness, which can't realistically show up in a file by accident.
+   *
+   * @return The boundary.
+   */
+  public static String randomBoundary() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    char[] chars = new char[24];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = BOUNDARY_CHARACTERS[random.nextInt(BOUNDARY_CHARACTERS.length)];
+    }
+
+    return "PrimeMockBoundary" + new String(chars);
+  }
+
+  static byte[] ascii(String str) {
+    return str.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[] concat(byte[]... arrays) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (byte[] array : arrays) {
+      baos.write(array, 0, array.length);
+    }
+
+    return baos.toByteArray();
+  }
+
+  /**
+   * Boyer-Moore-Horspool search for the boundary (with the CRLF in front of it).
+   */
+  private boolean containsBoundary(byte[] bytes, int from, int to) {
+    int last = search.length - 1;
+    int i = from;
+    while (i <= to - search.length) {
+      int j = last;
+      while (bytes[i + j] == search[j]) {
+        if (j == 0) {
+          return true;
+        }
+
+        j--;
+      }
+
+      i += skip[bytes[i + last] & 0xFF];
+    }
+
+    return false;
+  }
+
+  private byte[] parameterHeader(String key) {
+    return concat(delimiter, CONTENT_DISPOSITION, ascii(key), PARAMETER_HEADER_END);
+  }
+
+  /**
+   * A body that is generated as it is read. Each read copies from at most one header, value or file, and the data is
+   * checked for the boundary before it is returned, including a boundary that is split between two reads.
+   */
+  public class Body extends InputStream {
+    private static final int CLOSING = 3;
+
+    private static final int DATA = 1;
+
+    private static final int END = 4;
+
+    private static final int HEADER = 0;
+
+    private static final int TRAILER = 2;
+
+    private final long length;
+
+    private final byte[] one = new byte[1];
+
+    private final List<Section> sections;
+
+    // The last bytes of the current part's data (starting with the CRLF that ends its headers), so that a boundary that
+    // is split between two reads is still found
+    private final byte[] tail = new byte[search.length - 1];
+
+    private final byte[] window = new byte[2 * (search.length - 1)];
+
+    private InputStream data;
+
+    private int index;
+
+    private long offset;
+
+    private long position;
+
+    private int stage;
+
+    private int tailLength;
+
+    private Body(List<Section> sections) {
+      long length = closing.length;
+      for (Section section : sections) {
+        length += section.header.length + section.length + CRLF.length;
+      }
+
+      this.length = length;
+      this.sections = sections;
+      this.stage = sections.isEmpty() ? CLOSING : HEADER;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(length - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      stage = END;
+      if (data != null) {
+        InputStream current = data;
+        data = null;
+        current.close();
+      }
+    }
+
+    /**
+     * @return The length of the whole body.
+     */
+    public long length() {
+      return length;
+    }
+
+    /**
+     * @return A new body with the same parts, which starts from the beginning.
+     */
+    public Body reopen() {
+      return new Body(sections);
+    }
+
+    @Override
+    public int read() throws IOException {
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+
+      while (stage != END) {
+        int count;
+        if (stage == CLOSING) {
+          count = literal(closing, b, off, len);
+        } else if (stage == HEADER) {
+          count = literal(sections.get(index).header, b, off, len);
+        } else if (stage == DATA) {
+          count = data(sections.get(index), b, off, len);
+        } else {
+          count = literal(CRLF, b, off, len);
+        }
+
+        if (count > 0) {
+          position += count;
+          return count;
+        }
+
+        next();
+      }
+
+      return -1;
+    }
+
+    /**
+     * Reads the rest of the body into an array.
+     *
+     * @return The array.
+     * @throws IOException If a file can't be read, a value or file contains the boundary or the body is larger than
+     *                     2GB.
+     */
+    public byte[] readAll() throws IOException {
+      if (length - position > Integer.MAX_VALUE - 8) {
+        throw new IOException("The multipart body is larger than 2GB");
+      }
+
+      byte[] bytes = new byte[(int) (length - position)];
+      int total = 0;
+      int read;
+      while (total < bytes.length && (read = read(bytes, total, bytes.length - total)) != -1) {
+        total += read;
+      }
+
+      return bytes;
+    }
+
+    /**
+     * Checks the data that was just read for the boundary. The data is searched on its own and together with the tail
+     * of the data before it. The tail of a new part starts as the CRLF that ends its headers, since data that
+     * starts with <code>--boundary</code> is a delimiter too. Boundaries can't contain CRLFs, so a delimiter can't
+     * start in the data and end in the CRLF after it.
+     */
+    private void check(Section section, byte[] b, int off, int count) throws IOException {
+      int head = Math.min(count, tail.length);
+      System.arraycopy(tail, 0, window, 0, tailLength);
+      System.arraycopy(b, off, window, tailLength, head);
+      if (containsBoundary(window, 0, tailLength + head) || containsBoundary(b, off, off + count)) {
+        String what = section.file == null ? "A parameter value" : section.file.fileName == null ?
+            "The files of [" + section.file.name + "]" : "The file [" + section.file.fileName + "]";
+        throw new IOException(what + " contains the multipart boundary [" + boundary + "]. Use a different " +
+            "boundary, such as one from MultipartLayout.randomBoundary().");
+      }
+
+      if (count >= tail.length) {
+        System.arraycopy(b, off + count - tail.length, tail, 0, tail.length);
+        tailLength = tail.length;
+      } else {
+        int total = tailLength + count;
+        tailLength = Math.min(total, tail.length);
+        System.arraycopy(window, total - tailLength, tail, 0, tailLength);
+      }
+    }
+
+    private int data(Section section, byte[] b, int off, int len) throws IOException {
+      int count = (int) Math.min(len, section.length - offset);
+      if (section.value != null) {
+        System.arraycopy(section.value, (int) offset, b, off, count);
+      } else {
+        if (data == null) {
+          data = section.file.openStream();
+        }
+
+        if (count > 0) {
+          count = data.read(b, off, count);
+        }
+
+        if (count == -1 || (count == 0 && data.read() != -1)) {
+          close();
+          throw new IOException("The file [" + section.file.fileName + "] changed while the multipart body was being " +
+              "read");
+        }
+      }
+
+      if (count > 0) {
+        check(section, b, off, count);
+      }
+
+      offset += count;
+      return count;
+    }
+
+    private int literal(byte[] bytes, byte[] b, int off, int len) {
+      int count = (int) Math.min(len, bytes.length - offset);
+      System.arraycopy(bytes, (int) offset, b, off, count);
+      offset += count;
+      return count;
+    }
+
+    private void next() throws IOException {
+      offset = 0;
+      if (stage == HEADER) {
+        stage = DATA;
+        System.arraycopy(CRLF, 0, tail, 0, CRLF.length);
+        tailLength = CRLF.length;
+      } else if (stage == DATA) {
+        if (data != null) {
+          InputStream current = data;
+          data = null;
+          current.close();
+        }
+
+        stage = TRAILER;
+      } else if (stage == TRAILER) {
+        index++;
+        stage = index < sections.size() ? HEADER : CLOSING;
+      } else {
+        stage = END;
+      }
+    }
+  }
+
+  /**
+   * The encoded header of a file part and the file name and content type it was encoded for.
+   */
+  protected class FileHeader {
+    final byte[] bytes;
+
+    final String contentType;
+
+    final String fileName;
+
+    FileHeader(String key, FileInfo file) {
+      this.contentType = file.contentType;
+      this.fileName = file.fileName;
+
+      // Nested multipart/mixed parts don't have a file name
+      this.bytes = fileName == null ?
+          concat(delimiter, CONTENT_DISPOSITION, ascii(key), CONTENT_TYPE, ascii(contentType), FILE_HEADER_END) :
+          concat(delimiter, CONTENT_DISPOSITION, ascii(key), FILENAME, ascii(fileName), CONTENT_TYPE,
+              ascii(contentType), FILE_HEADER_END);
+    }
+
+    boolean matches(FileInfo file) {
+      return contentType.equals(file.contentType) && Objects.equals(fileName, file.fileName);
+    }
+  }
+
+  /**
+   * The encoded header of a part and its data, which is either an encoded parameter value or a file.
+   */
+  protected static class Section {
+    final byte[] header;
+
+    final FileInfo file;
+
+    final long length;
+
+    final byte[] value;
+
+    Section(byte[] header, byte[] value, FileInfo file, long length) {
+      this.header = header;
+      this.value = value;
+      this.file = file;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.http.Part;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A streaming <code>multipart/form-data</code> parser. Boundaries are found with a Boyer-Moore-Horspool search, so
+ * most of the body is skipped over rather than compared byte by byte.
+ * <p>
+ * When the whole body is already in memory, parts at or under the <code>fileSizeThreshold</code> of the
+ * {@link MultipartConfigElement} are slices of the body and are never copied. Otherwise the body is read through a
+ * fixed size buffer and each part is collected in memory until it passes the threshold, at which point it is moved to
+ * a temporary file in the configured location. The <code>maxFileSize</code> and <code>maxRequestSize</code> limits
+ * are enforced while parsing and throw an {@link IllegalStateException} like a container would. If parsing fails, the
+ * temporary files of the parts that were already parsed are deleted. Otherwise the caller owns the temporary files and
+ * must call {@link Part#delete()} when it is done with the parts.
+ * <p>
+ * Parts that are themselves <code>multipart/mixed</code> are parsed too, and each nested file becomes a part named
+ * after the form field of the mixed part.
+ *
+ * @author Brian Pontarelli
+ */
+public class MultipartParser {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  protected final MultipartConfigElement config;
+
+  protected final byte[] delimiter;
+
+  protected final Charset headerCharset;
+
+  protected final File location;
+
+  protected final int[] skip = new int[256];
+
+  private byte[] buffer;
+
+  private boolean eof;
+
+  private InputStream inputStream;
+
+  private int limit;
+
+  private int position;
+
+  private long total;
+
+  /**
+   * Creates a parser.
+   *
+   * @param boundary      The boundary from the Content-Type header (without the leading dashes).
+   * @param config        The limits and location for the parts.
+   * @param headerCharset The charset of the part headers, which is used for the field names and file names.
+   */
+  public MultipartParser(String boundary, MultipartConfigElement config, Charset headerCharset) {
+    this.config = config;
+    this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+    this.headerCharset = headerCharset;
+    this.location = config.getLocation() == null || config.getLocation().isEmpty() ?
+        new File(System.getProperty("java.io.tmpdir")) : new File(config.getLocation());
+
+    for (int i = 0; i < skip.length; i++) {
+      skip[i] = delimiter.length;
+    }
+
+    for (int i = 0; i < delimiter.length - 1; i++) {
+      skip[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+    }
+  }
+
+  /**
+   * Pulls the boundary parameter out of a Content-Type header. Both the <code>; boundary=</code> and the older
+   * <code>, boundary=</code> forms are accepted.
+   *
+   * @param contentType The Content-Type header.
+   * @return The boundary or null if the content type is not multipart or doesn't have a boundary.
+   */
+  public static String boundary(String contentType) {
+    if (contentType == null || !contentType.regionMatches(true, 0, "multipart/", 0, 10)) {
+      return null;
+    }
+
+    int index = contentType.toLowerCase().indexOf("boundary=");
+    if (index < 0) {
+      return null;
+    }
+
+    int start = index + 9;
+    int end = start;
+    while (end < contentType.length() && contentType.charAt(end) != ';' && contentType.charAt(end) != ',') {
+      end++;
+    }
+
+    String boundary = contentType.substring(start, end).trim();
+    if (boundary.length() > 1 && boundary.charAt(0) == '"' && boundary.charAt(boundary.length() - 1) == '"') {
+      boundary = boundary.substring(1, boundary.length() - 1);
+    }
+
+    return boundary.isEmpty() ? null : boundary;
+  }
+
+  /**
+   * Parses a body that is completely in memory. Small parts are slices of the array.
+   *
+   * @param body   The body.
+   * @param offset The start of the body in the array.
+   * @param length The length of the body.
+   * @return The parts.
+   * @throws IOException If the body is malformed or a temporary file can't be written.
+   */
+  public List<Part> parse(byte[] body, int offset, int length) throws IOException {
+    buffer = body;
+    position = offset;
+    limit = offset + length;
+    eof = true;
+    inputStream = null;
+    total = length;
+    checkRequestSize();
+    return parse();
+  }
+
+  /**
+   * Parses a body from a stream. At most {@link #BUFFER_SIZE} bytes of the body are buffered at a time.
+   *
+   * @param inputStream The body.
+   * @return The parts.
+   * @throws IOException If the body is malformed, the stream throws or a temporary file can't be written.
+   */
+  public List<Part> parse(InputStream inputStream) throws IOException {
+    buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+    position = 0;
+    limit = 0;
+    eof = false;
+    total = 0;
+    this.inputStream = inputStream;
+    return parse();
+  }
+
+  private void checkRequestSize() {
+    if (config.getMaxRequestSize() >= 0 && total > config.getMaxRequestSize()) {
+      throw new IllegalStateException("The multipart request is larger than the maximum size of [" + config.getMaxRequestSize() + "] bytes");
+    }
+  }
+
+  /**
+   * Makes sure at least the given number of bytes are buffered, unless the stream ends first.
+   *
+   * @return True if the bytes are available.
+   */
+  private boolean ensure(int count) throws IOException {
+    while (limit - position < count && !eof) {
+      if (position > 0) {
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+      }
+
+      if (limit == buffer.length) {
+        throw new IOException("The multipart part headers are larger than [" + buffer.length + "] bytes");
+      }
+
+      int read = inputStream.read(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        eof = true;
+      } else {
+        limit += read;
+        total += read;
+        checkRequestSize();
+      }
+    }
+
+    return limit - position >= count;
+  }
+
+  private int indexOf(byte[] bytes, int from, int to, byte[] pattern, int patternStart) {
+    int length = pattern.length - patternStart;
+    outer:
+    for (int i = from; i <= to - length; i++) {
+      for (int j = 0; j < length; j++) {
+        if (bytes[i + j] != pattern[patternStart + j]) {
+          continue outer;
+        }
+      }
+
+      return i;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Parses the parts. If any part fails, the temporary files of the parts that were already parsed are deleted before
+   * the exception is thrown, since the caller never sees those parts.
+   */
+  private List<Part> parse() throws IOException {
+    List<Part> parts = new ArrayList<>();
+    try {
+      parse(parts);
+      return parts;
+    } catch (IOException | RuntimeException e) {
+      for (Part part : parts) {
+        try {
+          part.delete();
+        } catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+
+      throw e;
+    }
+  }
+
+  private void parse(List<Part> parts) throws IOException {
+    // The first boundary doesn't have a CRLF in front of it, unless there is a preamble
+    ensure(delimiter.length);
+    int start;
+    while ((start = indexOf(buffer, position, limit, delimiter, 2)) < 0 && !eof) {
+      position = Math.max(position, limit - delimiter.length);
+      ensure(limit - position + 1);
+    }
+
+    if (start < 0) {
+      throw new IOException("The multipart body doesn't contain the boundary");
+    }
+
+    position = start + delimiter.length - 2;
+    while (true) {
+      // After a boundary is either "--" for the end or optional whitespace and a CRLF for another part
+      if (!ensure(2)) {
+        throw new IOException("The multipart body ended after a boundary");
+      }
+
+      if (buffer[position] == '-' && buffer[position + 1] == '-') {
+        return;
+      }
+
+      while (ensure(1) && (buffer[position] == ' ' || buffer[position] == '\t')) {
+        position++;
+      }
+
+      if (!ensure(2) || buffer[position] != '\r' || buffer[position + 1] != '\n') {
+        throw new IOException("The multipart boundary isn't followed by a CRLF");
+      }
+
+      position += 2;
+      Map<String, List<String>> headers = parseHeaders();
+      MockPart part = parseContent(headers);
+      String contentType = part.getContentType();
+      String nested = boundary(contentType);
+      if (nested != null && contentType.regionMatches(true, 0, "multipart/mixed", 0, 15)) {
+        parts.addAll(parseMixed(part, nested));
+      } else {
+        parts.add(part);
+      }
+    }
+  }
+
+  /**
+   * Parses the files nested in a <code>multipart/mixed</code> part, which is how older clients send several files for
+   * one form field (RFC 2388). Like a container, this returns a part for each nested file that is named after the
+   * field, instead of the mixed part itself.
+   */
+  private List<Part> parseMixed(MockPart mixed, String boundary) throws IOException {
+    String name = mixed.getName();
+    MultipartParser parser = new MultipartParser(boundary, config, headerCharset);
+    List<Part> parts;
+    try {
+      if (mixed.bytes != null) {
+        parts = parser.parse(mixed.bytes, mixed.offset, (int) mixed.size);
+      } else {
+        try (InputStream is = mixed.getInputStream()) {
+          parts = parser.parse(is);
+        }
+      }
+    } finally {
+      mixed.delete();
+    }
+
+    for (Part part : parts) {
+      String fileName = part.getSubmittedFileName();
+      String disposition = "form-data; name=\"" + name + "\"";
+      if (fileName != null) {
+        disposition += "; filename=\"" + fileName + "\"";
+      }
+
+      ((MockPart) part).headers.put("Content-Disposition", Collections.singletonList(disposition));
+    }
+
+    return parts;
+  }
+
+  private MockPart parseContent(Map<String, List<String>> headers) throws IOException {
+    long maxFileSize = config.getMaxFileSize();
+    int threshold = config.getFileSizeThreshold();
+
+    // In memory bodies are searched in one pass and small parts are slices
+    if (inputStream == null) {
+      int end = search(position, limit);
+      if (end < 0) {
+        throw new IOException("The multipart body ended in the middle of a part");
+      }
+
+      int length = end - position;
+      if (maxFileSize >= 0 && length > maxFileSize) {
+        throw new IllegalStateException("A multipart part is larger than the maximum size of [" + maxFileSize + "] bytes");
+      }
+
+      MockPart part;
+      if (length <= threshold) {
+        part = new MockPart(headers, buffer, position, length, location);
+      } else {
+        File file = File.createTempFile("prime-mock-part", ".tmp", location);
+        try (OutputStream os = new FileOutputStream(file)) {
+          os.write(buffer, position, length);
+        }
+
+        part = new MockPart(headers, file, length, location);
+      }
+
+      position = end + delimiter.length;
+      return part;
+    }
+
+    ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    OutputStream os = memory;
+    File file = null;
+    long size = 0;
+    try {
+      while (true) {
+        ensure(delimiter.length);
+        int end = search(position, limit);
+        int safe = end >= 0 ? end : eof ? limit : Math.max(position, limit - delimiter.length + 1);
+        int count = safe - position;
+        size += count;
+        if (maxFileSize >= 0 && size > maxFileSize) {
+          throw new IllegalStateException("A multipart part is larger than the maximum size of [" + maxFileSize + "] bytes");
+        }
+
+        if (file == null && size > threshold) {
+          file = File.createTempFile("prime-mock-part", ".tmp", location);
+          os = new FileOutputStream(file);
+          memory.writeTo(os);
+          memory = null;
+        }
+
+        os.write(buffer, position, count);
+        position = safe;
+
+        if (end >= 0) {
+          position = end + delimiter.length;
+          break;
+        } else if (eof) {
+          throw new IOException("The multipart body ended in the middle of a part");
+        }
+
+        // Keep the tail that might be the start of the delimiter and read more
+        if (!ensure(limit - position + 1)) {
+          throw new IOException("The multipart body ended in the middle of a part");
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      os.close();
+      if (file != null) {
+        file.delete();
+      }
+
+      throw e;
+    }
+
+    os.close();
+    if (file != null) {
+      return new MockPart(headers, file, size, location);
+    }
+
+    byte[] bytes = memory.toByteArray();
+    return new MockPart(headers, bytes, 0, bytes.length, location);
+  }
+
+  private Map<String, List<String>> parseHeaders() throws IOException {
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    while (true) {
+      int end = -1;
+      for (int i = position; i < limit - 1; i++) {
+        if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+          end = i;
+          break;
+        }
+      }
+
+      if (end < 0) {
+        if (eof) {
+          throw new IOException("The multipart body ended in the middle of the part headers");
+        }
+
+        ensure(limit - position + 1);
+        continue;
+      }
+
+      if (end == position) {
+        position += 2;
+        return headers;
+      }
+
+      int colon = position;
+      while (colon < end && buffer[colon] != ':') {
+        colon++;
+      }
+
+      if (colon == end) {
+        throw new IOException("Invalid multipart part header [" + new String(buffer, position, end - position, headerCharset) + "]");
+      }
+
+      String name = new String(buffer, position, colon - position, headerCharset).trim();
+      String value = new String(buffer, colon + 1, end - colon - 1, headerCharset).trim();
+      headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+      position = end + 2;
+    }
+  }
+
+  /**
+   * Boyer-Moore-Horspool search for the delimiter.
+   *
+   * @return The index of the delimiter or -1.
+   */
+  private int search(int from, int to) {
+    int last = delimiter.length - 1;
+    int i = from;
+    while (i <= to - delimiter.length) {
+      int j = last;
+      while (buffer[i + j] == delimiter[j]) {
+        if (j == 0) {
+          return i;
+        }
+
+        j--;
+      }
+
+      i += skip[buffer[i + last] & 0xFF];
+    }
+
+    return -1;
+  }
+}
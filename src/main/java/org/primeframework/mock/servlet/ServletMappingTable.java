@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compiled servlet mappings of a {@link MockServletContext}. This is built once from the registrations and then
+ * used for every dispatch until the mappings change. Matching follows the order from the Servlet specification (section
+ * 12.1): exact, longest path prefix, extension and then the default servlet.
+ * <p>
+ * Exact paths are a hash lookup that returns a pre-built match. Path prefixes are stored in a trie keyed by path
+ * segment and extensions in a hash table, and both are probed directly against the path being matched so that no
+ * substrings are created until the path info of a prefix match is needed.
+ *
+ * @author Brian Pontarelli
+ */
+public class ServletMappingTable {
+  private final Map<String, Match> exact = new HashMap<>();
+
+  private final SegmentTable<MockServletRegistration> extensions = new SegmentTable<>();
+
+  private final Node prefixes = new Node();
+
+  private Match contextRoot;
+
+  private MockServletRegistration defaultServlet;
+
+  public ServletMappingTable(Collection<MockServletRegistration> registrations) {
+    for (MockServletRegistration registration : registrations) {
+      for (String pattern : registration.mappings) {
+        if (pattern.isEmpty()) {
+          contextRoot = new Match(registration, MatchType.CONTEXT_ROOT, "", "/");
+        } else if (pattern.equals("/")) {
+          defaultServlet = registration;
+        } else if (pattern.startsWith("*.")) {
+          extensions.put(pattern.substring(2), registration);
+        } else if (pattern.endsWith("/*")) {
+          prefixNode(pattern, true).registration = registration;
+        } else {
+          exact.put(pattern, new Match(registration, MatchType.EXACT, pattern, null));
+        }
+      }
+    }
+  }
+
+  /**
+   * Determines if the given URL pattern matches the path using the Servlet specification rules. This is used for filter
+   * mappings, which don't compete with each other like servlet mappings do.
+   *
+   * @param pattern The URL pattern.
+   * @param path    The context relative path.
+   * @return True if the pattern matches.
+   */
+  public static boolean matches(String pattern, String path) {
+    if (pattern.equals("/*") || pattern.equals("/")) {
+      return true;
+    }
+
+    if (pattern.isEmpty()) {
+      return path.equals("/");
+    }
+
+    if (pattern.startsWith("*.")) {
+      int slash = path.lastIndexOf('/');
+      int dot = path.lastIndexOf('.');
+      return dot > slash && path.regionMatches(dot + 1, pattern, 2, pattern.length() - 2) &&
+          path.length() - dot - 1 == pattern.length() - 2;
+    }
+
+    if (pattern.endsWith("/*")) {
+      int length = pattern.length() - 2;
+      return path.regionMatches(0, pattern, 0, length) && (path.length() == length || path.charAt(length) == '/');
+    }
+
+    return pattern.equals(path);
+  }
+
+  /**
+   * Finds the servlet for the given context relative path.
+   *
+   * @param path The path without the context path or query string.
+   * @return The match or null if no servlet is mapped to the path.
+   */
+  public Match match(String path) {
+    int length = path.length();
+    if (contextRoot != null && (length == 0 || (length == 1 && path.charAt(0) == '/'))) {
+      return contextRoot;
+    }
+
+    Match match = exact.get(path);
+    if (match != null) {
+      return match;
+    }
+
+    // Walk the trie one segment at a time, remembering the deepest node that has a servlet
+    Node node = prefixes;
+    MockServletRegistration registration = node.registration;
+    int prefixEnd = 0;
+    int start = length > 0 && path.charAt(0) == '/' ? 1 : 0;
+    while (node.children != null && start <= length) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = length;
+      }
+
+      node = node.children.get(path, start, end);
+      if (node == null) {
+        break;
+      }
+
+      if (node.registration != null) {
+        registration = node.registration;
+        prefixEnd = end;
+      }
+
+      start = end + 1;
+    }
+
+    if (registration != null) {
+      String servletPath = prefixEnd == 0 ? "" : prefixEnd == length ? path : path.substring(0, prefixEnd);
+      String pathInfo = prefixEnd == length ? null : prefixEnd == 0 ? path : path.substring(prefixEnd);
+      return new Match(registration, MatchType.PATH, servletPath, pathInfo);
+    }
+
+    int slash = path.lastIndexOf('/');
+    int dot = path.lastIndexOf('.');
+    if (dot > slash) {
+      registration = extensions.get(path, dot + 1, length);
+      if (registration != null) {
+        return new Match(registration, MatchType.EXTENSION, path, null);
+      }
+    }
+
+    if (defaultServlet != null) {
+      return new Match(defaultServlet, MatchType.DEFAULT, path, null);
+    }
+
+    return null;
+  }
+
+  /**
+   * Finds the registration that a URL pattern is mapped to.
+   *
+   * @param pattern The URL pattern.
+   * @return The registration or null.
+   */
+  public MockServletRegistration registrationFor(String pattern) {
+    if (pattern.isEmpty()) {
+      return contextRoot != null ? contextRoot.registration : null;
+    } else if (pattern.equals("/")) {
+      return defaultServlet;
+    } else if (pattern.startsWith("*.")) {
+      return extensions.get(pattern, 2, pattern.length());
+    } else if (pattern.endsWith("/*")) {
+      Node node = prefixNode(pattern, false);
+      return node != null ? node.registration : null;
+    }
+
+    Match match = exact.get(pattern);
+    return match != null ? match.registration : null;
+  }
+
+  private Node prefixNode(String pattern, boolean create) {
+    Node node = prefixes;
+    int length = pattern.length() - 2;
+    int start = pattern.charAt(0) == '/' ? 1 : 0;
+    while (start <= length && length > 0) {
+      int end = pattern.indexOf('/', start);
+      if (end < 0 || end > length) {
+        end = length;
+      }
+
+      Node child = node.children != null ? node.children.get(pattern, start, end) : null;
+      if (child == null) {
+        if (!create) {
+          return null;
+        }
+
+        if (node.children == null) {
+          node.children = new SegmentTable<>();
+        }
+
+        child = new Node();
+        node.children.put(pattern.substring(start, end), child);
+      }
+
+      node = child;
+      start = end + 1;
+    }
+
+    return node;
+  }
+
+  /**
+   * How a path was matched to a servlet.
+   */
+  public enum MatchType {
+    CONTEXT_ROOT,
+    DEFAULT,
+    EXACT,
+    EXTENSION,
+    PATH
+  }
+
+  /**
+   * The result of matching a path to a servlet, including the servlet path and path info the request should report.
+   */
+  public static class Match {
+    public final String pathInfo;
+
+    public final MockServletRegistration registration;
+
+    public final String servletPath;
+
+    public final MatchType type;
+
+    public Match(MockServletRegistration registration, MatchType type, String servletPath, String pathInfo) {
+      this.registration = registration;
+      this.type = type;
+      this.servletPath = servletPath;
+      this.pathInfo = pathInfo;
+    }
+  }
+
+  private static class Node {
+    private SegmentTable<Node> children;
+
+    private MockServletRegistration registration;
+  }
+
+  /**
+   * A small open addressing hash table whose lookups take a region of a String rather than a key, so that path
+   * segments and extensions can be found without creating substrings. The hash is the same as String.hashCode().
+   */
+  private static class SegmentTable<T> {
+    private int[] hashes = new int[8];
+
+    private String[] keys = new String[8];
+
+    private int size;
+
+    private Object[] values = new Object[8];
+
+    @SuppressWarnings("unchecked")
+    private T get(String source, int start, int end) {
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + source.charAt(i);
+      }
+
+      int mask = keys.length - 1;
+      int length = end - start;
+      for (int i = spread(hash) & mask; keys[i] != null; i = (i + 1) & mask) {
+        if (hashes[i] == hash && keys[i].length() == length && source.regionMatches(start, keys[i], 0, length)) {
+          return (T) values[i];
+        }
+      }
+
+      return null;
+    }
+
+    private void put(String key, T value) {
+      if ((size + 1) * 2 > keys.length) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[keys.length];
+        values = new Object[keys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+          if (oldKeys[i] != null) {
+            insert(oldKeys[i], oldValues[i]);
+          }
+        }
+      }
+
+      insert(key, value);
+    }
+
+    private void insert(String key, Object value) {
+      int hash = key.hashCode();
+      int mask = keys.length - 1;
+      int i = spread(hash) & mask;
+      while (keys[i] != null) {
+        if (keys[i].equals(key)) {
+          values[i] = value;
+          return;
+        }
+
+        i = (i + 1) & mask;
+      }
+
+      keys[i] = key;
+      hashes[i] = hash;
+      values[i] = value;
+      size++;
+    }
+
+    private static int spread(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+  }
+}
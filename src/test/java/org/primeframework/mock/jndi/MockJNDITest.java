@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.jndi;
+
+import javax.naming.Binding;
+import javax.naming.Context;
+import javax.naming.ContextNotEmptyException;
+import javax.naming.Name;
+import javax.naming.NameAlreadyBoundException;
+import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.NotContextException;
+import javax.naming.Reference;
+import javax.naming.spi.ObjectFactory;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class MockJNDITest {
+  @Test
+  public void concurrent() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    Context context = initialContext(jndi);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        int thread = i;
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 500; j++) {
+            String name = "java:comp/env/jdbc/" + thread + "/" + j;
+            context.bind(name, j);
+            assertEquals(context.lookup(name), j);
+          }
+
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(names(context.list("java:comp/env/jdbc")).size(), 8);
+    assertEquals(names(context.list("java:comp/env/jdbc/7")).size(), 500);
+  }
+
+  @Test
+  public void hierarchy() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    Object dataSource = new Object();
+    jndi.bind("java:comp/env/jdbc/Foo", dataSource);
+
+    Context context = initialContext(jndi);
+    assertSame(context.lookup("java:comp/env/jdbc/Foo"), dataSource);
+
+    Context env = (Context) context.lookup("java:comp/env");
+    assertEquals(env.getNameInNamespace(), "java:comp/env");
+    assertSame(env.lookup("jdbc/Foo"), dataSource);
+    assertEquals(env.composeName("jdbc/Foo", env.getNameInNamespace()), "java:comp/env/jdbc/Foo");
+
+    Context jms = env.createSubcontext("jms");
+    jms.bind("Queue", "queue");
+    assertEquals(context.lookup("java:comp/env/jms/Queue"), "queue");
+    assertEquals(names(env.list("")), asList("jdbc", "jms"));
+
+    NamingEnumeration<Binding> bindings = env.listBindings("jdbc");
+    Binding binding = bindings.next();
+    assertEquals(binding.getName(), "Foo");
+    assertSame(binding.getObject(), dataSource);
+    assertFalse(bindings.hasMore());
+
+    try {
+      env.bind("jdbc/Foo", "other");
+      fail("Should have failed");
+    } catch (NameAlreadyBoundException e) {
+      // Expected
+    }
+
+    try {
+      env.lookup("jdbc/Foo/Bar");
+      fail("Should have failed");
+    } catch (NotContextException e) {
+      // Expected
+    }
+
+    try {
+      env.destroySubcontext("jms");
+      fail("Should have failed");
+    } catch (ContextNotEmptyException e) {
+      // Expected
+    }
+
+    env.rename("jms/Queue", "jdbc/Queue");
+    assertEquals(context.lookup("java:comp/env/jdbc/Queue"), "queue");
+    env.destroySubcontext("jms");
+    assertEquals(names(env.list("")), asList("jdbc"));
+
+    env.unbind("jdbc/Foo");
+    try {
+      context.lookup("java:comp/env/jdbc/Foo");
+      fail("Should have failed");
+    } catch (NameNotFoundException e) {
+      // Expected
+    }
+
+    context.close();
+  }
+
+  @Test
+  public void lazy() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    AtomicInteger created = new AtomicInteger();
+    jndi.bindLazy("java:comp/env/jdbc/Lazy", () -> "lazy" + created.incrementAndGet());
+    jndi.bindFactory("java:comp/env/jdbc/Factory", (obj, name, nameCtx, environment) -> "factory " + name);
+    jndi.bindPerThread("java:comp/env/jdbc/Thread", () -> new Object());
+    jndi.bindPooled("java:comp/env/jdbc/Pool", 2, () -> "pooled" + created.incrementAndGet());
+    assertEquals(created.get(), 0);
+
+    Context context = initialContext(jndi);
+    assertEquals(context.lookup("java:comp/env/jdbc/Lazy"), "lazy1");
+    assertEquals(context.lookup("java:comp/env/jdbc/Lazy"), "lazy1");
+    assertEquals(((Context) context.lookup("java:comp/env")).lookup("jdbc/Factory"), "factory jdbc/Factory");
+
+    Object mine = context.lookup("java:comp/env/jdbc/Thread");
+    assertSame(context.lookup("java:comp/env/jdbc/Thread"), mine);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertNotSame(executor.submit(() -> context.lookup("java:comp/env/jdbc/Thread")).get(), mine);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(context.lookup("java:comp/env/jdbc/Pool"), "pooled2");
+    assertEquals(context.lookup("java:comp/env/jdbc/Pool"), "pooled3");
+    assertEquals(context.lookup("java:comp/env/jdbc/Pool"), "pooled2");
+
+    // References are resolved with their factory on the first lookup
+    Reference reference = new Reference(StringBuilder.class.getName(), TestFactory.class.getName(), null);
+    context.bind("java:comp/env/ref", reference);
+    Object resolved = context.lookup("java:comp/env/ref");
+    assertTrue(resolved instanceof StringBuilder);
+    assertSame(context.lookup("java:comp/env/ref"), resolved);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void mapConstructor() throws Exception {
+    Context context = new MockJNDI.MockInitialContextFactory(singletonMap("a/b", "c")).getInitialContext(null);
+    assertEquals(context.lookup("a/b"), "c");
+    assertTrue(context.lookup("a") instanceof Context);
+  }
+
+  @Test
+  public void nullValues() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    Context context = initialContext(jndi);
+    try {
+      context.bind("java:comp/env/jdbc/Null", null);
+      fail("Should have thrown");
+    } catch (NamingException e) {
+      assertTrue(e.getMessage().contains("null"));
+    }
+
+    try {
+      context.rebind("java:comp/env/jdbc/Null", null);
+      fail("Should have thrown");
+    } catch (NamingException e) {
+      assertTrue(e.getMessage().contains("null"));
+    }
+
+    try {
+      jndi.bind("java:comp/env/jdbc/Null", null);
+      fail("Should have thrown");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // Nothing was created for the failed binds
+    try {
+      context.lookup("java:comp");
+      fail("Should have thrown");
+    } catch (NameNotFoundException e) {
+      // Expected
+    }
+  }
+
+  public static class TestFactory implements ObjectFactory {
+    @Override
+    public Object getObjectInstance(Object obj, Name name, Context nameCtx, Hashtable<?, ?> environment) {
+      return new StringBuilder(name.toString());
+    }
+  }
+
+  @Test
+  public void scopes() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    jndi.bind("java:comp/env/jdbc/Shared", "shared");
+    jndi.bind("java:comp/env/jdbc/Foo", "base");
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        String value = "thread" + i;
+        futures.add(executor.submit(() -> {
+          try (MockJNDI.Scope scope = jndi.openScope()) {
+            jndi.bind("java:comp/env/jdbc/Foo", value);
+            assertEquals(scope.getContext().lookup("java:comp/env/jdbc/Foo"), value);
+            Context context = initialContext(jndi);
+            assertEquals(context.lookup("java:comp/env/jdbc/Shared"), "shared");
+            assertEquals(names(context.list("java:comp/env/jdbc")), asList("Foo", "Shared"));
+            Thread.sleep(10);
+            return (String) context.lookup("java:comp/env/jdbc/Foo");
+          }
+        }));
+      }
+
+      for (int i = 0; i < 4; i++) {
+        assertEquals(futures.get(i).get(10, TimeUnit.SECONDS), "thread" + i);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Context context = initialContext(jndi);
+    assertEquals(context.lookup("java:comp/env/jdbc/Foo"), "base");
+
+    try (MockJNDI.Scope outer = jndi.openScope()) {
+      Context scoped = initialContext(jndi);
+      scoped.unbind("java:comp/env/jdbc");
+      assertEquals(names(scoped.list("java:comp/env")), emptyList());
+      scoped.bind("java:comp/env/jdbc/Bar", "bar");
+      assertEquals(names(scoped.list("java:comp/env/jdbc")), asList("Bar"));
+
+      try (MockJNDI.Scope inner = jndi.openScope()) {
+        Context nested = initialContext(jndi);
+        nested.rebind("java:comp/env/jdbc/Bar", "nested");
+        assertEquals(nested.lookup("java:comp/env/jdbc/Bar"), "nested");
+        assertEquals(scoped.lookup("java:comp/env/jdbc/Bar"), "bar");
+        assertEquals(outer.getContext().lookup("java:comp/env/jdbc/Bar"), "bar");
+        assertEquals(inner.getContext().lookup("java:comp/env/jdbc/Bar"), "nested");
+      }
+
+      assertEquals(initialContext(jndi).lookup("java:comp/env/jdbc/Bar"), "bar");
+    }
+
+    assertEquals(names(context.list("java:comp/env/jdbc")), asList("Foo", "Shared"));
+  }
+
+  @Test
+  public void scopesAndPools() throws Exception {
+    MockJNDI jndi = new MockJNDI();
+    jndi.bind("java:comp/env/jdbc/Foo", "base");
+
+    // A pool thread started inside a scope inherits it, but drops it once the scope is closed
+    ExecutorService inherited;
+    try (MockJNDI.Scope scope = jndi.openScope()) {
+      jndi.bind("java:comp/env/jdbc/Foo", "scoped");
+      assertEquals(scope.getContext().lookup("java:comp/env/jdbc/Foo"), "scoped");
+      inherited = Executors.newSingleThreadExecutor();
+      assertEquals(inherited.submit(() -> initialContext(jndi).lookup("java:comp/env/jdbc/Foo")).get(10, TimeUnit.SECONDS), "scoped");
+    }
+
+    // A pool whose thread was started outside of a scope only sees it in the tasks that are wrapped
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+      assertEquals(inherited.submit(() -> initialContext(jndi).lookup("java:comp/env/jdbc/Foo")).get(10, TimeUnit.SECONDS), "base");
+
+      try (MockJNDI.Scope scope = jndi.openScope()) {
+        jndi.bind("java:comp/env/jdbc/Foo", "wrapped");
+        Callable<Object> lookup = () -> initialContext(jndi).lookup("java:comp/env/jdbc/Foo");
+        assertEquals(executor.submit(lookup).get(10, TimeUnit.SECONDS), "base");
+        assertEquals(executor.submit(scope.wrap(lookup)).get(10, TimeUnit.SECONDS), "wrapped");
+        assertEquals(executor.submit(lookup).get(10, TimeUnit.SECONDS), "base");
+      }
+    } finally {
+      inherited.shutdownNow();
+      executor.shutdownNow();
+    }
+  }
+
+  private Context initialContext(MockJNDI jndi) throws NamingException {
+    return jndi.createInitialContextFactory(null).getInitialContext(null);
+  }
+
+  private List<String> names(NamingEnumeration<NameClassPair> enumeration) throws NamingException {
+    List<String> names = new ArrayList<>();
+    while (enumeration.hasMore()) {
+      names.add(enumeration.next().getName());
+    }
+
+    return names;
+  }
+}
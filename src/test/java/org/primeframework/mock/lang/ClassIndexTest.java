@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import javax.servlet.GenericServlet;
+import javax.servlet.http.HttpServlet;
+import java.io.File;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class ClassIndexTest {
+  @Test
+  public void directory() throws Exception {
+    ClassIndex index = new ClassIndex(new ClassPath(singletonList(location(ClassIndexTest.class))));
+    String prefix = ClassIndexTest.class.getName() + "$";
+
+    assertEquals(index.getAnnotatedWith(prefix + "Controller"), asList(prefix + "Admin", prefix + "Users"));
+    assertEquals(index.getAnnotatedWith(prefix + "Invisible"), singletonList(prefix + "Users"));
+    assertEquals(index.getSubclasses(prefix + "Base"), singletonList(prefix + "Users"));
+    assertEquals(index.getImplementations(Runnable.class.getName()), singletonList(prefix + "Base"));
+    assertEquals(index.getAllSubtypes(Runnable.class.getName()),
+        asList(prefix + "Admin", prefix + "Base", prefix + "Users"));
+    assertEquals(index.getSuperclass(prefix + "Admin"), prefix + "Users");
+    assertTrue(index.isInterface(prefix + "Controller"));
+    assertFalse(index.isInterface(prefix + "Base"));
+    assertNull(index.getSuperclass("java.lang.String"));
+    assertEquals(index.getAnnotatedWith("com.example.Missing"), Collections.emptyList());
+  }
+
+  @Test
+  public void corrupt() throws Exception {
+    String prefix = ClassIndexTest.class.getName() + "$";
+    byte[] users = Files.readAllBytes(new File(location(ClassIndexTest.class), prefix.replace('.', '/') + "Users.class").toPath());
+
+    // Truncated class files never throw. They are rejected, unless everything that is read comes before the cut
+    for (int length = 0; length < users.length; length++) {
+      ClassFileReader.read(Arrays.copyOf(users, length));
+    }
+
+    assertNull(ClassFileReader.read(Arrays.copyOf(users, users.length / 2)));
+
+    // A JAR with a corrupt entry and a truncated class still has its good class
+    Path jar = Files.createTempFile("prime-mock-classes", ".jar");
+    try {
+      String bad = "bad/Corrupt.class";
+      try (JarOutputStream os = new JarOutputStream(Files.newOutputStream(jar))) {
+        os.putNextEntry(new JarEntry(bad));
+        os.write(users);
+        os.closeEntry();
+        os.putNextEntry(new JarEntry("bad/Truncated.class"));
+        os.write(users, 0, users.length / 2);
+        os.closeEntry();
+        os.putNextEntry(new JarEntry(prefix.replace('.', '/') + "Users.class"));
+        os.write(users);
+        os.closeEntry();
+      }
+
+      // Overwrite the start of the first entry's deflated data, which follows its 30 byte local header and name
+      byte[] bytes = Files.readAllBytes(jar);
+      Arrays.fill(bytes, 30 + bad.length(), 30 + bad.length() + 8, (byte) 0xFF);
+      Files.write(jar, bytes);
+
+      ClassIndex index = new ClassIndex(new ClassPath(singletonList(jar.toString())));
+      assertEquals(index.getClassNames(), singleton(prefix + "Users"));
+    } finally {
+      Files.delete(jar);
+    }
+  }
+
+  @Test
+  public void jar() throws Exception {
+    ClassIndex index = new ClassIndex(new ClassPath(singletonList(location(HttpServlet.class))));
+    assertTrue(index.getClassNames().contains(HttpServlet.class.getName()));
+    assertTrue(index.getSubclasses(GenericServlet.class.getName()).contains(HttpServlet.class.getName()));
+    assertTrue(index.getImplementations("javax.servlet.Servlet").contains(GenericServlet.class.getName()));
+  }
+
+  private static String location(Class<?> type) throws Exception {
+    return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface Controller {
+    String value() default "";
+
+    String[] paths() default {};
+  }
+
+  @Retention(RetentionPolicy.CLASS)
+  public @interface Invisible {
+  }
+
+  public static abstract class Base implements Runnable {
+    public static final long BIG = Long.MAX_VALUE;
+
+    public static final double PI = 3.14;
+  }
+
+  @Controller(value = "users", paths = {"/users", "/people"})
+  @Invisible
+  public static class Users extends Base {
+    @Override
+    public void run() {
+    }
+  }
+
+  @Controller
+  public static class Admin extends Users {
+  }
+}
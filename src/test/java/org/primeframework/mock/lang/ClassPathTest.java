@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import org.primeframework.mock.lang.ClassPath.ClassPathBuilder;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class ClassPathTest {
+  @Test
+  public void classLoaderCache() throws Exception {
+    Path dir = Files.createTempDirectory("prime-mock-classpath");
+    try (ClassLoaderCache cache = new ClassLoaderCache(1)) {
+      ClassPath one = new ClassPath(asList(jar(dir.resolve("a.jar"), null).getPath()));
+      ClassPath two = new ClassPath(asList(dir.toString()));
+      ClassLoader parent = getClass().getClassLoader();
+
+      ClassLoaderCache.Lease first = cache.acquire(one, parent);
+      ClassLoaderCache.Lease second = cache.acquire(new ClassPath(one), parent);
+      assertSame(second.getClassLoader(), first.getClassLoader());
+      assertEquals(first.getClassLoader().getURLs(), one.toURLs());
+      assertNotNull(first.getClassLoader().getResource("foo/Bar.txt"));
+      assertNotSame(cache.acquire(one, null).getClassLoader(), first.getClassLoader());
+      assertEquals(cache.size(), 2);
+
+      // Idle loaders are reused until more than maxIdle are idle, and then the least recently released is closed
+      first.close();
+      first.close();
+      second.close();
+      ClassLoaderCache.Lease third = cache.acquire(two, parent);
+      third.close();
+      assertEquals(cache.size(), 2);
+      assertSame(cache.acquire(two, parent).getClassLoader(), third.getClassLoader());
+      assertNotSame(cache.acquire(one, parent).getClassLoader(), first.getClassLoader());
+
+      assertEquals(cache.evictIdle(), 0);
+      assertEquals(cache.size(), 3);
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void index() throws Exception {
+    Path dir = Files.createTempDirectory("prime-mock-classpath");
+    try {
+      Path classes = Files.createDirectories(dir.resolve("classes/META-INF"));
+      Files.write(classes.resolve("app.tld"), "app".getBytes(StandardCharsets.UTF_8));
+      Files.write(classes.getParent().resolve("foo"), "foo".getBytes(StandardCharsets.UTF_8));
+      File a = jar(dir.resolve("a.jar"), null);
+      File b = jar(dir.resolve("b.jar"), null);
+
+      String missing = dir.resolve("missing.jar").toString();
+      ClassPath classPath = new ClassPath(asList(b.getPath(), classes.getParent().toString(), a.getPath(), missing));
+      ClassPathIndex index = classPath.getIndex();
+      assertSame(classPath.getIndex(), index);
+      assertEquals(index.find("META-INF/app.tld"), classes.getParent().toString());
+      assertEquals(index.find("foo/Bar.txt"), b.getPath());
+      assertEquals(index.findAll("foo/Bar.txt"), asList(b.getPath(), a.getPath()));
+      assertNull(index.find("foo/Baz.txt"));
+      assertEquals(index.findAll("foo/Baz.txt"), emptyList());
+      assertEquals(index.list("META-INF/"), asList("META-INF/MANIFEST.MF", "META-INF/app.tld"));
+      assertEquals(index.list("foo"), asList("foo", "foo/Bar.txt"));
+      assertEquals(index.size(), 6);
+
+      classPath.removeEntry(b.getPath());
+      assertEquals(classPath.getIndex().find("foo/Bar.txt"), a.getPath());
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void parallelBuild() throws Exception {
+    Path dir = Files.createTempDirectory("prime-mock-classpath");
+    try {
+      File a = jar(dir.resolve("a.jar"), "b.jar lib/c.jar missing.jar");
+      File b = jar(dir.resolve("b.jar"), "lib/c.jar");
+      Files.createDirectories(dir.resolve("lib"));
+      File c = jar(dir.resolve("lib/c.jar"), null);
+      File cacheFile = dir.resolve("cache/classpath.txt").toFile();
+
+      List<String> names = build(a, b, cacheFile);
+
+      // The duplicates are removed and the manifest references are added after the class loader's entries
+      assertEquals(names.subList(names.size() - 3, names.size()), asList(a.getPath(), b.getPath(), c.getPath()));
+      assertTrue(cacheFile.isFile());
+
+      // Add an entry to the cache file, but keep its fingerprint, to show that the next run uses it
+      ClassPathBuilder.clearMemoryCache();
+      File extra = jar(dir.resolve("extra.jar"), null);
+      byte[] line = (extra.lastModified() + "\t" + extra.getPath() + "\n").getBytes(StandardCharsets.UTF_8);
+      Files.write(cacheFile.toPath(), line, StandardOpenOption.APPEND);
+      assertTrue(build(a, b, cacheFile).contains(extra.getPath()));
+
+      // Changing an entry invalidates the cache
+      assertTrue(c.setLastModified(c.lastModified() - 10_000));
+      List<String> rebuilt = build(a, b, cacheFile);
+      assertEquals(rebuilt.get(rebuilt.size() - 1), c.getPath());
+
+      // A cache file that can't be written doesn't fail the build
+      ClassPathBuilder.clearMemoryCache();
+      File blocked = dir.resolve("a.jar/classpath.txt").toFile();
+      assertEquals(build(a, b, blocked), rebuilt);
+      assertFalse(blocked.exists());
+    } finally {
+      delete(dir);
+    }
+  }
+
+  private List<String> build(File a, File b, File cacheFile) throws IOException {
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{a.toURI().toURL(), b.toURI().toURL()}, null)) {
+      ClassPathBuilder builder = ClassPath.build(loader);
+      builder.setParallel(true);
+      builder.setCacheFile(cacheFile);
+      return builder.build().getNames();
+    }
+  }
+
+  private void delete(Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  private File jar(Path path, String classPath) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (classPath != null) {
+      manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+    }
+
+    // The builder finds JARs by their META-INF directory entry, which JarOutputStream doesn't add
+    try (OutputStream os = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(os, manifest)) {
+      jar.putNextEntry(new JarEntry("META-INF/"));
+      jar.closeEntry();
+      jar.putNextEntry(new JarEntry("foo/Bar.txt"));
+      jar.write("bar".getBytes(StandardCharsets.UTF_8));
+      jar.closeEntry();
+    }
+
+    return path.toFile();
+  }
+}
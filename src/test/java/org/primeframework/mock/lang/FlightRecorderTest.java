@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.lang;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.primeframework.mock.servlet.MockContainer;
+import org.primeframework.mock.servlet.MockHttpServletRequest;
+import org.primeframework.mock.servlet.MockServletInputStream;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class FlightRecorderTest {
+  @Test
+  public void events() throws Exception {
+    if (!FlightRecorder.AVAILABLE) {
+      throw new SkipException("JFR isn't available in this JVM");
+    }
+
+    Path file = Files.createTempFile("prime-mock", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("org.primeframework.mock.Request");
+      recording.enable("org.primeframework.mock.Session");
+      recording.enable("org.primeframework.mock.ClassPathScan");
+      recording.start();
+
+      MockContainer container = new MockContainer();
+      container.getContext().addServlet("echo", new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+          req.getSession().invalidate();
+          byte[] buf = new byte[16];
+          int read = req.getInputStream().read(buf);
+          resp.setStatus(202);
+          resp.getOutputStream().write(buf, 0, read);
+          resp.getOutputStream().write(buf, 0, read);
+        }
+      }).addMapping("/echo");
+
+      MockHttpServletRequest request = container.newServletRequest("/echo");
+      request.setInputStream(new MockServletInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+      container.service();
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    try {
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      RecordedEvent request = events.stream()
+                                    .filter(e -> e.getEventType().getName().equals("org.primeframework.mock.Request"))
+                                    .findFirst()
+                                    .orElseThrow(AssertionError::new);
+      assertEquals(request.getString("uri"), "/echo");
+      assertEquals(request.getString("method"), "GET");
+      assertEquals(request.getInt("status"), 202);
+      assertEquals(request.getLong("requestBodyBytes"), 5);
+      assertEquals(request.getLong("responseBodyBytes"), 10);
+
+      assertEquals(events.stream().filter(e -> e.getEventType().getName().equals("org.primeframework.mock.Session")).count(), 2);
+      assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("org.primeframework.mock.ClassPathScan")));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+/**
+ * Guards the number of bytes the common mock operations allocate per call. Under C2 the header, parameter and response
+ * write operations measure 0 bytes because escape analysis removes their temporary objects, so their small budgets only
+ * leave room for an iterator or two that a different JIT doesn't remove (C1 and the interpreter measure 32 bytes for
+ * the header lookup). {@link AllocationMeter} skips these tests when C2 can't run on unmodified code. The cookie and
+ * multipart budgets cover real allocations (the cookie list and the part headers and buffers) and are about a third
+ * over the measured values (1,856 and 9,698 bytes on Java 17). If a change legitimately needs more, raise the budget
+ * in the same commit and say why.
+ *
+ * @author Brian Pontarelli
+ */
+public class AllocationBudgetTest {
+  public static final long GET_COOKIES_BUDGET = 2_500;
+
+  public static final long GET_HEADER_BUDGET = 64;
+
+  public static final long GET_PARAMETER_BUDGET = 16;
+
+  public static final long MULTIPART_BUDGET = 14_000;
+
+  public static final long RESPONSE_WRITE_BUDGET = 16;
+
+  @Test
+  public void getCookies() throws Exception {
+    MockContainer container = new MockContainer();
+    for (int i = 0; i < 20; i++) {
+      MockHttpServletRequest other = container.newServletRequest("/app" + (i % 4) + "/page");
+      Cookie cookie = new Cookie("cookie" + i, "value" + i);
+      cookie.setPath("/app" + (i % 4));
+      container.getUserAgent().addCookie(other, cookie);
+    }
+
+    MockHttpServletRequest request = container.newServletRequest("/app1/page");
+    AllocationMeter.assertBudget("MockUserAgent.getCookies", GET_COOKIES_BUDGET, 10_000,
+        () -> container.getUserAgent().getCookies(request));
+  }
+
+  @Test
+  public void getHeader() throws Exception {
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+    for (int i = 0; i < 10; i++) {
+      request.addHeader("X-Header-" + i, "value" + i);
+    }
+
+    AllocationMeter.assertBudget("MockHttpServletRequest.getHeader", GET_HEADER_BUDGET, 100_000,
+        () -> request.getHeader("x-header-7"));
+  }
+
+  @Test
+  public void getParameter() throws Exception {
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+    for (int i = 0; i < 10; i++) {
+      request.setParameter("param" + i, "value" + i);
+    }
+
+    AllocationMeter.assertBudget("MockHttpServletRequest.getParameter", GET_PARAMETER_BUDGET, 100_000,
+        () -> request.getParameter("param7"));
+  }
+
+  @Test
+  public void multipart() throws Exception {
+    MockContainer container = new MockContainer();
+    File file = new File("src/test/java/org/primeframework/mock/servlet/test-file.txt");
+    byte[] buffer = new byte[8192];
+    AllocationMeter.assertBudget("Multipart request body", MULTIPART_BUDGET, 2_000, () -> {
+      MockHttpServletRequest request = container.newServletRequest("/upload");
+      request.setParameter("name", "value");
+      request.addFile("file", file, "text/plain");
+
+      int total = 0;
+      try (ServletInputStream is = request.getInputStream()) {
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+          total += read;
+        }
+      }
+
+      return total;
+    });
+  }
+
+  @Test
+  public void responseWrite() throws Exception {
+    MockHttpServletResponse response = new MockContainer().newServletResponse();
+    byte[] bytes = "{\"user\":{\"name\":\"Bob\",\"email\":\"bob@example.com\"}}".getBytes(StandardCharsets.UTF_8);
+    AllocationMeter.assertBudget("MockHttpServletResponse write", RESPONSE_WRITE_BUDGET, 100_000, () -> {
+      response.getStream().baos.reset();
+      response.getOutputStream().write(bytes);
+      return response;
+    });
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.lang.management.ManagementFactory;
+
+import org.testng.SkipException;
+
+/**
+ * Measures the bytes allocated per call of an operation using the current thread's allocation counter from
+ * {@link com.sun.management.ThreadMXBean}. The operation is warmed up first so that the JIT has done its escape
+ * analysis, and the lowest of several rounds is used so that a stray allocation (class loading, a TLAB refill) doesn't
+ * fail a budget.
+ * <p>
+ * The numbers are only stable when the C2 compiler and its escape analysis run on unmodified code, so measuring is
+ * skipped on the interpreter (<code>-Xint</code>), when tiered compilation stops before C2, when escape analysis is off
+ * and when an agent (a coverage tool or a debugger) is attached.
+ *
+ * @author Brian Pontarelli
+ */
+public final class AllocationMeter {
+  private static final int ROUNDS = 5;
+
+  private static final int WARMUP = 20_000;
+
+  private static final com.sun.management.ThreadMXBean threads = threadMXBean();
+
+  private static final String unstable = unstable();
+
+  private static volatile Object sink;
+
+  private AllocationMeter() {
+  }
+
+  /**
+   * Asserts that the operation allocates no more than the budget per call.
+   *
+   * @param name       The name of the operation for the failure message.
+   * @param budget     The budget in bytes per call.
+   * @param iterations The number of calls in each round.
+   * @param operation  The operation.
+   * @throws SkipException If the JVM can't measure allocations or the numbers wouldn't be stable.
+   */
+  public static void assertBudget(String name, long budget, int iterations, Operation operation) throws Exception {
+    long measured = bytesPerOperation(iterations, operation);
+    if (measured > budget) {
+      throw new AssertionError("[" + name + "] allocated [" + measured + "] bytes per call, which is over its budget of [" +
+          budget + "] bytes");
+    }
+  }
+
+  /**
+   * @param iterations The number of calls in each round.
+   * @param operation  The operation.
+   * @return The bytes allocated per call.
+   * @throws SkipException If the JVM can't measure allocations or the numbers wouldn't be stable.
+   */
+  public static long bytesPerOperation(int iterations, Operation operation) throws Exception {
+    if (threads == null) {
+      throw new SkipException("This JVM doesn't support measuring thread allocations");
+    }
+
+    if (unstable != null) {
+      throw new SkipException("Allocations aren't stable on this JVM because of [" + unstable + "]");
+    }
+
+    for (int i = 0; i < WARMUP; i++) {
+      sink = operation.run();
+    }
+
+    long thread = Thread.currentThread().getId();
+    long lowest = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = threads.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < iterations; i++) {
+        sink = operation.run();
+      }
+
+      long allocated = threads.getThreadAllocatedBytes(thread) - start;
+      lowest = Math.min(lowest, allocated / iterations);
+    }
+
+    sink = null;
+    return lowest;
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    try {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (sunBean.isThreadAllocatedMemorySupported()) {
+          sunBean.setThreadAllocatedMemoryEnabled(true);
+          return sunBean;
+        }
+      }
+    } catch (LinkageError e) {
+      // Not a HotSpot based JVM
+    }
+
+    return null;
+  }
+
+  /**
+   * @return The JVM option that keeps C2 and its escape analysis from running on unmodified code, or null if there
+   * isn't one.
+   */
+  private static String unstable() {
+    if (System.getProperty("java.vm.info", "").contains("interpreted")) {
+      return "-Xint";
+    }
+
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (argument.equals("-Xint") || argument.equals("-XX:-DoEscapeAnalysis") || argument.startsWith("-javaagent") ||
+          argument.startsWith("-agentlib") || argument.startsWith("-agentpath") ||
+          (argument.startsWith("-XX:TieredStopAtLevel=") && !argument.equals("-XX:TieredStopAtLevel=4"))) {
+        return argument;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * An operation to measure. The result is kept so that the JIT can't remove the call.
+   */
+  @FunctionalInterface
+  public interface Operation {
+    Object run() throws Exception;
+  }
+}
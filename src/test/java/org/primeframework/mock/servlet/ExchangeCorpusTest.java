@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.primeframework.mock.servlet.ExchangeCorpus.ReplayReport;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class ExchangeCorpusTest {
+  @Test
+  public void recordedBodies() throws Exception {
+    // A form body that is built from the parameters
+    MockContainer container = new MockContainer();
+    MockHttpServletRequest request = container.newServletRequest("/form");
+    request.setMethod(MockHttpServletRequest.Method.POST);
+    request.setContentType("application/x-www-form-urlencoded");
+    request.setParameter("name", "value");
+    ExchangeRecord record = record(request, container.getResponse());
+    assertEquals(StandardCharsets.UTF_8.decode(record.requestBody).toString(), "name=value");
+    assertEquals(record.toRequest(new MockContainer()).getParameterValues("name"), new String[]{"value"});
+
+    // A form body the application never decoded
+    request = container.newServletRequest("/form");
+    request.setMethod(MockHttpServletRequest.Method.POST);
+    request.setContentType("application/x-www-form-urlencoded");
+    request.setInputStream(new MockServletInputStream("a=1&b=2".getBytes(StandardCharsets.UTF_8)));
+    record = record(request, container.getResponse());
+    assertEquals(record.parameters.get("b"), singletonList("2"));
+    assertEquals(record.toRequest(new MockContainer()).getParameterValues("a"), new String[]{"1"});
+
+    // A chunked body that the application has partly read is recorded whole and de-chunked, and can still be read
+    request = container.newServletRequest("/chunked");
+    request.setMethod(MockHttpServletRequest.Method.POST);
+    request.setChunkedBody(asList(ascii("hello"), ascii(", "), ascii("world")).iterator());
+    ServletInputStream is = request.getInputStream();
+    assertEquals(is.read(), 'h');
+    record = record(request, container.getResponse());
+    assertEquals(StandardCharsets.UTF_8.decode(record.requestBody).toString(), "hello, world");
+    assertEquals(record.headers.get("Transfer-Encoding"), singletonList("chunked"));
+    byte[] rest = new byte[32];
+    assertEquals(new String(rest, 0, is.read(rest), StandardCharsets.UTF_8), "ello, world");
+    assertEquals(is.read(), -1);
+
+    request = container.newServletRequest("/chunked");
+    request.setChunkedBody(singletonList(ascii("large")).iterator(), false);
+    try {
+      record(request, container.getResponse());
+      fail("Should have failed");
+    } catch (IOException e) {
+      // Expected
+    }
+
+    // A compressed body is recorded encoded, so the replayed request decodes to the same body
+    byte[] plain = new byte[20_000];
+    Arrays.fill(plain, (byte) 'a');
+    request = container.newServletRequest("/compressed");
+    request.setMethod(MockHttpServletRequest.Method.POST);
+    request.setCompressedBody(plain, "gzip");
+    is = request.getInputStream();
+    assertEquals(is.read(), 0x1f);
+    record = record(request, container.getResponse());
+    assertEquals(record.headers.get("Content-Encoding"), singletonList("gzip"));
+    byte[] encoded = new byte[record.requestBody.remaining()];
+    record.requestBody.duplicate().get(encoded);
+    assertEquals(readAll(new GZIPInputStream(new ByteArrayInputStream(encoded))), plain);
+    assertEquals(readAll(is).length, encoded.length - 1);
+
+    request = container.newServletRequest("/compressed");
+    request.setCompressedBody(new ByteArrayInputStream(plain), "gzip", false);
+    try {
+      record(request, container.getResponse());
+      fail("Should have failed");
+    } catch (IOException e) {
+      // Expected
+    }
+
+    // A stream that can't be read again isn't silently recorded as empty
+    request = container.newServletRequest("/stream");
+    request.setInputStream(new MockMetrics.MeteredInputStream(new MockServletInputStream(new byte[1]), null));
+    try {
+      record(request, container.getResponse());
+      fail("Should have failed");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("MeteredInputStream"), e.getMessage());
+    }
+  }
+
+  @Test
+  public void writeAndReplay() throws Exception {
+    Path file = Files.createTempFile("exchanges", ".pmx");
+    try {
+      try (ExchangeWriter writer = new ExchangeWriter(file)) {
+        for (int i = 0; i < 20; i++) {
+          MockContainer container = new MockContainer();
+          install(container, "Hello");
+          MockHttpServletRequest request = container.newServletRequest("/echo/" + i);
+          request.setMethod(MockHttpServletRequest.Method.POST);
+          request.addHeader("X-Index", Integer.toString(i));
+          request.setParameter("index", Integer.toString(i));
+          container.getUserAgent().addCookie(request, new Cookie("session", "value" + i));
+          request.setContentType("text/plain");
+          request.setInputStream(new MockServletInputStream(("body" + i).getBytes(StandardCharsets.UTF_8)));
+          container.service();
+          writer.write(request, container.getResponse(), 1000 + i);
+        }
+      }
+
+      try (ExchangeCorpus corpus = new ExchangeCorpus(file)) {
+        assertEquals(corpus.size(), 20);
+
+        ExchangeRecord record = corpus.get(7);
+        assertEquals(record.method, "POST");
+        assertEquals(record.uri, "/echo/7");
+        assertEquals(record.durationNanos, 1007);
+        assertEquals(record.headers.get("X-Index"), singletonList("7"));
+        assertEquals(record.parameters.get("index"), singletonList("7"));
+        assertEquals(record.cookies.get(0).getValue(), "value7");
+        assertEquals(record.requestBody.remaining(), 5);
+        assertEquals(record.responseStatus, 201);
+
+        ReplayReport report = corpus.replay(container -> {
+          install(container, "Hello");
+          container.service();
+        }, 4);
+        assertTrue(report.passed(), report.mismatches.toString());
+        assertEquals(report.durations.length, 20);
+        assertTrue(report.percentile(99) >= report.percentile(50));
+
+        report = corpus.replay(container -> {
+          install(container, "Goodbye");
+          container.service();
+        }, 2);
+        assertFalse(report.passed());
+        assertEquals(report.mismatches.size(), 20);
+        assertEquals(report.mismatches.get(0).index, 0);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private ByteBuffer ascii(String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private byte[] readAll(InputStream is) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = is.read(buffer)) != -1) {
+      baos.write(buffer, 0, read);
+    }
+
+    return baos.toByteArray();
+  }
+
+  private ExchangeRecord record(MockHttpServletRequest request, MockHttpServletResponse response) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ExchangeWriter writer = new ExchangeWriter(baos)) {
+      writer.write(request, response, 1);
+    }
+
+    // Skip the magic number and the length of the record
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    buffer.position(8);
+    return new ExchangeRecord(buffer);
+  }
+
+  private void install(MockContainer container, String greeting) {
+    container.getContext().addServlet("echo", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        byte[] body = new byte[1024];
+        int length = req.getInputStream().read(body);
+        resp.setStatus(201);
+        resp.setHeader("X-Index", req.getHeader("X-Index"));
+        resp.getOutputStream().print(greeting + " " + req.getParameter("index") + " " + req.getCookies()[0].getValue() + " " + new String(body, 0, length, StandardCharsets.UTF_8));
+      }
+    }).addMapping("/echo/*");
+  }
+}
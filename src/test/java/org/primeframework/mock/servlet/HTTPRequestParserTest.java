@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class HTTPRequestParserTest {
+  @Test
+  public void chunkedInPieces() throws IOException {
+    byte[] bytes = ("POST /upload HTTP/1.1\r\n" +
+        "Host: example.com:8080\r\n" +
+        "Transfer-Encoding: chunked\r\n" +
+        "Content-Type: text/plain; charset=UTF-8\r\n" +
+        "\r\n" +
+        "5;ext=1\r\nhello\r\n" +
+        "7\r\n, world\r\n" +
+        "0\r\n" +
+        "X-Trailer: done\r\n" +
+        "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    // Feed one byte at a time
+    HTTPRequestParser parser = new HTTPRequestParser(new MockContainer());
+    MockHttpServletRequest request = null;
+    for (int i = 0; i < bytes.length; i++) {
+      assertNull(request, "Parsed early at byte " + i);
+      request = parser.parse(ByteBuffer.wrap(bytes, i, 1));
+    }
+
+    assertEquals(request.getMethod(), "POST");
+    assertEquals(request.getRequestURI(), "/upload");
+    assertEquals(request.getServerName(), "example.com");
+    assertEquals(request.getServerPort(), 8080);
+    assertEquals(request.getContentType(), "text/plain; charset=UTF-8");
+    assertEquals(request.getCharacterEncoding(), "UTF-8");
+    assertEquals(request.getHeader("x-trailer"), "done");
+    assertEquals(read(request.getInputStream()), "hello, world");
+  }
+
+  @Test
+  public void contentLength() throws IOException {
+    // Chunked wins over a Content-Length that comes after it
+    String raw = "POST /upload HTTP/1.1\r\n" +
+        "Transfer-Encoding: chunked\r\n" +
+        "Content-Length: 100\r\n" +
+        "\r\n" +
+        "3\r\nabc\r\n" +
+        "0\r\n" +
+        "\r\n";
+    MockHttpServletRequest request = new HTTPRequestParser(new MockContainer())
+        .parse(new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(request.getHeader("Transfer-Encoding"), "chunked");
+    assertEquals(request.getContentLengthLong(), -1);
+    assertEquals(read(request.getInputStream()), "abc");
+
+    try {
+      new HTTPRequestParser(new MockContainer())
+          .parse(ByteBuffer.wrap("POST / HTTP/1.1\r\nContent-Length: -5\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+      fail("Should have failed");
+    } catch (IllegalArgumentException e) {
+      assertEquals(e.getMessage(), "Invalid Content-Length [-5]");
+    }
+
+    // A rejected request doesn't leave anything behind for the next one
+    HTTPRequestParser parser = new HTTPRequestParser(new MockContainer());
+    try {
+      parser.parse(ByteBuffer.wrap("POST / HTTP/1.1\r\nContent-Length: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+      fail("Should have failed");
+    } catch (IllegalArgumentException e) {
+      assertEquals(e.getMessage(), "Invalid Content-Length [x]");
+    }
+
+    request = parser.parse(ByteBuffer.wrap("GET /b HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(request.getMethod(), "GET");
+    assertEquals(request.getRequestURI(), "/b");
+  }
+
+  @Test
+  public void pipelined() throws IOException {
+    String raw = "GET /search?q=prime+mock&tag=a&tag=b%21 HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "Accept: text/html,\r\n" +
+        "  application/json\r\n" +
+        "\r\n" +
+        "PUT /users/1 HTTP/1.1\r\n" +
+        "Content-Length: 2\r\n" +
+        "\r\n" +
+        "{}" +
+        "PROPFIND /dav HTTP/1.1\n" +
+        "\n";
+
+    HTTPRequestParser parser = new HTTPRequestParser(new MockContainer());
+    InputStream stream = new ByteArrayInputStream(raw.getBytes(StandardCharsets.US_ASCII));
+
+    MockHttpServletRequest request = parser.parse(stream);
+    assertEquals(request.getMethod(), "GET");
+    assertEquals(request.getProtocol(), "HTTP/1.1");
+    assertEquals(request.getRequestURI(), "/search");
+    assertEquals(request.getParameter("q"), "prime mock");
+    assertEquals(request.getParameterValues("tag"), new String[]{"a", "b!"});
+    assertEquals(request.getHeader("Accept"), "text/html, application/json");
+    assertNull(request.getHeader("User-Agent"));
+
+    request = parser.parse(stream);
+    assertEquals(request.getMethod(), "PUT");
+    assertEquals(request.getRequestURI(), "/users/1");
+    assertEquals(read(request.getInputStream()), "{}");
+
+    request = parser.parse(stream);
+    assertEquals(request.getMethod(), "PROPFIND");
+    assertEquals(request.getRequestURI(), "/dav");
+
+    assertNull(parser.parse(stream));
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void truncated() throws IOException {
+    new HTTPRequestParser(new MockContainer())
+        .parse(new ByteArrayInputStream("POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\nabc".getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private String read(InputStream stream) throws IOException {
+    StringBuilder build = new StringBuilder();
+    int b;
+    while ((b = stream.read()) != -1) {
+      build.append((char) b);
+    }
+
+    return build.toString();
+  }
+}
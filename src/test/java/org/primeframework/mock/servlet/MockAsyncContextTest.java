@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class MockAsyncContextTest {
+  @Test
+  public void dispatch() throws Exception {
+    MockContainer container = new MockContainer();
+    List<String> calls = new CopyOnWriteArrayList<>();
+    MockServletRegistration registration = (MockServletRegistration) container.getContext().addServlet("async", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) {
+        calls.add(req.getDispatcherType().toString());
+        if (req.getDispatcherType() == DispatcherType.REQUEST) {
+          AsyncContext async = req.startAsync();
+          async.start(async::dispatch);
+        }
+      }
+    });
+    registration.addMapping("/async");
+    registration.setAsyncSupported(true);
+
+    MockHttpServletRequest request = container.newServletRequest("/async");
+    container.service();
+    MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+    assertTrue(async.awaitCompletion(5, TimeUnit.SECONDS));
+    assertEquals(calls, asList("REQUEST", "ASYNC"));
+    assertFalse(request.isAsyncStarted());
+    assertEquals(request.getAttribute(AsyncContext.ASYNC_REQUEST_URI), "/async");
+    assertTrue(async.getDispatched() >= async.getStarted());
+    assertTrue(async.getCompleted() >= async.getDispatched());
+    assertTrue(async.getDuration() >= 0);
+  }
+
+  @Test
+  public void dispatchPath() throws Exception {
+    MockContainer container = new MockContainer();
+    MockServletRegistration registration = (MockServletRegistration) container.getContext().addServlet("async", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) {
+        AsyncContext async = req.startAsync();
+        async.start(() -> async.dispatch("/done"));
+      }
+    });
+    registration.addMapping("/async");
+    registration.setAsyncSupported(true);
+
+    List<String> seen = new CopyOnWriteArrayList<>();
+    container.getContext().addServlet("done", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) {
+        seen.add(req.getServletPath());
+        seen.add(req.getRequestURI());
+        seen.add(String.valueOf(req.getAttribute(RequestDispatcher.INCLUDE_SERVLET_PATH)));
+        resp.setStatus(201);
+        resp.setHeader("X-Done", "true");
+        resp.setContentType("text/plain");
+      }
+    }).addMapping("/done");
+
+    MockHttpServletRequest request = container.newServletRequest("/async");
+    container.service();
+    assertTrue(((MockAsyncContext) request.getAsyncContext()).awaitCompletion(5, TimeUnit.SECONDS));
+    assertEquals(seen, asList("/done", "/done", "null"));
+    assertEquals(request.getAttribute(AsyncContext.ASYNC_SERVLET_PATH), "/async");
+
+    MockHttpServletResponse response = container.getResponse();
+    assertEquals(response.getStatus(), 201);
+    assertEquals(response.getHeader("X-Done"), "true");
+    assertEquals(response.getContentType(), "text/plain");
+  }
+
+  @Test
+  public void notSupported() throws Exception {
+    MockContainer container = new MockContainer();
+    container.getContext().addServlet("sync", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) {
+        try {
+          req.startAsync();
+          fail("Should have thrown");
+        } catch (IllegalStateException e) {
+          // Expected
+        }
+      }
+    }).addMapping("/sync");
+
+    MockHttpServletRequest request = container.newServletRequest("/sync");
+    container.service();
+    assertFalse(request.isAsyncSupported());
+  }
+
+  @Test
+  public void startAndComplete() throws Exception {
+    MockContainer container = new MockContainer();
+    MockHttpServletRequest request = container.newServletRequest("/foo");
+    List<String> events = new CopyOnWriteArrayList<>();
+
+    AsyncContext async = request.startAsync();
+    async.addListener(new RecordingListener(events));
+    assertTrue(request.isAsyncStarted());
+    assertTrue(async.hasOriginalRequestAndResponse());
+
+    async.start(() -> {
+      events.add("run");
+      async.complete();
+    });
+
+    assertTrue(((MockAsyncContext) async).awaitCompletion(5, TimeUnit.SECONDS));
+    assertEquals(events, asList("run", "complete"));
+    assertFalse(request.isAsyncStarted());
+  }
+
+  @Test
+  public void timeout() throws Exception {
+    MockContainer container = new MockContainer();
+    MockHttpServletRequest request = container.newServletRequest("/foo");
+    List<String> events = new CopyOnWriteArrayList<>();
+
+    MockAsyncContext async = (MockAsyncContext) request.startAsync();
+    async.addListener(new RecordingListener(events));
+    async.setTimeout(10);
+
+    assertTrue(async.awaitCompletion(5, TimeUnit.SECONDS));
+    assertEquals(events, asList("timeout", "complete"));
+    assertEquals(container.getResponse().getStatus(), 500);
+  }
+
+  private static class RecordingListener implements AsyncListener {
+    private final List<String> events;
+
+    private RecordingListener(List<String> events) {
+      this.events = events;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      events.add("complete");
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      events.add("error");
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      events.add("start");
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      events.add("timeout");
+    }
+  }
+}
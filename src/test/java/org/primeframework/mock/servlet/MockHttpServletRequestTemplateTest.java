@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.Cookie;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class MockHttpServletRequestTemplateTest {
+  @Test
+  public void copyOnWrite() throws Exception {
+    MockContainer container = new MockContainer();
+    MockHttpServletRequestTemplate template = container.newServletRequestTemplate("/api/user", request -> {
+      request.setMethod(MockHttpServletRequest.Method.PUT);
+      request.setContentType("application/json");
+      request.setEncoding("UTF-8");
+      request.addLocale(Locale.FRENCH);
+      for (int i = 0; i < 20; i++) {
+        request.addHeader("X-Header-" + i, "value" + i);
+      }
+      request.setParameter("page", "1");
+      request.setAttribute("tenant", "acme");
+      request.setInputStream(new MockServletInputStream("{\"name\":\"Bob\"}".getBytes(StandardCharsets.UTF_8)));
+      request.container.getUserAgent().addCookie(request, new Cookie("session", "abc"));
+    });
+
+    MockHttpServletRequest first = container.newServletRequest(template);
+    assertEquals(first.getMethod(), "PUT");
+    assertEquals(first.getRequestURI(), "/api/user");
+    assertEquals(first.getHeader("X-Header-7"), "value7");
+    assertEquals(first.getParameter("page"), "1");
+    assertEquals(first.getAttribute("tenant"), "acme");
+    assertTrue(first.getLocalesVector().contains(Locale.FRENCH));
+    assertEquals(first.getCookies()[0].getValue(), "abc");
+    try (BufferedReader reader = first.getReader()) {
+      assertEquals(reader.readLine(), "{\"name\":\"Bob\"}");
+    }
+
+    // Reads don't copy anything
+    assertFalse(((CopyOnWriteMap<?, ?>) first.parameters).isCopied());
+
+    // Changes only affect the one request, including changes through the lists that were handed out
+    first.addHeader("X-Header-7", "changed");
+    first.getParameters().get("page").add("2");
+    first.setAttribute("tenant", "other");
+    assertTrue(((CopyOnWriteMap<?, ?>) first.parameters).isCopied());
+    assertEquals(first.getParameterValues("page"), new String[]{"1", "2"});
+    assertEquals(asList(first.headers.get("X-Header-7").toArray()), asList("value7", "changed"));
+
+    MockHttpServletRequest second = new MockContainer().newServletRequest(template);
+    assertEquals(second.headers.get("X-Header-7"), singletonList("value7"));
+    assertEquals(second.getParameterValues("page"), new String[]{"1"});
+    assertEquals(second.getAttribute("tenant"), "acme");
+    second.headers.keySet().removeIf(name -> name.startsWith("X-Header-"));
+    assertNull(second.getHeader("X-Header-0"));
+    assertEquals(template.headers.size(), first.headers.size());
+
+    // Entry and bulk changes copy too, just like they work on a request that wasn't made from a template
+    MockHttpServletRequest third = container.newServletRequest(template);
+    third.parameters.entrySet().iterator().next().setValue(new ArrayList<>(singletonList("4")));
+    assertEquals(third.getParameterValues("page"), new String[]{"4"});
+    MockHttpServletRequest fourth = container.newServletRequest(template);
+    fourth.parameters.replaceAll((name, values) -> new ArrayList<>(singletonList("5")));
+    assertEquals(fourth.getParameterValues("page"), new String[]{"5"});
+    assertEquals(template.parameters.get("page"), singletonList("1"));
+
+    MockHttpServletRequestTemplate derived = template.with(request -> request.setParameter("page", "3"));
+    assertEquals(new MockContainer().newServletRequest(derived).getParameterValues("page"), new String[]{"1", "3"});
+    assertEquals(template.parameters.get("page"), singletonList("1"));
+  }
+
+  @Test
+  public void multipartLayout() throws Exception {
+    MockContainer container = new MockContainer();
+    File text = new File("src/test/java/org/primeframework/mock/servlet/test-file.txt");
+    MockHttpServletRequestTemplate template = container.newServletRequestTemplate("/upload", request -> {
+      request.setParameter("name", "first");
+      request.addFile("file", text, "text/plain");
+    });
+
+    MockHttpServletRequest first = container.newServletRequest(template);
+    MockHttpServletRequest second = container.newServletRequest(template);
+    assertSame(first.multipartLayout, template.multipartLayout);
+    assertSame(second.multipartLayout, template.multipartLayout);
+
+    // Values and files that differ from the template are spliced in or encoded when the body is opened
+    File gif = new File("src/test/java/org/primeframework/mock/servlet/test.gif");
+    second.setParameters("name", "second");
+    second.setParameter("extra", "value");
+    second.files.put("file", singletonList(new FileInfo(gif, "file", "image/gif")));
+
+    assertEquals(readAll(first.getPart("file").getInputStream()), Files.readAllBytes(text.toPath()));
+    assertEquals(readAll(first.getPart("name").getInputStream()), "first".getBytes(StandardCharsets.US_ASCII));
+    assertEquals(second.getPart("file").getSubmittedFileName(), "test.gif");
+    assertEquals(second.getPart("file").getContentType(), "image/gif");
+    assertEquals(readAll(second.getPart("file").getInputStream()), Files.readAllBytes(gif.toPath()));
+    assertEquals(readAll(second.getPart("name").getInputStream()), "second".getBytes(StandardCharsets.US_ASCII));
+    assertEquals(readAll(second.getPart("extra").getInputStream()), "value".getBytes(StandardCharsets.US_ASCII));
+    int available = second.getInputStream().available();
+    assertEquals(second.getContentLengthLong(), available);
+  }
+
+  private byte[] readAll(InputStream is) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = is.read(buffer)) != -1) {
+      baos.write(buffer, 0, read);
+    }
+
+    return baos.toByteArray();
+  }
+}
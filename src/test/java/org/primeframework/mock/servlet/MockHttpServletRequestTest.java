@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2018, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,17 +15,28 @@
  */
 package org.primeframework.mock.servlet;
 
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.Part;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.Stream;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileItemFactory;
@@ -33,12 +44,15 @@ import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.testng.annotations.Test;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * This class tests the mocks.
@@ -59,6 +73,82 @@ public class MockHttpServletRequestTest {
     assertEquals(request.getHeader("User-Agent"), "Internet Explorer 3.0.1");
   }
 
+  @Test
+  public void chunkedBody() throws Exception {
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+    request.setInputStream(new MockServletInputStream(new byte[10]));
+    assertEquals(request.getContentLengthLong(), 10);
+
+    // The chunks are produced as they are read
+    ByteBuffer chunk = ByteBuffer.wrap(new byte[1024]);
+    Iterator<ByteBuffer> chunks = Stream.generate(() -> chunk).limit(1000).iterator();
+    request.setChunkedBody(chunks);
+    assertEquals(request.getContentLengthLong(), -1);
+    assertEquals(request.getContentLength(), -1);
+    assertEquals(request.getHeader("Transfer-Encoding"), "chunked");
+
+    InputStream is = request.getInputStream();
+    assertEquals(is.read(new byte[100]), 100);
+    assertEquals(is.skip(1000), 1000);
+    assertEquals(readAll(is).length, 1024 * 1000 - 1100);
+    assertTrue(request.getInputStream().isFinished());
+    assertEquals(((ChunkedInputStream) request.getInputStream()).getBytesRead(), 1024 * 1000);
+  }
+
+  @Test
+  public void compressedBody() throws Exception {
+    byte[] plain = new byte[200_000];
+    for (int i = 0; i < plain.length; i++) {
+      plain[i] = (byte) ('a' + i % 7);
+    }
+
+    for (String coding : asList("gzip", "deflate")) {
+      MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+      request.setCompressedBody(plain, coding);
+      assertEquals(request.getHeader("Content-Encoding"), coding);
+      assertEquals(request.getHeader("Transfer-Encoding"), "chunked");
+      assertEquals(request.getContentLengthLong(), -1);
+
+      byte[] compressed = readAll(request.getInputStream());
+      assertEquals(readAll(ContentCodec.decoder(coding, new ByteArrayInputStream(compressed))), plain);
+
+      CompressingInputStream stream = (CompressingInputStream) request.getInputStream();
+      assertEquals(stream.getPlainBytes(), plain.length);
+      assertEquals(stream.getCompressedBytes(), compressed.length);
+      assertTrue(stream.getCompressionRatio() > 10);
+      assertTrue(stream.getEncodeNanos() > 0);
+    }
+
+    try {
+      new MockContainer().newServletRequest("/foo").setCompressedBody(plain, "br");
+      fail("Should have thrown");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void formBody() throws Exception {
+    // Parameters are encoded into the body on demand
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo", Locale.ENGLISH, true, "UTF-8");
+    request.setParameter("a", "1");
+    request.setParameters("b", "x y", "\u00e9&=");
+    assertEquals(request.getParameter("a"), "1");
+    assertEquals(request.getContentLength(), 24);
+    assertEquals(new String(readAll(request.getInputStream()), "UTF-8"), "a=1&b=x+y&b=%C3%A9%26%3D");
+    assertEquals(request.getParameterValues("b").length, 2);
+
+    // A body is decoded into the parameters the first time they are read and can still be read afterwards
+    request = new MockContainer().newServletRequest("/foo", Locale.ENGLISH, true, "UTF-8");
+    request.setParameter("query", "q");
+    request.setInputStream(new MockServletInputStream("c=3&d=%C3%A9+x&e".getBytes("UTF-8")));
+    assertEquals(request.getParameter("c"), "3");
+    assertEquals(request.getParameter("d"), "\u00e9 x");
+    assertEquals(request.getParameter("e"), "");
+    assertEquals(request.getParameter("query"), "q");
+    assertEquals(new String(readAll(request.getInputStream()), "UTF-8"), "c=3&d=%C3%A9+x&e");
+  }
+
   @Test
   public void getHeaders() {
     MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
@@ -118,12 +208,231 @@ public class MockHttpServletRequestTest {
     assertEquals(original, new String(Files.readAllBytes(file.toPath())));
   }
 
+  @Test
+  public void multipartFileSources() throws Exception {
+    byte[] bytes = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.position(2);
+    Path path = Files.createTempFile("prime-mock-source", ".txt");
+    try {
+      Files.write(path, bytes);
+
+      MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+      request.addFile(new FileInfo(buffer, "buffer", "buffer.bin", "application/octet-stream"));
+      request.addFile(new FileInfo(path, "path", "text/plain"));
+      request.addFile(FileInfo.random("random", "random.bin", "application/octet-stream", 100_003, 7));
+      byte[] pattern = "abc".getBytes(StandardCharsets.US_ASCII);
+      request.addFile(FileInfo.repeating("repeating", "repeating.txt", "text/plain", 10, pattern));
+
+      assertEquals(new String(readAll(request.getPart("buffer").getInputStream())), "23456789");
+      assertEquals(request.getPart("buffer").getSubmittedFileName(), "buffer.bin");
+      assertEquals(readAll(request.getPart("path").getInputStream()), bytes);
+      assertEquals(request.getPart("path").getSubmittedFileName(), path.getFileName().toString());
+      assertEquals(new String(readAll(request.getPart("repeating").getInputStream())), "abcabcabca");
+
+      // Generated contents are the same whether they are streamed in odd sized pieces or built into the body
+      byte[] random = readAll(request.getPart("random").getInputStream());
+      assertEquals(random.length, 100_003);
+      ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+      FileInfo same = FileInfo.random("random", "random.bin", "application/octet-stream", 100_003, 7);
+      try (InputStream is = same.openStream()) {
+        byte[] piece = new byte[13];
+        int read;
+        while ((read = is.read(piece)) != -1) {
+          streamed.write(piece, 0, read);
+        }
+      }
+
+      assertEquals(streamed.toByteArray(), random);
+      FileInfo otherSeed = FileInfo.random("random", "random.bin", "application/octet-stream", 64, 8);
+      assertFalse(Arrays.equals(readAll(otherSeed.openStream()), Arrays.copyOf(random, 64)));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void multipartMultipleFiles() throws Exception {
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+    request.setParameter("name", "value");
+    for (int i = 0; i < 300; i++) {
+      byte[] pattern = String.valueOf(i).getBytes(StandardCharsets.US_ASCII);
+      request.addFile(FileInfo.repeating("files", "file" + i + ".txt", "text/plain", 10_000, pattern));
+    }
+
+    ByteBuffer first = ByteBuffer.wrap("first".getBytes(StandardCharsets.US_ASCII));
+    FileInfo second = FileInfo.random("ignored", "second.bin", "application/octet-stream", 1_000, 3);
+    request.addFile(FileInfo.mixed("mixed", asList(new FileInfo(first, "ignored", "first.txt", "text/plain"), second)));
+
+    // The length is known before the body is read
+    long length = request.getContentLengthLong();
+    assertTrue(length > 0);
+
+    // The body is generated as it is read, in pieces that don't line up with the parts
+    InputStream is = request.getInputStream();
+    byte[] buf = new byte[7];
+    long total = 0;
+    int read;
+    while ((read = is.read(buf)) != -1) {
+      total += read;
+    }
+
+    assertEquals(total, length);
+    assertEquals(request.getContentLengthLong(), length);
+    assertTrue(total > 3_000_000);
+
+    List<Part> parts = new ArrayList<>(request.getParts());
+    assertEquals(parts.size(), 303);
+    assertEquals(parts.get(0).getName(), "name");
+    assertEquals(parts.get(6).getName(), "files");
+    assertEquals(parts.get(6).getSubmittedFileName(), "file5.txt");
+    assertEquals(parts.get(6).getSize(), 10_000);
+    assertEquals(new String(readAll(parts.get(42).getInputStream())).substring(0, 6), "414141");
+
+    // The files nested in the multipart/mixed part are named after the field
+    assertEquals(parts.get(301).getName(), "mixed");
+    assertEquals(parts.get(301).getSubmittedFileName(), "first.txt");
+    assertEquals(new String(readAll(parts.get(301).getInputStream())), "first");
+    assertEquals(parts.get(302).getName(), "mixed");
+    assertEquals(parts.get(302).getContentType(), "application/octet-stream");
+    assertEquals(readAll(parts.get(302).getInputStream()), readAll(second.openStream()));
+
+    // Commons FileUpload understands the nested parts too
+    MockHttpServletRequest mixed = new MockContainer().newServletRequest("/foo");
+    mixed.addFile(FileInfo.mixed("mixed", asList(new FileInfo(first, "ignored", "first.txt", "text/plain"), second)));
+    List<FileItem> items = new ServletFileUpload(new DiskFileItemFactory()).parseRequest(mixed);
+    assertEquals(items.size(), 2);
+    assertEquals(items.get(0).getFieldName(), "mixed");
+    assertEquals(items.get(0).getName(), "first.txt");
+    assertEquals(items.get(0).getString(), "first");
+    assertEquals(items.get(1).getName(), "second.bin");
+
+    // A boundary that is split between two reads is still found
+    MockHttpServletRequest split = new MockContainer().newServletRequest("/foo");
+    split.setContentType("multipart/form-data; boundary=custom");
+    byte[] pattern = "abcdef\r\n--custom".getBytes(StandardCharsets.US_ASCII);
+    split.addFile(FileInfo.repeating("file", "file.txt", "text/plain", 100, pattern));
+    try {
+      InputStream splitStream = split.getInputStream();
+      while (splitStream.read(buf) != -1) {
+        // Keep reading
+      }
+
+      fail("Should have failed");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("[file.txt]"), e.getMessage());
+    }
+  }
+
+  @Test
+  public void multipartBoundary() throws Exception {
+    MockContainer container = new MockContainer();
+    File text = new File("src/test/java/org/primeframework/mock/servlet/test-file.txt");
+    MockHttpServletRequest first = container.newServletRequest("/foo");
+    first.addFile("file", text, "text/plain");
+    MockHttpServletRequest second = container.newServletRequest("/foo");
+    second.addFile("file", text, "text/plain");
+    assertTrue(first.getContentType().startsWith("multipart/form-data; boundary=PrimeMockBoundary"));
+    assertFalse(first.getContentType().equals(second.getContentType()));
+    assertEquals(readAll(first.getPart("file").getInputStream()), Files.readAllBytes(text.toPath()));
+
+    // A boundary set on the content type is used, and reading data that contains it fails instead of making a corrupt
+    // body
+    File file = File.createTempFile("prime-mock-boundary", ".bin");
+    try {
+      for (String contents : asList("abc\r\n--custom\r\nabc", "--custom--", "no boundary here")) {
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.US_ASCII));
+        MockHttpServletRequest request = container.newServletRequest("/foo");
+        request.setContentType("multipart/form-data; boundary=custom");
+        request.addFile("file", file, "application/octet-stream");
+        request.addFile("other", text, "text/plain");
+        if (contents.startsWith("no")) {
+          assertEquals(readAll(request.getPart("file").getInputStream()), contents.getBytes(StandardCharsets.US_ASCII));
+          continue;
+        }
+
+        try {
+          readAll(request.getInputStream());
+          fail("Should have failed");
+        } catch (IOException e) {
+          assertTrue(e.getMessage().contains("[custom]"), e.getMessage());
+        }
+      }
+    } finally {
+      Files.delete(file.toPath());
+    }
+
+    MockHttpServletRequest request = container.newServletRequest("/foo");
+    request.setContentType("multipart/form-data; boundary=custom");
+    request.setParameter("value", "x\r\n--custom");
+    request.addFile("file", text, "text/plain");
+    try {
+      request.getParts();
+      fail("Should have failed");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
   @Test
   public void multipartJARFile() throws Exception {
     test(new File("src/test/java/org/primeframework/mock/servlet/test.jar"), "application/java-archive");
     test(new File("src/test/java/org/primeframework/mock/servlet/test.gif"), "image/gif");
   }
 
+  @Test
+  public void parts() throws Exception {
+    MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
+    request.addFile("file", new File("src/test/java/org/primeframework/mock/servlet/test.gif"), "image/gif");
+    request.setParameter("test", "value");
+
+    List<Part> parts = new ArrayList<>(request.getParts());
+    assertEquals(parts.size(), 2);
+    assertEquals(parts.get(0).getName(), "test");
+    assertNull(parts.get(0).getSubmittedFileName());
+    assertEquals(new String(readAll(parts.get(0).getInputStream())), "value");
+
+    Part file = request.getPart("file");
+    assertEquals(file.getSubmittedFileName(), "test.gif");
+    assertEquals(file.getContentType(), "image/gif");
+    assertTrue(((MockPart) file).isInMemory());
+    assertEquals(readAll(file.getInputStream()), Files.readAllBytes(Paths.get("src/test/java/org/primeframework/mock/servlet/test.gif")));
+    assertSame(request.getParts(), request.getParts());
+    assertNull(request.getPart("missing"));
+
+    try {
+      new MockContainer().newServletRequest("/foo").getParts();
+      fail("Should have thrown");
+    } catch (ServletException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void requestDispatcher() {
+    MockContainer container = new MockContainer();
+    container.getContext().addServlet("admin", new HttpServlet() {}).addMapping("/admin/*");
+    MockHttpServletRequest request = container.newServletRequest("/admin/users/edit");
+    request.setServletPath("/admin");
+    request.setPathInfo("/users/edit");
+
+    MockRequestDispatcher dispatcher = (MockRequestDispatcher) request.getRequestDispatcher("list");
+    assertEquals(dispatcher.getUri(), "/admin/users/list");
+    assertEquals(dispatcher.getServletPath(), "/admin");
+    assertEquals(dispatcher.getPathInfo(), "/users/list");
+
+    dispatcher = (MockRequestDispatcher) request.getRequestDispatcher("../../index.jsp");
+    assertEquals(dispatcher.getUri(), "/index.jsp");
+    assertNull(dispatcher.getServletPath());
+    assertNull(dispatcher.getTarget());
+
+    assertNull(request.getRequestDispatcher("../../../index.jsp"));
+    assertEquals(request.catPath("/a/b/c", "d"), "/a/b/d");
+    assertEquals(request.catPath("/a/b/c", "../d"), "/a/d");
+    assertEquals(request.catPath("/a", "/b/c", "../../d"), "/d");
+    assertEquals(request.catPath("c", "d"), "d");
+  }
+
   @Test
   public void sessionDefaults() throws Exception {
     MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
@@ -153,6 +462,16 @@ public class MockHttpServletRequestTest {
     return buf;
   }
 
+  private byte[] readAll(InputStream is) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    int len;
+    while ((len = is.read(buf)) != -1) {
+      baos.write(buf, 0, len);
+    }
+    return baos.toByteArray();
+  }
+
   private void test(File file, String contentType) throws Exception {
     MockHttpServletRequest request = new MockContainer().newServletRequest("/foo");
     request.addFile("file", file, contentType);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2015, Inversoft, All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft, All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,42 @@
 package org.primeframework.mock.servlet;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 /**
  * @author Daniel DeGroff
  */
 public class MockHttpServletResponseTest {
 
+  @Test
+  public void decodedBody() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse(new MockContainer());
+    response.setHeader("Content-Encoding", "gzip");
+    try (OutputStream os = ContentCodec.encoder("gzip", response.getOutputStream())) {
+      for (int i = 0; i < 1000; i++) {
+        os.write("Hello world. ".getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    DecodedBody body = response.getDecodedBody();
+    assertEquals(body.getDecodeNanos(), 0);
+    assertEquals(body.toString(StandardCharsets.UTF_8).length(), 13_000);
+    assertTrue(body.getDecodeNanos() > 0);
+    assertEquals(body.getEncodedLength(), response.getStream().toByteArray().length);
+    assertTrue(body.getCompressionRatio() > 10);
+    assertEquals(body.getInputStream().read(), 'H');
+
+    response = new MockHttpServletResponse(new MockContainer());
+    response.getOutputStream().print("plain");
+    assertEquals(response.getDecodedBody().toString(StandardCharsets.UTF_8), "plain");
+  }
+
   @Test
   public void redirect() {
     MockHttpServletResponse response = new MockHttpServletResponse(new MockContainer());
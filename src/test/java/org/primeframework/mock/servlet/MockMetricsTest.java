@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.primeframework.mock.servlet.MockMetrics.Counter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class MockMetricsTest {
+  @Test
+  public void disabled() throws Exception {
+    MockContainer container = new MockContainer();
+    MockHttpServletRequest request = container.newServletRequest("/foo");
+    request.addHeader("X-Foo", "bar");
+    assertEquals(request.getHeader("X-Foo"), "bar");
+    assertNull(request.getMetrics());
+    assertNull(container.getMetrics());
+    assertTrue(request.getInputStream() instanceof MockServletInputStream);
+  }
+
+  @Test
+  public void requestAndAggregate() throws Exception {
+    MockContainer container = new MockContainer().enableMetrics();
+    container.getContext().addServlet("echo", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        req.getHeader("X-Foo");
+        req.getParameter("page");
+        req.getSession().setAttribute("user", "bob");
+        req.getSession().getAttribute("user");
+        req.getServletContext().setAttribute("hits", 1);
+
+        byte[] body;
+        try (InputStream is = req.getInputStream()) {
+          assertEquals(is.skip(1), 1);
+          assertSame(req.getInputStream(), is);
+          body = readAll(is);
+        }
+
+        resp.setHeader("Content-Type", "text/plain");
+        resp.getOutputStream().write(body);
+      }
+    }).addMapping("/echo");
+
+    for (int i = 0; i < 2; i++) {
+      MockHttpServletRequest request = container.newServletRequest("/echo");
+      request.addHeader("X-Foo", "bar");
+      request.setParameter("page", "1");
+      request.setInputStream(new MockServletInputStream("_hello".getBytes(StandardCharsets.UTF_8)));
+      container.newServletResponse();
+      container.service();
+
+      MockMetrics metrics = request.getMetrics();
+      assertEquals(metrics.get(Counter.HEADER_READS), 1);
+      assertEquals(metrics.get(Counter.HEADER_WRITES), 1);
+      assertEquals(metrics.get(Counter.PARAMETER_READS), 1);
+      assertEquals(metrics.get(Counter.PARAMETER_WRITES), 1);
+      assertEquals(metrics.get(Counter.BODY_BYTES_READ), 6);
+      assertEquals(metrics.get(Counter.BODY_OPENS), 2);
+      assertEquals(metrics.get(Counter.BODY_BYTES_WRITTEN), 5);
+      assertEquals(metrics.get(Counter.SESSION_TOUCHES), 2);
+      assertEquals(metrics.get(Counter.SESSION_ATTRIBUTE_READS), 1);
+      assertEquals(metrics.get(Counter.SESSION_ATTRIBUTE_WRITES), 1);
+      assertEquals(metrics.get(Counter.CONTEXT_ATTRIBUTE_WRITES), 1);
+      assertEquals(metrics.get(Counter.RESPONSE_HEADER_WRITES), 1);
+      assertTrue(metrics.getTimeToFirstByte() >= 0);
+      assertEquals(container.getResponse().getStream().toString(), "hello");
+    }
+
+    MockMetrics aggregate = container.getMetrics();
+    assertEquals(aggregate.getRequests(), 3); // Includes the container's initial request
+    assertEquals(aggregate.get(Counter.HEADER_READS), 2);
+    assertEquals(aggregate.get(Counter.BODY_BYTES_READ), 12);
+    assertEquals(aggregate.get(Counter.BODY_BYTES_WRITTEN), 10);
+    assertTrue(aggregate.getMaxTimeToFirstByte() >= aggregate.getAverageTimeToFirstByte());
+    assertEquals(aggregate.getTimeToFirstByte(), -1);
+
+    aggregate.reset();
+    assertTrue(aggregate.toMap().isEmpty());
+    assertEquals(aggregate.getMaxTimeToFirstByte(), -1);
+
+    MockMetrics metrics = container.getRequest().getMetrics();
+    assertTrue(metrics.getTimeToFirstByte() >= 0);
+    metrics.reset();
+    assertEquals(metrics.getTimeToFirstByte(), -1);
+  }
+
+  private static byte[] readAll(InputStream is) throws IOException {
+    byte[] buf = new byte[64];
+    int length = 0;
+    int read;
+    while ((read = is.read(buf, length, buf.length - length)) > 0) {
+      length += read;
+    }
+
+    byte[] result = new byte[length];
+    System.arraycopy(buf, 0, result, 0, length);
+    return result;
+  }
+}
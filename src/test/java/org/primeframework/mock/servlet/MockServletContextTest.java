@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001-2007, Inversoft Inc., All Rights Reserved
+ * Copyright (c) 2001-2026, Inversoft Inc., All Rights Reserved
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,29 @@
  */
 package org.primeframework.mock.servlet;
 
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 import org.testng.annotations.Test;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
 import static org.testng.Assert.*;
 
 /**
@@ -58,4 +74,184 @@ public class MockServletContextTest {
 
     assertTrue(found);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void filterChain() throws Exception {
+    MockContainer container = new MockContainer();
+    MockServletContext context = container.getContext();
+    List<String> calls = new ArrayList<>();
+    context.addServlet("api", new RecordingServlet("api", calls)).addMapping("/api/*");
+    context.addFilter("second", new RecordingFilter("second", calls))
+           .addMappingForUrlPatterns(null, true, "/api/*");
+    context.addFilter("byName", new RecordingFilter("byName", calls))
+           .addMappingForServletNames(null, true, "api");
+    context.addFilter("first", new RecordingFilter("first", calls))
+           .addMappingForUrlPatterns(null, false, "/*");
+    context.addFilter("other", new RecordingFilter("other", calls))
+           .addMappingForUrlPatterns(null, true, "*.jsp");
+
+    container.newServletRequest("/api/users/42");
+    container.service();
+    assertEquals(calls, asList("first", "second", "byName", "api:/api:/users/42"));
+
+    // Nothing is mapped here
+    calls.clear();
+    container.newServletRequest("/missing");
+    container.service();
+    assertEquals(calls, asList("first"));
+  }
+
+  @Test
+  public void forwardAndInclude() throws Exception {
+    MockContainer container = new MockContainer();
+    MockServletContext context = container.getContext();
+    List<String> calls = new ArrayList<>();
+    context.addServlet("view", new RecordingServlet("view", calls)).addMapping("*.jsp");
+    context.addServlet("controller", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        try {
+          req.getRequestDispatcher("header.jsp").include(req, resp);
+          req.getRequestDispatcher("/WEB-INF/view.jsp").forward(req, resp);
+        } catch (Exception e) {
+          throw new IOException(e);
+        }
+      }
+    }).addMapping("/app/index");
+    context.addFilter("forwards", new RecordingFilter("forwards", calls))
+           .addMappingForUrlPatterns(EnumSet.of(DispatcherType.FORWARD), true, "/*");
+
+    MockHttpServletRequest request = container.newServletRequest("/app/index");
+    container.service();
+    assertEquals(calls, asList("view:/app/index:null", "forwards", "view:/WEB-INF/view.jsp:null"));
+    assertTrue(request.getRequestDispatcher().isForwarded());
+    assertEquals(request.getAttribute("javax.servlet.forward.request_uri"), "/app/index");
+    assertEquals(request.getServletPath(), "/app/index");
+    assertNull(request.getAttribute("javax.servlet.include.request_uri"));
+  }
+
+  @Test
+  public void forwardParameters() throws Exception {
+    MockContainer container = new MockContainer();
+    MockServletContext context = container.getContext();
+    List<String> calls = new ArrayList<>();
+    context.addServlet("view", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) {
+        calls.add(String.join(",", req.getParameterValues("id")) + ":" + req.getParameter("other"));
+      }
+    }).addMapping("/view");
+    context.addServlet("controller", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.getOutputStream().write("discarded".getBytes(StandardCharsets.UTF_8));
+        try {
+          req.getRequestDispatcher("/view?id=2").forward(req, resp);
+        } catch (Exception e) {
+          throw new IOException(e);
+        }
+
+        calls.add(req.getParameter("id"));
+      }
+    }).addMapping("/index");
+
+    MockHttpServletRequest request = container.newServletRequest("/index");
+    request.setParameter("id", "1");
+    request.setParameter("other", "value");
+    container.service();
+    assertEquals(calls, asList("2,1:value", "1"));
+    assertEquals(container.getResponse().getStream().toByteArray().length, 0);
+
+    // A context path only matches whole segments
+    calls.clear();
+    context.contextPath = "/app";
+    context.addServlet("application", new RecordingServlet("application", calls)).addMapping("/application/*");
+    container.newServletRequest("/application/page");
+    container.service();
+    assertEquals(calls, asList("application:/application:/page"));
+  }
+
+  @Test
+  public void servletMappings() {
+    MockServletContext context = new MockContainer().getContext();
+    MockServletRegistration root = (MockServletRegistration) context.addServlet("root", new HttpServlet() {});
+    MockServletRegistration exact = (MockServletRegistration) context.addServlet("exact", new HttpServlet() {});
+    MockServletRegistration prefix = (MockServletRegistration) context.addServlet("prefix", new HttpServlet() {});
+    MockServletRegistration longer = (MockServletRegistration) context.addServlet("longer", new HttpServlet() {});
+    MockServletRegistration extension = (MockServletRegistration) context.addServlet("ext", new HttpServlet() {});
+    MockServletRegistration fallback = (MockServletRegistration) context.addServlet("default", new HttpServlet() {});
+    root.addMapping("");
+    exact.addMapping("/catalog");
+    prefix.addMapping("/foo/*");
+    longer.addMapping("/foo/bar/*");
+    extension.addMapping("*.do");
+    fallback.addMapping("/");
+
+    // Conflicts are reported and not added
+    assertEquals(fallback.addMapping("/catalog", "/other"), singleton("/catalog"));
+    assertNull(context.getServletRegistration("missing"));
+    assertNull(context.addServlet("exact", new HttpServlet() {}));
+
+    assertMatch(context, "/", root, "", "/");
+    assertMatch(context, "/catalog", exact, "/catalog", null);
+    assertMatch(context, "/foo", prefix, "/foo", null);
+    assertMatch(context, "/foo/baz/index.do", prefix, "/foo", "/baz/index.do");
+    assertMatch(context, "/foo/bar/index.html", longer, "/foo/bar", "/index.html");
+    assertMatch(context, "/foobar", fallback, "/foobar", null);
+    assertMatch(context, "/catalog/index.do", extension, "/catalog/index.do", null);
+    assertMatch(context, "/index.html", fallback, "/index.html", null);
+  }
+
+  private void assertMatch(MockServletContext context, String path, MockServletRegistration registration,
+                           String servletPath, String pathInfo) {
+    ServletMappingTable.Match match = context.getMappingTable().match(path);
+    assertNotNull(match, path);
+    assertSame(match.registration, registration, path);
+    assertEquals(match.servletPath, servletPath, path);
+    assertEquals(match.pathInfo, pathInfo, path);
+  }
+
+  private static class RecordingFilter implements Filter {
+    private final List<String> calls;
+
+    private final String name;
+
+    private RecordingFilter(String name, List<String> calls) {
+      this.name = name;
+      this.calls = calls;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, javax.servlet.ServletException {
+      calls.add(name);
+      chain.doFilter(request, response);
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+  }
+
+  private static class RecordingServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> calls;
+
+    private final String name;
+
+    private RecordingServlet(String name, List<String> calls) {
+      this.name = name;
+      this.calls = calls;
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+      calls.add(name + ":" + req.getServletPath() + ":" + req.getPathInfo());
+    }
+  }
+}
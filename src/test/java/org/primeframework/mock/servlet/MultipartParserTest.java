@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.mock.servlet;
+
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.http.Part;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Pontarelli
+ */
+public class MultipartParserTest {
+  @Test
+  public void boundary() {
+    assertEquals(MultipartParser.boundary("multipart/form-data; boundary=abc"), "abc");
+    assertEquals(MultipartParser.boundary("multipart/form-data, boundary=abc"), "abc");
+    assertEquals(MultipartParser.boundary("multipart/form-data; boundary=\"a b\"; charset=UTF-8"), "a b");
+    assertEquals(MultipartParser.boundary("text/plain; boundary=abc"), null);
+    assertEquals(MultipartParser.boundary("multipart/form-data"), null);
+  }
+
+  @Test
+  public void limits() throws Exception {
+    byte[] body = body("abc", new byte[1000]);
+    try {
+      new MultipartParser("abc", new MultipartConfigElement("", 999, -1, 0), StandardCharsets.UTF_8).parse(body, 0, body.length);
+      fail("Should have thrown");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    try {
+      new MultipartParser("abc", new MultipartConfigElement("", -1, 100, 0), StandardCharsets.UTF_8).parse(new ByteArrayInputStream(body));
+      fail("Should have thrown");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    // The field is written to a temporary file before the upload fails, so it must be cleaned up
+    Path location = Files.createTempDirectory("prime-mock-parts");
+    try {
+      new MultipartParser("abc", new MultipartConfigElement(location.toString(), 100, -1, 0), StandardCharsets.UTF_8).parse(new ByteArrayInputStream(body));
+      fail("Should have thrown");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    try (Stream<Path> files = Files.list(location)) {
+      assertEquals(files.count(), 0L);
+    }
+
+    Files.delete(location);
+  }
+
+  @Test
+  public void streamingLargeFile() throws Exception {
+    // Random content that is read a few bytes at a time, so boundaries cross the buffer over and over
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    byte[] body = body("boundary1234", content);
+    InputStream is = new FilterInputStream(new ByteArrayInputStream(body)) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return super.read(b, off, Math.min(len, 7919));
+      }
+    };
+
+    MultipartConfigElement config = new MultipartConfigElement("", -1, -1, 1024 * 1024);
+    List<Part> parts = new MultipartParser("boundary1234", config, StandardCharsets.UTF_8).parse(is);
+    assertEquals(parts.size(), 2);
+    assertEquals(parts.get(0).getName(), "field");
+    assertTrue(((MockPart) parts.get(0)).isInMemory());
+
+    MockPart file = (MockPart) parts.get(1);
+    assertEquals(file.getName(), "upload");
+    assertEquals(file.getSubmittedFileName(), "data.bin");
+    assertEquals(file.getSize(), content.length);
+    assertFalse(file.isInMemory());
+    assertEquals(digest(file.getInputStream()), MessageDigest.getInstance("SHA-256").digest(content));
+
+    file.delete();
+    assertFalse(file.getFile().exists());
+  }
+
+  private byte[] body(String boundary, byte[] content) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    baos.write(("preamble\r\n--" + boundary + "\r\n" +
+        "Content-Disposition: form-data; name=\"field\"\r\n\r\n" +
+        "value\r\n--" + boundary + "\r\n" +
+        "Content-Disposition: form-data; name=\"upload\"; filename=\"data.bin\"\r\n" +
+        "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    baos.write(content);
+    baos.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    return baos.toByteArray();
+  }
+
+  private byte[] digest(InputStream is) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    byte[] buf = new byte[8192];
+    int len;
+    try (InputStream in = is) {
+      while ((len = in.read(buf)) != -1) {
+        digest.update(buf, 0, len);
+      }
+    }
+
+    return digest.digest();
+  }
+}